@@ -1,18 +1,36 @@
 package com.smartmobility.apigateway;
 
 import com.smartmobility.apigateway.filter.JwtAuthFilter;
+import com.smartmobility.apigateway.filter.RateLimitFilter;
+import com.smartmobility.apigateway.filter.RequestCoalescingFilter;
+import com.smartmobility.apigateway.filter.ResponseCacheFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
 import org.springframework.cloud.gateway.route.RouteLocator;
 import org.springframework.cloud.gateway.route.builder.RouteLocatorBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpMethod;
 
 @Configuration
 public class GatewayConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
+    private final ResponseCacheFilter responseCacheFilter;
+    private final RequestCoalescingFilter requestCoalescingFilter;
+    private final Environment environment;
 
-    public GatewayConfig(JwtAuthFilter jwtAuthFilter) {
+    public GatewayConfig(JwtAuthFilter jwtAuthFilter,
+                         RateLimitFilter rateLimitFilter,
+                         ResponseCacheFilter responseCacheFilter,
+                         RequestCoalescingFilter requestCoalescingFilter,
+                         Environment environment) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.rateLimitFilter = rateLimitFilter;
+        this.responseCacheFilter = responseCacheFilter;
+        this.requestCoalescingFilter = requestCoalescingFilter;
+        this.environment = environment;
     }
 
     @Bean
@@ -20,10 +38,20 @@ public class GatewayConfig {
         return builder.routes()
 
                 // ── AUTH SERVICE (public — pas de JWT requis) ─────────────────
+                // /api/auth/refresh : quota à part, plus large. Avec des access tokens de 15 min,
+                // tous les clients derrière un même NAT opérateur rafraîchissent depuis la même IP ;
+                // un refresh exige un token signé, rien à y deviner (pas de bourrage possible)
+                .route(p -> p
+                        .path("/api/auth/refresh")
+                        .filters(f -> f.filter(quota("auth-refresh")))
+                        .uri("lb://AUTH-SERVICE"))
+
                 // /api/auth/login, /api/auth/register → auth-service:/api/auth/...
                 // Pas de stripPrefix car auth-service écoute sur /api/auth/**
+                // Quota par IP (pas de JWT) : limite le bourrage de mots de passe
                 .route(p -> p
                         .path("/api/auth/**")
+                        .filters(f -> f.filter(quota("auth")))
                         .uri("lb://AUTH-SERVICE"))
 
                 // ── USER SERVICE (protégé JWT) ─────────────────────────────────
@@ -31,25 +59,64 @@ public class GatewayConfig {
                 // /api/passes/** → user-service:/api/passes/**
                 .route(p -> p
                         .path("/api/users/**", "/api/passes/**")
-                        .filters(f -> f.filter(jwtAuthFilter.apply(new JwtAuthFilter.Config())))
+                        .filters(f -> f
+                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config()))
+                                .filter(quota("users")))
                         .uri("lb://USER-SERVICE"))
 
                 // ── TRIP SERVICE (protégé JWT) ─────────────────────────────────
+                // /api/trips/initiate : quota dédié, plus strict (débit de trajets)
+                .route(p -> p
+                        .path("/api/trips/initiate")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config()))
+                                .filter(quota("trips-initiate")))
+                        .uri("lb://TRIP-SERVICE"))
+
                 // /api/trips/** → trip-service:/trips/**
                 .route(p -> p
                         .path("/api/trips/**")
                         .filters(f -> f
                                 .stripPrefix(1)
-                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config())))
+                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config()))
+                                .filter(quota("trips")))
                         .uri("lb://TRIP-SERVICE"))
 
                 // ── PRICING SERVICE (protégé JWT) ──────────────────────────────
+                // Réseau (lignes, arrêts) et devis : servis depuis le cache de la gateway ;
+                // les miss simultanés sur la même URL ne font qu'un appel (single-flight)
+                .route(p -> p
+                        .method(HttpMethod.GET)
+                        .and()
+                        .path("/api/pricing/lignes/**")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config()))
+                                .filter(quota("pricing"))
+                                .filter(cache("pricing-lignes"))
+                                .filter(regroupement("pricing-lignes", false)))
+                        .uri("lb://PRICING-SERVICE"))
+
+                .route(p -> p
+                        .method(HttpMethod.GET)
+                        .and()
+                        .path("/api/pricing/tarif")
+                        .filters(f -> f
+                                .stripPrefix(1)
+                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config()))
+                                .filter(quota("pricing"))
+                                .filter(cache("pricing-tarif"))
+                                .filter(regroupement("pricing-tarif", false)))
+                        .uri("lb://PRICING-SERVICE"))
+
                 // /api/pricing/** → pricing-service:/pricing/**
                 .route(p -> p
                         .path("/api/pricing/**")
                         .filters(f -> f
                                 .stripPrefix(1)
-                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config())))
+                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config()))
+                                .filter(quota("pricing")))
                         .uri("lb://PRICING-SERVICE"))
 
                 // ── BILLING SERVICE (protégé JWT) ──────────────────────────────
@@ -57,7 +124,9 @@ public class GatewayConfig {
                 // Pas de stripPrefix car billing écoute sur /api/billing/**
                 .route(p -> p
                         .path("/api/billing/**")
-                        .filters(f -> f.filter(jwtAuthFilter.apply(new JwtAuthFilter.Config())))
+                        .filters(f -> f
+                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config()))
+                                .filter(quota("billing")))
                         .uri("lb://BILLING-SERVICE"))
 
                 // ── NOTIFICATION SERVICE (protégé JWT) ────────────────────────
@@ -66,9 +135,38 @@ public class GatewayConfig {
                         .path("/api/notifications/**")
                         .filters(f -> f
                                 .stripPrefix(1)
-                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config())))
+                                .filter(jwtAuthFilter.apply(new JwtAuthFilter.Config()))
+                                .filter(quota("notifications")))
                         .uri("lb://NOTIFICATION-SERVICE"))
 
                 .build();
     }
-}
\ No newline at end of file
+
+    // ── Quotas par route ──────────────────────────────────────────────────────
+    // gateway.rate-limit.<route>.per-second / .burst, sinon gateway.rate-limit.default.*
+    // Sur les routes protégées, le quota est placé APRÈS JwtAuthFilter : seau par utilisateur.
+    private GatewayFilter quota(String route) {
+        double parSeconde = environment.getProperty("gateway.rate-limit." + route + ".per-second", Double.class,
+                environment.getProperty("gateway.rate-limit.default.per-second", Double.class, 20.0));
+        int rafale = environment.getProperty("gateway.rate-limit." + route + ".burst", Integer.class,
+                environment.getProperty("gateway.rate-limit.default.burst", Integer.class, 40));
+        return rateLimitFilter.apply(new RateLimitFilter.Config(route, parSeconde, rafale));
+    }
+
+    // ── Cache de réponses par route ───────────────────────────────────────────
+    // gateway.response-cache.<route>.ttl-seconds, sinon gateway.response-cache.default.ttl-seconds
+    private GatewayFilter cache(String route) {
+        long ttl = environment.getProperty("gateway.response-cache." + route + ".ttl-seconds", Long.class,
+                environment.getProperty("gateway.response-cache.default.ttl-seconds", Long.class, 300L));
+        return responseCacheFilter.apply(new ResponseCacheFilter.Config(route, ttl));
+    }
+
+    // ── Regroupement des GET identiques (single-flight) ───────────────────────
+    // gateway.coalescing.<route>.enabled (true par défaut) ; parUtilisateur = réponse propre à X-User-Id
+    private GatewayFilter regroupement(String route, boolean parUtilisateur) {
+        if (!environment.getProperty("gateway.coalescing." + route + ".enabled", Boolean.class, true)) {
+            return (exchange, chain) -> chain.filter(exchange);
+        }
+        return requestCoalescingFilter.apply(new RequestCoalescingFilter.Config(route, parUtilisateur));
+    }
+}
@@ -0,0 +1,120 @@
+package com.smartmobility.apigateway.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GatewayResponseCache — réponses GET servies directement par la gateway.
+ *
+ * Borné en mémoire, pas en nombre d'entrées : la somme des corps stockés ne
+ * dépasse jamais gateway.response-cache.max-bytes, et un corps plus gros que
+ * gateway.response-cache.max-entry-bytes n'est pas mis en cache.
+ * Cache plein (après purge des entrées expirées) → la réponse n'est pas stockée,
+ * la requête suivante repasse simplement par le service.
+ */
+@Component
+public class GatewayResponseCache {
+
+    /** Réponse 200 mémorisée : corps brut, Content-Type et ETag calculé sur le corps. */
+    public record ReponseCachee(byte[] corps, String contentType, String etag, long expireLe) {
+
+        public long secondesRestantes() {
+            return Math.max(0, (expireLe - System.currentTimeMillis()) / 1000);
+        }
+    }
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<String, ReponseCachee> entrees = new ConcurrentHashMap<>();
+    private final AtomicLong octets = new AtomicLong();
+
+    @Value("${gateway.response-cache.max-bytes:33554432}")
+    private long maxOctets;
+
+    @Value("${gateway.response-cache.max-entry-bytes:1048576}")
+    private int maxOctetsParEntree;
+
+    public GatewayResponseCache(MeterRegistry meterRegistry) {
+        meterRegistry.gaugeMapSize("gateway.response.cache.size", Tags.empty(), entrees);
+        meterRegistry.gauge("gateway.response.cache.bytes", octets);
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    public ReponseCachee obtenir(String cle) {
+        ReponseCachee reponse = entrees.get(cle);
+        if (reponse == null) {
+            return null;
+        }
+        if (reponse.expireLe() <= System.currentTimeMillis()) {
+            retirer(cle, reponse);
+            return null;
+        }
+        return reponse;
+    }
+
+    // ── Écriture ──────────────────────────────────────────────────────────────
+
+    /** true si la taille annoncée (Content-Length) permet la mise en cache. */
+    public boolean accepte(long taille) {
+        return taille <= maxOctetsParEntree;
+    }
+
+    /** Taille maximale d'une entrée : borne de lecture d'un corps sans Content-Length. */
+    public int maxOctetsParEntree() {
+        return maxOctetsParEntree;
+    }
+
+    /** Mémorise un corps pour ttlSecondes ; retourne l'entrée (stockée ou non) pour poser l'ETag. */
+    public ReponseCachee mettre(String cle, byte[] corps, String contentType, long ttlSecondes) {
+        ReponseCachee reponse = new ReponseCachee(corps, contentType, etag(corps),
+                System.currentTimeMillis() + ttlSecondes * 1000);
+        if (corps.length > maxOctetsParEntree) {
+            return reponse;
+        }
+        if (octets.get() + corps.length > maxOctets) {
+            long maintenant = System.currentTimeMillis();
+            entrees.forEach((k, v) -> {
+                if (v.expireLe() <= maintenant) {
+                    retirer(k, v);
+                }
+            });
+            if (octets.get() + corps.length > maxOctets) {
+                return reponse; // budget mémoire atteint
+            }
+        }
+        ReponseCachee precedente = entrees.put(cle, reponse);
+        octets.addAndGet(corps.length - (precedente != null ? precedente.corps().length : 0));
+        return reponse;
+    }
+
+    private void retirer(String cle, ReponseCachee reponse) {
+        if (entrees.remove(cle, reponse)) {
+            octets.addAndGet(-reponse.corps().length);
+        }
+    }
+
+    // ETag fort : 128 premiers bits du SHA-256 du corps
+    private static String etag(byte[] corps) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        byte[] empreinte = Arrays.copyOf(digest.digest(corps), 16);
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(empreinte) + "\"";
+    }
+}
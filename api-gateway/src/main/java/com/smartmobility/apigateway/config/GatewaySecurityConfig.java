@@ -21,6 +21,8 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
  * Routes publiques (pas de JWT requis) :
  *   - POST /api/auth/login      → login
  *   - POST /api/auth/register   → inscription
+ *   - POST /api/auth/refresh    → nouvelle paire de tokens (refresh token dans le body)
+ *   - POST /api/auth/logout     → révocation des tokens
  *   - GET  /actuator/health     → health check
  *   - GET  /v3/api-docs/**      → Swagger
  *
@@ -44,6 +46,8 @@ public class GatewaySecurityConfig {
                         .pathMatchers(
                                 "/api/auth/login",
                                 "/api/auth/register",
+                                "/api/auth/refresh",
+                                "/api/auth/logout",
                                 "/actuator/health",
                                 "/v3/api-docs/**",
                                 "/swagger-ui/**"
@@ -0,0 +1,28 @@
+package com.smartmobility.apigateway.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+
+/**
+ * Transport gateway → services.
+ *
+ * Le pool de connexions (taille, keep-alive, durée de vie) se règle par les propriétés
+ * spring.cloud.gateway.server.webflux.httpclient.* ; ce fichier ajoute HTTP/2 en clair (h2c) :
+ * une connexion multiplexée par instance au lieu d'une connexion par requête en vol.
+ * HTTP/1.1 reste proposé : un service sans server.http2.enabled refuse l'upgrade
+ * et la connexion continue en HTTP/1.1.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    public HttpClientCustomizer h2cHttpClientCustomizer(
+            @Value("${gateway.transport.h2c.enabled:true}") boolean h2c) {
+        return httpClient -> h2c
+                ? httpClient.protocol(HttpProtocol.H2C, HttpProtocol.HTTP11)
+                : httpClient;
+    }
+}
@@ -0,0 +1,74 @@
+package com.smartmobility.apigateway.config;
+
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQConfig — la gateway écoute seulement les événements de révocation.
+ *
+ * Files anonymes (exclusives, supprimées à l'arrêt) : CHAQUE instance de gateway
+ * reçoit tous les événements et tient sa propre RevocationList en mémoire.
+ */
+@Configuration
+public class RabbitMQConfig {
+
+    @Value("${rabbitmq.exchange.name}")
+    private String exchangeName;
+
+    @Value("${rabbitmq.routing-key.user-changed:user.changed}")
+    private String userChangedRoutingKey;
+
+    @Value("${rabbitmq.routing-key.pass-suspended:pass.suspended}")
+    private String passSuspendedRoutingKey;
+
+    @Value("${rabbitmq.routing-key.token-revoked:auth.token.revoked}")
+    private String tokenRevokedRoutingKey;
+
+    @Bean
+    public TopicExchange smartMobilityExchange() {
+        return new TopicExchange(exchangeName, true, false);
+    }
+
+    @Bean
+    public Queue userChangedQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Queue passSuspendedRevocationQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Queue tokenRevokedQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding userChangedBinding() {
+        return BindingBuilder.bind(userChangedQueue()).to(smartMobilityExchange()).with(userChangedRoutingKey);
+    }
+
+    @Bean
+    public Binding passSuspendedRevocationBinding() {
+        return BindingBuilder.bind(passSuspendedRevocationQueue()).to(smartMobilityExchange()).with(passSuspendedRoutingKey);
+    }
+
+    @Bean
+    public Binding tokenRevokedBinding() {
+        return BindingBuilder.bind(tokenRevokedQueue()).to(smartMobilityExchange()).with(tokenRevokedRoutingKey);
+    }
+
+    @Bean
+    public MessageConverter messageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
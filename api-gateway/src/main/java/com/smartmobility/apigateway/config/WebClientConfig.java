@@ -0,0 +1,23 @@
+package com.smartmobility.apigateway.config;
+
+import org.springframework.cloud.client.loadbalancer.LoadBalanced;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+/**
+ * WebClient réactif pour les appels émis par la gateway elle-même
+ * (agrégation /api/me/dashboard) : URI lb://SERVICE résolues via Eureka.
+ * Il réutilise le HttpClient des routes (même pool, même h2c) plutôt qu'un pool à part.
+ */
+@Configuration
+public class WebClientConfig {
+
+    @Bean
+    @LoadBalanced
+    public WebClient.Builder loadBalancedWebClientBuilder(HttpClient gatewayHttpClient) {
+        return WebClient.builder().clientConnector(new ReactorClientHttpConnector(gatewayHttpClient));
+    }
+}
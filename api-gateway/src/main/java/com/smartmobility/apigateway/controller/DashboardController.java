@@ -0,0 +1,86 @@
+package com.smartmobility.apigateway.controller;
+
+import com.smartmobility.apigateway.filter.JwtAuthFilter;
+import com.smartmobility.apigateway.ratelimit.GcraRateLimiter;
+import com.smartmobility.apigateway.security.VerifiedTokenCache;
+import com.smartmobility.apigateway.service.DashboardAggregator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Route composite servie par la gateway elle-même (pas de service aval unique).
+ *
+ * GET /api/me/dashboard → dernier trajet + pass (solde) + notifications non lues,
+ * en un seul aller-retour mobile au lieu de trois.
+ * Les contrôleurs passent avant les routes de GatewayConfig : le token est donc
+ * vérifié ici, avec le même cache que JwtAuthFilter — et le quota appliqué ici
+ * aussi (gateway.rate-limit.dashboard.*, seau par utilisateur, mêmes headers
+ * que RateLimitFilter) : chaque appel coûte trois requêtes aval.
+ */
+@RestController
+public class DashboardController {
+
+    private static final String ROUTE = "dashboard";
+
+    private final JwtAuthFilter jwtAuthFilter;
+    private final DashboardAggregator dashboardAggregator;
+    private final GcraRateLimiter rateLimiter;
+    private final Counter refusees;
+
+    @Value("${gateway.rate-limit.dashboard.per-second:${gateway.rate-limit.default.per-second:20}}")
+    private double parSeconde;
+
+    @Value("${gateway.rate-limit.dashboard.burst:${gateway.rate-limit.default.burst:40}}")
+    private int rafale;
+
+    public DashboardController(JwtAuthFilter jwtAuthFilter, DashboardAggregator dashboardAggregator,
+                               GcraRateLimiter rateLimiter, MeterRegistry meterRegistry) {
+        this.jwtAuthFilter = jwtAuthFilter;
+        this.dashboardAggregator = dashboardAggregator;
+        this.rateLimiter = rateLimiter;
+        this.refusees = meterRegistry.counter("gateway.ratelimit.rejected", "route", ROUTE);
+    }
+
+    @GetMapping("/api/me/dashboard")
+    public Mono<ResponseEntity<Map<String, Object>>> dashboard(
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+
+        VerifiedTokenCache.IdentiteVerifiee identite = jwtAuthFilter.authentifier(authHeader);
+        if (identite == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", "Token invalide")));
+        }
+
+        // Même clé que RateLimitFilter (route + "u:" + subject vérifié)
+        GcraRateLimiter.Decision decision = rateLimiter.consommer(
+                ROUTE + ":u:" + identite.userId(), parSeconde, rafale);
+        HttpHeaders quota = new HttpHeaders();
+        quota.set("X-RateLimit-Limit", String.valueOf(rafale));
+        quota.set("X-RateLimit-Remaining", String.valueOf(decision.restants()));
+        if (!decision.autorisee()) {
+            refusees.increment();
+            quota.set(HttpHeaders.RETRY_AFTER, String.valueOf(decision.retryAfterSecondes()));
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).headers(quota)
+                    .body(Map.of("error", "Trop de requêtes, réessayez plus tard")));
+        }
+
+        return dashboardAggregator.agreger(identite).map(dashboard -> {
+            // Les trois branches en échec : rien d'utile à afficher
+            if (((List<?>) dashboard.get("indisponibles")).size() == 3) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).headers(quota).body(dashboard);
+            }
+            return ResponseEntity.ok().headers(quota).body(dashboard);
+        });
+    }
+}
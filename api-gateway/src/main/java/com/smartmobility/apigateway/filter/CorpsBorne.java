@@ -0,0 +1,82 @@
+package com.smartmobility.apigateway.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Lecture bornée d'un corps de réponse amont (cache de réponses, single-flight).
+ *
+ * Sans Content-Length (réponse chunked), la taille n'est connue qu'à la fin :
+ * on accumule au plus maxOctets. Au-delà, les morceaux déjà lus puis le reste
+ * du flux sont relayés tels quels au client — jamais tout le corps en mémoire.
+ */
+final class CorpsBorne {
+
+    private CorpsBorne() {
+    }
+
+    /**
+     * @param complet appelé avec le corps entier s'il tient dans maxOctets
+     * @param relais  appelé avec le flux d'origine (morceaux déjà lus inclus) sinon
+     */
+    static Mono<Void> lire(Publisher<? extends DataBuffer> body, int maxOctets,
+                           Function<byte[], Mono<Void>> complet,
+                           Function<Flux<DataBuffer>, Mono<Void>> relais) {
+        AtomicLong taille = new AtomicLong();
+        return Flux.<DataBuffer>from(body)
+                // Un seul morceau tant que la limite n'est pas franchie : le corps entier à la fin
+                .bufferUntil(buffer -> taille.addAndGet(buffer.readableByteCount()) > maxOctets)
+                .switchOnFirst((premier, morceaux) -> {
+                    if (premier.isOnError() || taille.get() <= maxOctets) {
+                        // Corps complet (ou vide) : le premier morceau est tout le corps
+                        List<DataBuffer> tout = premier.hasValue() ? premier.get() : List.of();
+                        return morceaux.then(Mono.defer(() -> complet.apply(concatener(tout))));
+                    }
+                    return relais.apply(morceaux.flatMapIterable(Function.identity()));
+                })
+                .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                .then();
+    }
+
+    /** Cache-Control no-store / private ou Set-Cookie : réponse propre à un client, jamais partagée. */
+    static boolean estPrivee(HttpHeaders headers) {
+        if (headers.containsKey(HttpHeaders.SET_COOKIE)) {
+            return true;
+        }
+        for (String valeur : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            for (String directive : StringUtils.commaDelimitedListToStringArray(valeur)) {
+                String d = directive.trim().toLowerCase(Locale.ROOT);
+                if (d.equals("no-store") || d.equals("private") || d.startsWith("private=")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static byte[] concatener(List<DataBuffer> buffers) {
+        int total = 0;
+        for (DataBuffer buffer : buffers) {
+            total += buffer.readableByteCount();
+        }
+        byte[] corps = new byte[total];
+        int position = 0;
+        for (DataBuffer buffer : buffers) {
+            int n = buffer.readableByteCount();
+            buffer.read(corps, position, n);
+            position += n;
+            DataBufferUtils.release(buffer);
+        }
+        return corps;
+    }
+}
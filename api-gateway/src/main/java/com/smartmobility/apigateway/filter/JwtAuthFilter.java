@@ -2,6 +2,8 @@ package com.smartmobility.apigateway.filter;
 
 
 import com.smartmobility.apigateway.security.JwtUtil;
+import com.smartmobility.apigateway.security.RevocationList;
+import com.smartmobility.apigateway.security.VerifiedTokenCache;
 import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,7 +24,8 @@ import reactor.core.publisher.Mono;
  * Fonctionnement :
  *  1. Intercepte chaque requête entrante
  *  2. Extrait le token Bearer du header Authorization
- *  3. Valide la signature et l'expiration
+ *  3. Valide la signature et l'expiration (ou réutilise un token déjà vérifié),
+ *     puis refuse les tokens révoqués (RevocationList, en mémoire)
  *  4. Injecte les infos utilisateur dans les headers → propagés aux microservices
  *  5. Bloque avec 401 si le token est absent/invalide
  *
@@ -31,17 +34,27 @@ import reactor.core.publisher.Mono;
  *  - X-User-Email → Email
  *  - X-User-Role  → Rôle (USER / MANAGER / ADMIN)
  *
+ * L'identité vérifiée est aussi posée en attribut d'échange (ATTR_USER_ID) :
+ * les filtres suivants de la gateway la lisent là, jamais dans un header
+ * qu'un client peut envoyer lui-même sur une route publique.
  */
 @Component
 public class JwtAuthFilter extends AbstractGatewayFilterFactory<JwtAuthFilter.Config> {
 
     private static final Logger log = LoggerFactory.getLogger(JwtAuthFilter.class);
 
+    /** userId vérifié (subject du token), absent si la route n'est pas authentifiée. */
+    public static final String ATTR_USER_ID = JwtAuthFilter.class.getName() + ".userId";
+
     private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache tokenCache;
+    private final RevocationList revocationList;
 
-    public JwtAuthFilter(JwtUtil jwtUtil) {
+    public JwtAuthFilter(JwtUtil jwtUtil, VerifiedTokenCache tokenCache, RevocationList revocationList) {
         super(Config.class);
         this.jwtUtil = jwtUtil;
+        this.tokenCache = tokenCache;
+        this.revocationList = revocationList;
     }
 
     @Override
@@ -61,36 +74,59 @@ public class JwtAuthFilter extends AbstractGatewayFilterFactory<JwtAuthFilter.Co
                 return onError(exchange, HttpStatus.UNAUTHORIZED, "Token manquant");
             }
 
-            String token = authHeader.substring(7); // Enlève "Bearer "
-
-            // ── 2. Valider le token ────────────────────────────────────────
-            if (!jwtUtil.validateToken(token)) {
-                log.warn("Token invalide ou expiré pour : {}", path);
+            // ── 2. Token déjà vérifié ? sinon vérification complète (un seul parsing)
+            VerifiedTokenCache.IdentiteVerifiee identite = authentifier(authHeader);
+            if (identite == null) {
+                log.warn("Token invalide, expiré ou révoqué pour : {}", path);
                 return onError(exchange, HttpStatus.UNAUTHORIZED, "Token invalide");
             }
 
-            // ── 3. Extraire les claims ─────────────────────────────────────
-            Claims claims  = jwtUtil.extractAllClaims(token);
-            String userId  = claims.getSubject();
-            String email   = claims.get("email", String.class);
-            String role    = claims.get("role", String.class);
-
-            log.debug("Token valide → userId={}, role={}", userId, role);
+            log.debug("Token valide → userId={}, role={}", identite.userId(), identite.role());
+            exchange.getAttributes().put(ATTR_USER_ID, identite.userId());
 
-            // ── 4. Injecter les infos dans les headers de la requête ───────
+            // ── 3. Injecter les infos dans les headers de la requête ───────
             //    Les microservices en aval lisent ces headers directement,
             //    sans avoir besoin de Spring Security ni de la clé JWT.
             ServerHttpRequest mutatedRequest = request.mutate()
-                    .header("X-User-Id",    userId)
-                    .header("X-User-Email", email != null ? email : "")
-                    .header("X-User-Role",  role  != null ? role  : "")
+                    .header("X-User-Id",    identite.userId())
+                    .header("X-User-Email", identite.email())
+                    .header("X-User-Role",  identite.role())
                     .build();
 
-            // ── 5. Continuer la chaîne avec la requête enrichie ───────────
+            // ── 4. Continuer la chaîne avec la requête enrichie ───────────
             return chain.filter(exchange.mutate().request(mutatedRequest).build());
         };
     }
 
+    // ── Authentification ──────────────────────────────────────────────────────
+
+    /**
+     * Identité portée par un header "Bearer ..." : cache des tokens vérifiés,
+     * sinon vérification complète puis mise en cache jusqu'à exp.
+     * La révocation est contrôlée à chaque appel, y compris sur un token en cache.
+     * @return null si le header est absent, mal formé, le token invalide ou révoqué
+     */
+    public VerifiedTokenCache.IdentiteVerifiee authentifier(String authHeader) {
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return null;
+        }
+        String token = authHeader.substring(7); // Enlève "Bearer "
+        VerifiedTokenCache.IdentiteVerifiee identite = tokenCache.obtenir(token);
+        if (identite == null) {
+            Claims claims = jwtUtil.verifier(token);
+            // Un refresh token ne sert qu'à POST /api/auth/refresh, jamais comme access token
+            if (claims == null || JwtUtil.TYPE_REFRESH.equals(claims.get(JwtUtil.CLAIM_TYPE, String.class))) {
+                return null;
+            }
+            identite = tokenCache.mettre(token, claims);
+        }
+        if (revocationList.estRevoque(identite.userId(), identite.jti(), identite.emisLe())) {
+            log.debug("Token révoqué → userId={}, jti={}", identite.userId(), identite.jti());
+            return null;
+        }
+        return identite;
+    }
+
     // ── Réponse d'erreur ──────────────────────────────────────────────────────
     private Mono<Void> onError(ServerWebExchange exchange, HttpStatus status, String message) {
         ServerHttpResponse response = exchange.getResponse();
@@ -0,0 +1,119 @@
+package com.smartmobility.apigateway.filter;
+
+import com.smartmobility.apigateway.ratelimit.GcraRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Filtre de limitation de débit de l'API Gateway.
+ *
+ * Clé du seau : nom de la route + client, où le client est
+ *  - le subject JWT vérifié (attribut JwtAuthFilter.ATTR_USER_ID, filtre placé AVANT celui-ci) ;
+ *  - à défaut l'adresse IP distante (routes publiques : login, register, refresh).
+ * Ni X-User-Id ni X-Forwarded-For ne sont lus ici : un client pourrait les envoyer
+ * lui-même (route publique) pour changer de seau à chaque requête.
+ * Derrière un ingress / load balancer de confiance, server.forward-headers-strategy=native
+ * (api-gateway.forward-headers-strategy) fait de l'adresse distante celle du client :
+ * l'ingress doit alors ÉCRASER X-Forwarded-For, pas le compléter. Sans proxy devant
+ * la gateway, laisser none (valeur par défaut).
+ *
+ * Headers renvoyés :
+ *  - X-RateLimit-Limit / X-RateLimit-Remaining sur chaque réponse ;
+ *  - 429 + Retry-After (secondes) quand le quota est dépassé.
+ */
+@Component
+public class RateLimitFilter extends AbstractGatewayFilterFactory<RateLimitFilter.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private static final byte[] CORPS_429 =
+            "{\"error\":\"Trop de requêtes, réessayez plus tard\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final GcraRateLimiter rateLimiter;
+    private final MeterRegistry meterRegistry;
+
+    public RateLimitFilter(GcraRateLimiter rateLimiter, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.rateLimiter = rateLimiter;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String limite = String.valueOf(config.getRafale());
+        return (exchange, chain) -> {
+
+            // ── 1. Identifier le client ────────────────────────────────────
+            String client = identifierClient(exchange);
+            GcraRateLimiter.Decision decision = rateLimiter.consommer(
+                    config.getRoute() + ':' + client, config.getParSeconde(), config.getRafale());
+
+            HttpHeaders headers = exchange.getResponse().getHeaders();
+            headers.set("X-RateLimit-Limit", limite);
+            headers.set("X-RateLimit-Remaining", String.valueOf(decision.restants()));
+
+            // ── 2. Quota disponible → on continue ──────────────────────────
+            if (decision.autorisee()) {
+                return chain.filter(exchange);
+            }
+
+            // ── 3. Quota dépassé → 429 sans appeler le service ─────────────
+            long retryAfter = decision.retryAfterSecondes();
+            log.debug("Quota dépassé route={} client={} (retry dans {} s)", config.getRoute(), client, retryAfter);
+            meterRegistry.counter("gateway.ratelimit.rejected", "route", config.getRoute()).increment();
+
+            ServerHttpResponse response = exchange.getResponse();
+            response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+            headers.set(HttpHeaders.CONTENT_TYPE, "application/json");
+            return response.writeWith(Mono.just(response.bufferFactory().wrap(CORPS_429)));
+        };
+    }
+
+    private static String identifierClient(ServerWebExchange exchange) {
+        String userId = exchange.getAttribute(JwtAuthFilter.ATTR_USER_ID);
+        if (userId != null && !userId.isEmpty()) {
+            return "u:" + userId;
+        }
+        InetSocketAddress adresse = exchange.getRequest().getRemoteAddress();
+        if (adresse != null && adresse.getAddress() != null) {
+            return "ip:" + adresse.getAddress().getHostAddress();
+        }
+        return "ip:inconnue";
+    }
+
+    // ── Quota d'une route ─────────────────────────────────────────────────────
+    public static class Config {
+        private String route;
+        private double parSeconde;
+        private int rafale;
+
+        public Config() {
+        }
+
+        public Config(String route, double parSeconde, int rafale) {
+            this.route = route;
+            this.parSeconde = parSeconde;
+            this.rafale = rafale;
+        }
+
+        public String getRoute() { return route; }
+        public void setRoute(String route) { this.route = route; }
+        public double getParSeconde() { return parSeconde; }
+        public void setParSeconde(double parSeconde) { this.parSeconde = parSeconde; }
+        public int getRafale() { return rafale; }
+        public void setRafale(int rafale) { this.rafale = rafale; }
+    }
+}
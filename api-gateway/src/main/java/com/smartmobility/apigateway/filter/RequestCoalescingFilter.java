@@ -0,0 +1,209 @@
+package com.smartmobility.apigateway.filter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Filtre de regroupement (single-flight) des GET identiques en cours.
+ *
+ * Aux heures de pointe, les usagers d'une même ligne demandent la même liste
+ * d'arrêts ou le même devis à quelques millisecondes d'intervalle. Le premier
+ * GET (le "meneur") part vers le service ; les GET identiques arrivés pendant
+ * son vol attendent sa réponse et en reçoivent une copie : un seul appel amont.
+ *
+ * Requêtes identiques = même route, même chemin + query, mêmes headers Accept*
+ * (et même X-User-Id si la route est configurée "par utilisateur").
+ * Si le meneur n'obtient pas de corps partageable (erreur, corps trop gros,
+ * réponse privée : Cache-Control no-store / private, Set-Cookie),
+ * chaque suiveur refait son propre appel.
+ *
+ * Métriques : gateway.coalescing.requests{route, role=leader|follower}
+ * et gateway.coalescing.ratio{route} = part des requêtes servies sans appel amont.
+ */
+@Component
+public class RequestCoalescingFilter extends AbstractGatewayFilterFactory<RequestCoalescingFilter.Config> {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestCoalescingFilter.class);
+
+    // Propres à la connexion ou au client : jamais recopiés vers les suiveurs
+    private static final Set<String> HEADERS_NON_PARTAGES = Set.of(
+            "transfer-encoding", "connection", "keep-alive", "set-cookie",
+            "x-ratelimit-limit", "x-ratelimit-remaining", "retry-after");
+
+    private record ReponsePartagee(HttpStatusCode statut, HttpHeaders headers, byte[] corps) {}
+
+    private record Compteurs(AtomicLong meneurs, AtomicLong suiveurs) {}
+
+    private final Map<String, Sinks.One<ReponsePartagee>> enVol = new ConcurrentHashMap<>();
+    private final Map<String, Compteurs> compteursParRoute = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${gateway.coalescing.max-body-bytes:1048576}")
+    private int maxOctets;
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        Compteurs compteurs = compteurs(config.getRoute());
+        return (exchange, chain) -> {
+
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            // ── 1. Un appel identique est-il déjà en vol ? ─────────────────
+            String cle = cle(config, request);
+            Sinks.One<ReponsePartagee> vol = Sinks.one();
+            Sinks.One<ReponsePartagee> existant = enVol.putIfAbsent(cle, vol);
+
+            if (existant != null) {
+                // ── 2a. Suiveur : attendre la réponse du meneur ────────────
+                compteurs.suiveurs().incrementAndGet();
+                meterRegistry.counter("gateway.coalescing.requests",
+                        "route", config.getRoute(), "role", "follower").increment();
+                return existant.asMono()
+                        .flatMap(reponse -> ecrire(exchange, reponse))
+                        .switchIfEmpty(Mono.defer(() -> chain.filter(exchange)));
+            }
+
+            // ── 2b. Meneur : appel amont, réponse capturée et partagée ─────
+            compteurs.meneurs().incrementAndGet();
+            meterRegistry.counter("gateway.coalescing.requests",
+                    "route", config.getRoute(), "role", "leader").increment();
+
+            ServerHttpResponseDecorator capture = new ServerHttpResponseDecorator(exchange.getResponse()) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    long annoncee = getHeaders().getContentLength();
+                    if (annoncee > maxOctets || CorpsBorne.estPrivee(getHeaders())) {
+                        terminer(cle, vol, null);
+                        return super.writeWith(body);
+                    }
+                    // Sans Content-Length : lu au plus max-body-bytes ; au-delà, relayé et non partagé
+                    return CorpsBorne.lire(body, maxOctets, corps -> {
+                        terminer(cle, vol, new ReponsePartagee(getStatusCode(), copier(getHeaders()), corps));
+                        return super.writeWith(Mono.just(bufferFactory().wrap(corps)));
+                    }, flux -> {
+                        terminer(cle, vol, null);
+                        return super.writeWith(flux);
+                    });
+                }
+            };
+
+            // Quoi qu'il arrive au meneur (erreur, annulation), les suiveurs sont libérés
+            return chain.filter(exchange.mutate().response(capture).build())
+                    .doFinally(signal -> terminer(cle, vol, null));
+        };
+    }
+
+    // ── Partage de la réponse ─────────────────────────────────────────────────
+
+    // Retire le vol AVANT d'émettre : une requête arrivant après part sur un nouvel appel
+    private void terminer(String cle, Sinks.One<ReponsePartagee> vol, ReponsePartagee reponse) {
+        enVol.remove(cle, vol);
+        Sinks.EmitResult resultat = reponse != null ? vol.tryEmitValue(reponse) : vol.tryEmitEmpty();
+        if (resultat.isFailure() && resultat != Sinks.EmitResult.FAIL_TERMINATED) {
+            log.debug("Émission single-flight impossible pour {} : {}", cle, resultat);
+        }
+    }
+
+    private static Mono<Void> ecrire(ServerWebExchange exchange, ReponsePartagee reponse) {
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(reponse.statut());
+        response.getHeaders().putAll(reponse.headers());
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(reponse.corps())));
+    }
+
+    private static HttpHeaders copier(HttpHeaders source) {
+        HttpHeaders copie = new HttpHeaders();
+        source.forEach((nom, valeurs) -> {
+            if (!HEADERS_NON_PARTAGES.contains(nom.toLowerCase(Locale.ROOT))) {
+                copie.addAll(nom, valeurs);
+            }
+        });
+        return copie;
+    }
+
+    private static String cle(Config config, ServerHttpRequest request) {
+        HttpHeaders headers = request.getHeaders();
+        String query = request.getURI().getRawQuery();
+        StringBuilder cle = new StringBuilder(128)
+                .append(config.getRoute()).append(':')
+                .append(request.getURI().getRawPath());
+        if (query != null) {
+            cle.append('?').append(query);
+        }
+        cle.append('|').append(headers.getFirst(HttpHeaders.ACCEPT))
+           .append('|').append(headers.getFirst(HttpHeaders.ACCEPT_ENCODING))
+           .append('|').append(headers.getFirst(HttpHeaders.ACCEPT_LANGUAGE));
+        if (config.isParUtilisateur()) {
+            cle.append('|').append(headers.getFirst("X-User-Id"));
+        }
+        return cle.toString();
+    }
+
+    // ── Métriques ─────────────────────────────────────────────────────────────
+
+    private Compteurs compteurs(String route) {
+        return compteursParRoute.computeIfAbsent(route, r -> {
+            Compteurs c = new Compteurs(new AtomicLong(), new AtomicLong());
+            meterRegistry.gauge("gateway.coalescing.ratio",
+                    Tags.of("route", r), c, RequestCoalescingFilter::ratio);
+            return c;
+        });
+    }
+
+    private static double ratio(Compteurs c) {
+        long suiveurs = c.suiveurs().get();
+        long total = c.meneurs().get() + suiveurs;
+        return total == 0 ? 0.0 : (double) suiveurs / total;
+    }
+
+    // ── Regroupement d'une route ──────────────────────────────────────────────
+    public static class Config {
+        private String route;
+        // true si la réponse dépend de l'utilisateur : X-User-Id entre dans la clé
+        private boolean parUtilisateur;
+
+        public Config() {
+        }
+
+        public Config(String route, boolean parUtilisateur) {
+            this.route = route;
+            this.parUtilisateur = parUtilisateur;
+        }
+
+        public String getRoute() { return route; }
+        public void setRoute(String route) { this.route = route; }
+        public boolean isParUtilisateur() { return parUtilisateur; }
+        public void setParUtilisateur(boolean parUtilisateur) { this.parUtilisateur = parUtilisateur; }
+    }
+}
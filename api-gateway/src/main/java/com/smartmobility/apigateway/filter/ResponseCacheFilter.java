@@ -0,0 +1,139 @@
+package com.smartmobility.apigateway.filter;
+
+import com.smartmobility.apigateway.cache.GatewayResponseCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+/**
+ * Filtre de cache de réponses pour les routes en lecture quasi statique
+ * (lignes, arrêts, tarifs : inchangés entre deux déploiements du pricing-service).
+ *
+ * Fonctionnement (GET uniquement) :
+ *  1. Clé = route + chemin + query string
+ *  2. Entrée valide → réponse servie par la gateway (X-Cache: HIT),
+ *     ou 304 Not Modified si If-None-Match correspond à l'ETag
+ *  3. Sinon → appel du service ; une réponse 200 est mémorisée pour le TTL
+ *     de la route et renvoyée avec son ETag (X-Cache: MISS), sauf si le service
+ *     la déclare propre au client (Cache-Control no-store / private, Set-Cookie)
+ *     ou si elle dépasse gateway.response-cache.max-entry-bytes
+ *
+ * Placé APRÈS JwtAuthFilter : le cache ne contourne jamais l'authentification.
+ */
+@Component
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    private final GatewayResponseCache cache;
+    private final MeterRegistry meterRegistry;
+
+    public ResponseCacheFilter(GatewayResponseCache cache, MeterRegistry meterRegistry) {
+        super(Config.class);
+        this.cache = cache;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+
+            // ── 1. Clé de cache ────────────────────────────────────────────
+            String query = request.getURI().getRawQuery();
+            String cle = config.getRoute() + ':' + request.getURI().getRawPath()
+                    + (query != null ? '?' + query : "");
+
+            // ── 2. Réponse en cache ────────────────────────────────────────
+            GatewayResponseCache.ReponseCachee enCache = cache.obtenir(cle);
+            if (enCache != null) {
+                compter(config, "hit");
+                return servir(exchange, enCache);
+            }
+
+            // ── 3. Appel du service et capture du corps ───────────────────
+            compter(config, "miss");
+            ServerHttpResponse original = exchange.getResponse();
+            ServerHttpResponseDecorator capture = new ServerHttpResponseDecorator(original) {
+                @Override
+                public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+                    long annoncee = getHeaders().getContentLength();
+                    boolean cacheable = getStatusCode() != null && getStatusCode().value() == 200
+                            && !CorpsBorne.estPrivee(getHeaders())
+                            && (annoncee < 0 || cache.accepte(annoncee));
+                    if (!cacheable) {
+                        return super.writeWith(body);
+                    }
+                    // Sans Content-Length : lu au plus max-entry-bytes, relayé tel quel au-delà
+                    return CorpsBorne.lire(body, cache.maxOctetsParEntree(), corps -> {
+                        GatewayResponseCache.ReponseCachee reponse = cache.mettre(cle, corps,
+                                getHeaders().getFirst(HttpHeaders.CONTENT_TYPE), config.getTtlSecondes());
+                        getHeaders().setETag(reponse.etag());
+                        getHeaders().setCacheControl("max-age=" + config.getTtlSecondes());
+                        getHeaders().set("X-Cache", "MISS");
+                        return super.writeWith(Mono.just(bufferFactory().wrap(corps)));
+                    }, super::writeWith);
+                }
+            };
+            return chain.filter(exchange.mutate().response(capture).build());
+        };
+    }
+
+    private Mono<Void> servir(ServerWebExchange exchange, GatewayResponseCache.ReponseCachee reponse) {
+        ServerHttpResponse response = exchange.getResponse();
+        HttpHeaders headers = response.getHeaders();
+        headers.setETag(reponse.etag());
+        headers.setCacheControl("max-age=" + reponse.secondesRestantes());
+        headers.set("X-Cache", "HIT");
+
+        String ifNoneMatch = exchange.getRequest().getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null && (ifNoneMatch.contains(reponse.etag()) || ifNoneMatch.trim().equals("*"))) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            return response.setComplete();
+        }
+
+        response.setStatusCode(HttpStatus.OK);
+        if (reponse.contentType() != null) {
+            headers.set(HttpHeaders.CONTENT_TYPE, reponse.contentType());
+        }
+        headers.setContentLength(reponse.corps().length);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(reponse.corps())));
+    }
+
+    private void compter(Config config, String resultat) {
+        meterRegistry.counter("gateway.response.cache.requests",
+                "route", config.getRoute(), "result", resultat).increment();
+    }
+
+    // ── Cache d'une route ─────────────────────────────────────────────────────
+    public static class Config {
+        private String route;
+        private long ttlSecondes;
+
+        public Config() {
+        }
+
+        public Config(String route, long ttlSecondes) {
+            this.route = route;
+            this.ttlSecondes = ttlSecondes;
+        }
+
+        public String getRoute() { return route; }
+        public void setRoute(String route) { this.route = route; }
+        public long getTtlSecondes() { return ttlSecondes; }
+        public void setTtlSecondes(long ttlSecondes) { this.ttlSecondes = ttlSecondes; }
+    }
+}
@@ -0,0 +1,14 @@
+package com.smartmobility.apigateway.messaging;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Miroir (partiel) de PassSuspendedEvent publié par le user-service.
+ */
+public record PassSuspendedEvent(
+        UUID userId,
+        UUID passId,
+        String passNumber,
+        LocalDateTime suspendedAt
+) {}
@@ -0,0 +1,60 @@
+package com.smartmobility.apigateway.messaging;
+
+import com.smartmobility.apigateway.security.RevocationList;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Alimente la RevocationList locale de CETTE instance de gateway.
+ *
+ *  - USER_CHANGED (SUPPRIME) et PASS_SUSPENDED : tous les tokens déjà émis pour
+ *    l'utilisateur sont refusés. L'entrée vit gateway.revocation.user-ttl-seconds,
+ *    soit la durée de vie d'un access token : au-delà, plus aucun token concerné.
+ *  - TOKEN_REVOKED : un token précis (jti), jusqu'à son exp.
+ */
+@Component
+public class RevocationListener {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationListener.class);
+
+    private final RevocationList revocationList;
+
+    @Value("${gateway.revocation.user-ttl-seconds:900}")
+    private long ttlUtilisateurSecondes;
+
+    public RevocationListener(RevocationList revocationList) {
+        this.revocationList = revocationList;
+    }
+
+    @RabbitListener(queues = "#{userChangedQueue.name}")
+    public void onUserChanged(UserChangedEvent event) {
+        if ("SUPPRIME".equals(event.type()) && event.userId() != null) {
+            log.info("[RabbitMQ] Compte supprimé → tokens révoqués - userId={}", event.userId());
+            revoquerUtilisateur(event.userId().toString());
+        }
+    }
+
+    @RabbitListener(queues = "#{passSuspendedRevocationQueue.name}")
+    public void onPassSuspended(PassSuspendedEvent event) {
+        if (event.userId() != null) {
+            log.info("[RabbitMQ] Pass suspendu → tokens révoqués - userId={}", event.userId());
+            revoquerUtilisateur(event.userId().toString());
+        }
+    }
+
+    @RabbitListener(queues = "#{tokenRevokedQueue.name}")
+    public void onTokenRevoked(TokenRevokedEvent event) {
+        if (event.jti() != null) {
+            log.debug("[RabbitMQ] TOKEN_REVOKED - jti={}, userId={}", event.jti(), event.userId());
+            revocationList.revoquerToken(event.jti(), event.expireLe());
+        }
+    }
+
+    private void revoquerUtilisateur(String userId) {
+        long maintenant = System.currentTimeMillis();
+        revocationList.revoquerUtilisateur(userId, maintenant, maintenant + ttlUtilisateurSecondes * 1000);
+    }
+}
@@ -0,0 +1,10 @@
+package com.smartmobility.apigateway.messaging;
+
+/**
+ * Miroir de TokenRevokedEvent publié par l'auth-service (déconnexion).
+ */
+public record TokenRevokedEvent(
+        String jti,
+        String userId,
+        long expireLe       // exp du token révoqué (epoch ms) : au-delà, l'entrée est inutile
+) {}
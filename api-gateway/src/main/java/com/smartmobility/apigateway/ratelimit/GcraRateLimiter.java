@@ -0,0 +1,102 @@
+package com.smartmobility.apigateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * GcraRateLimiter — token bucket sans verrou (algorithme GCRA).
+ *
+ * Un seau = un seul AtomicLong : l'instant théorique d'arrivée (TAT) de la
+ * prochaine requête. Accepter une requête = avancer le TAT d'un intervalle
+ * (1 s / débit) par compareAndSet ; refuser si le TAT dépasse "maintenant"
+ * de plus que la rafale autorisée. Équivalent à un token bucket de capacité
+ * "rafale" rechargé à "débit" jetons par seconde, sans thread de recharge
+ * ni synchronized : compatible avec l'event loop Netty.
+ *
+ * Un seau dont le TAT est passé est plein : il peut être supprimé sans perte
+ * d'information. C'est ce qui borne la mémoire (gateway.rate-limit.max-buckets) :
+ * table pleine → purge des seaux pleins, au plus une fois par
+ * gateway.rate-limit.purge-interval-ms (jamais un parcours par nouvelle clé) ;
+ * toujours pleine → la nouvelle clé est refusée (429), les seaux existants continuent.
+ */
+@Component
+public class GcraRateLimiter {
+
+    /** Décision pour une requête : remaining et retryAfterNanos servent aux headers 429. */
+    public record Decision(boolean autorisee, long restants, long retryAfterNanos) {
+
+        /** Valeur du header Retry-After : secondes entières, arrondies au-dessus, au moins 1. */
+        public long retryAfterSecondes() {
+            return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(retryAfterNanos + 999_999_999L));
+        }
+    }
+
+    private final Map<String, AtomicLong> seaux = new ConcurrentHashMap<>();
+    private final AtomicLong prochainePurge = new AtomicLong(System.nanoTime());
+    private final Counter cleRefusees;
+
+    private final int maxSeaux;
+    private final long intervallePurgeNanos;
+
+    public GcraRateLimiter(MeterRegistry meterRegistry,
+                           @Value("${gateway.rate-limit.max-buckets:100000}") int maxSeaux,
+                           @Value("${gateway.rate-limit.purge-interval-ms:1000}") long intervallePurgeMs) {
+        this.maxSeaux = maxSeaux;
+        this.intervallePurgeNanos = intervallePurgeMs * 1_000_000L;
+        this.cleRefusees = meterRegistry.counter("gateway.ratelimit.buckets.rejected");
+        meterRegistry.gaugeMapSize("gateway.ratelimit.buckets", Tags.empty(), seaux);
+    }
+
+    /**
+     * @param cle        route + identité du client
+     * @param parSeconde débit soutenu autorisé
+     * @param rafale     nombre de requêtes acceptées d'un coup, seau plein
+     */
+    public Decision consommer(String cle, double parSeconde, int rafale) {
+        long intervalle = (long) (1_000_000_000L / parSeconde);
+        long tolerance = intervalle * rafale;
+        long maintenant = System.nanoTime();
+
+        AtomicLong tat = seaux.get(cle);
+        if (tat == null) {
+            if (seaux.size() >= maxSeaux && !purger(maintenant)) {
+                cleRefusees.increment();
+                return new Decision(false, 0, Math.max(intervallePurgeNanos, prochainePurge.get() - maintenant));
+            }
+            tat = seaux.computeIfAbsent(cle, k -> new AtomicLong(maintenant));
+        }
+
+        while (true) {
+            long actuel = tat.get();
+            long nouveau = Math.max(actuel, maintenant) + intervalle;
+            long avance = nouveau - maintenant;
+            if (avance > tolerance) {
+                return new Decision(false, 0, avance - tolerance);
+            }
+            if (tat.compareAndSet(actuel, nouveau)) {
+                return new Decision(true, (tolerance - avance) / intervalle, 0);
+            }
+            // CAS perdu : une requête concurrente a consommé, on recalcule
+        }
+    }
+
+    /**
+     * Seaux pleins (TAT passé) = état initial : les retirer ne change aucune décision.
+     * Un seul thread purge par intervalle ; @return true s'il reste de la place.
+     */
+    private boolean purger(long maintenant) {
+        long prevue = prochainePurge.get();
+        if (maintenant - prevue >= 0 && prochainePurge.compareAndSet(prevue, maintenant + intervallePurgeNanos)) {
+            seaux.values().removeIf(t -> t.get() <= maintenant);
+        }
+        return seaux.size() < maxSeaux;
+    }
+}
@@ -0,0 +1,176 @@
+package com.smartmobility.apigateway.security;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.math.BigInteger;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.RSAPublicKeySpec;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * JwksCache — clés publiques de l'auth-service, par kid.
+ *
+ * La gateway ne détient plus aucun secret : elle vérifie les signatures RS256
+ * avec les clés publiées sur GET /.well-known/jwks.json (auth-service).
+ *  - rechargement en arrière-plan toutes les gateway.jwks.refresh-seconds ;
+ *    en cas d'échec, les dernières clés connues restent en service
+ *    et on réessaie toutes les gateway.jwks.retry-seconds ;
+ *  - par requête : une lecture de map (header kid), aucun appel réseau ;
+ *  - kid inconnu : token refusé, rechargement anticipé déclenché
+ *    (au plus un toutes les gateway.jwks.min-refresh-seconds).
+ * L'auth-service publie une nouvelle clé avant de signer avec :
+ * une rotation ne refuse donc aucun token valide.
+ */
+@Component
+public class JwksCache extends LocatorAdapter<Key> {
+
+    private static final Logger log = LoggerFactory.getLogger(JwksCache.class);
+
+    // Miroir du document JWKS (RFC 7517) : seuls les champs RSA utiles
+    record Jwk(String kty, String kid, String use, String n, String e) {}
+    record JwkSet(List<Jwk> keys) {}
+
+    private final WebClient webClient;
+    private final Counter succes;
+    private final Counter echecs;
+    private final Counter kidInconnus;
+
+    // Remplacée en bloc à chaque rechargement : lecture sans verrou
+    private volatile Map<String, PublicKey> cles = Map.of();
+    private final AtomicLong dernierRechargementAnticipe = new AtomicLong();
+    private volatile Disposable prochain;
+
+    @Value("${gateway.jwks.uri:lb://AUTH-SERVICE/.well-known/jwks.json}")
+    private String uri;
+
+    @Value("${gateway.jwks.refresh-seconds:300}")
+    private long rafraichissementSecondes;
+
+    @Value("${gateway.jwks.retry-seconds:5}")
+    private long nouvelEssaiSecondes;
+
+    @Value("${gateway.jwks.min-refresh-seconds:30}")
+    private long intervalleMinSecondes;
+
+    @Value("${gateway.jwks.timeout-ms:2000}")
+    private long timeoutMs;
+
+    public JwksCache(WebClient.Builder loadBalancedWebClientBuilder, MeterRegistry meterRegistry) {
+        this.webClient = loadBalancedWebClientBuilder.build();
+        this.succes = meterRegistry.counter("gateway.jwks.refresh", "result", "success");
+        this.echecs = meterRegistry.counter("gateway.jwks.refresh", "result", "failure");
+        this.kidInconnus = meterRegistry.counter("gateway.jwks.unknown-kid");
+        meterRegistry.gauge("gateway.jwks.keys", this, c -> c.cles.size());
+    }
+
+    // ── Recherche par kid (appelée par le JwtParser) ──────────────────────────
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        String kid = header.getKeyId();
+        Key cle = kid != null ? cles.get(kid) : null;
+        if (cle == null) {
+            kidInconnus.increment();
+            rechargerBientot();
+        }
+        return cle; // null → jjwt refuse le token
+    }
+
+    // ── Rechargement en arrière-plan ──────────────────────────────────────────
+
+    @PostConstruct
+    void demarrer() {
+        planifier(Duration.ZERO);
+    }
+
+    @PreDestroy
+    void arreter() {
+        Disposable tache = prochain;
+        if (tache != null) {
+            tache.dispose();
+        }
+    }
+
+    private void planifier(Duration delai) {
+        prochain = Mono.delay(delai)
+                .then(charger())
+                .subscribe(ok -> planifier(Duration.ofSeconds(ok ? rafraichissementSecondes : nouvelEssaiSecondes)));
+    }
+
+    private void rechargerBientot() {
+        long maintenant = System.currentTimeMillis();
+        long dernier = dernierRechargementAnticipe.get();
+        if (maintenant - dernier >= intervalleMinSecondes * 1000
+                && dernierRechargementAnticipe.compareAndSet(dernier, maintenant)) {
+            charger().subscribe();
+        }
+    }
+
+    /** Télécharge le JWKS ; true si au moins une clé exploitable a été chargée. */
+    private Mono<Boolean> charger() {
+        return webClient.get().uri(uri)
+                .retrieve()
+                .bodyToMono(JwkSet.class)
+                .timeout(Duration.ofMillis(timeoutMs))
+                .map(this::remplacer)
+                .onErrorResume(e -> {
+                    echecs.increment();
+                    log.warn("[JwksCache] JWKS indisponible ({}), {} clé(s) conservée(s)", e.getMessage(), cles.size());
+                    return Mono.just(false);
+                });
+    }
+
+    private boolean remplacer(JwkSet jwks) {
+        Map<String, PublicKey> nouvelles = new HashMap<>();
+        if (jwks.keys() != null) {
+            for (Jwk jwk : jwks.keys()) {
+                if (!"RSA".equals(jwk.kty()) || jwk.kid() == null
+                        || (jwk.use() != null && !"sig".equals(jwk.use()))) {
+                    continue;
+                }
+                try {
+                    nouvelles.put(jwk.kid(), clePublique(jwk));
+                } catch (Exception e) {
+                    log.warn("[JwksCache] Clé {} ignorée : {}", jwk.kid(), e.getMessage());
+                }
+            }
+        }
+        if (nouvelles.isEmpty()) {
+            echecs.increment();
+            log.warn("[JwksCache] JWKS sans clé exploitable, {} clé(s) conservée(s)", cles.size());
+            return false;
+        }
+        if (!nouvelles.keySet().equals(cles.keySet())) {
+            log.info("[JwksCache] Clés de signature : {}", nouvelles.keySet());
+        }
+        cles = Map.copyOf(nouvelles);
+        succes.increment();
+        return true;
+    }
+
+    private static PublicKey clePublique(Jwk jwk) throws Exception {
+        Base64.Decoder b64 = Base64.getUrlDecoder();
+        BigInteger modulus = new BigInteger(1, b64.decode(jwk.n()));
+        BigInteger exposant = new BigInteger(1, b64.decode(jwk.e()));
+        return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exposant));
+    }
+}
@@ -3,41 +3,51 @@ package com.smartmobility.apigateway.security;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.Locator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
+import java.security.Key;
 
+/**
+ * JwtUtil — vérification des tokens émis par l'auth-service.
+ *
+ * Le parser est construit une seule fois au démarrage : le JwtParser de jjwt
+ * est immuable et thread-safe, il est partagé par tous les threads de l'event
+ * loop Netty. Les tokens sont signés RS256 par l'auth-service ; la clé publique
+ * est choisie par le header kid dans JwksCache (lecture en mémoire).
+ * Par requête, il ne reste que le décodage du token et la vérification RSA —
+ * aucun appel bloquant, aucun secret partagé avec l'auth-service.
+ */
 @Component
 public class JwtUtil {
     private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    /** Claim "typ" des refresh tokens émis par l'auth-service. */
+    public static final String CLAIM_TYPE = "typ";
+    public static final String TYPE_REFRESH = "refresh";
 
-    // ── Clé de signature ──────────────────────────────────────────────────────
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    private final JwtParser parser;
+
+    /** @param clesPubliques JwksCache en production ; une clé fixe dans le benchmark */
+    public JwtUtil(Locator<Key> clesPubliques) {
+        this.parser = Jwts.parser()
+                .keyLocator(clesPubliques)
+                .build();
     }
 
-    // ── Validation ────────────────────────────────────────────────────────────
+    // ── Vérification en une passe ─────────────────────────────────────────────
 
     /**
-     * Vérifie la signature et l'expiration du token.
-     * @return true si valide
+     * Vérifie la signature et l'expiration, et retourne les claims du même parsing.
+     * @return les claims, ou null si le token est absent, invalide ou expiré
      */
-    public boolean validateToken(String token) {
+    public Claims verifier(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return parser.parseSignedClaims(token).getPayload();
         } catch (ExpiredJwtException e) {
             log.warn("Token JWT expiré : {}", e.getMessage());
         } catch (JwtException e) {
@@ -45,17 +55,24 @@ public class JwtUtil {
         } catch (IllegalArgumentException e) {
             log.warn("Token JWT vide ou null : {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    // ── Validation ────────────────────────────────────────────────────────────
+
+    /**
+     * Vérifie la signature et l'expiration du token.
+     * @return true si valide
+     */
+    public boolean validateToken(String token) {
+        return verifier(token) != null;
     }
 
     // ── Extraction des claims ─────────────────────────────────────────────────
 
+    /** Claims d'un token valide ; lève JwtException sinon. Préférer verifier() dans les filtres. */
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return parser.parseSignedClaims(token).getPayload();
     }
 
     /** Extrait l'ID utilisateur (subject) */
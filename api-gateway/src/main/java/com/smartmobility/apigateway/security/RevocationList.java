@@ -0,0 +1,150 @@
+package com.smartmobility.apigateway.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RevocationList — tokens révoqués, vérifiés en mémoire à chaque requête.
+ *
+ * Deux sortes d'entrées, reçues par événements (aucun appel au user-service) :
+ *   - utilisateur (compte supprimé, pass suspendu) : tout token émis AVANT la révocation est refusé ;
+ *   - token (déconnexion) : son jti est refusé jusqu'à son exp.
+ * Une entrée n'est gardée que tant qu'un token concerné peut encore être valide.
+ *
+ * Lecture : filtre de Bloom d'abord (quelques accès à un tableau de bits, sans allocation) ;
+ * la map exacte n'est consultée que sur un "peut-être" — faux positifs sans effet,
+ * jamais de faux négatif. Les écritures (rares) sont sérialisées ; le filtre est
+ * reconstruit à la purge des entrées expirées.
+ */
+@Component
+public class RevocationList {
+
+    private record Revocation(long revoqueAvant, long expireLe) {}
+
+    private final Map<String, Revocation> exactes = new ConcurrentHashMap<>();
+    private volatile FiltreBloom filtre;
+    private long prochainePurge;
+
+    @Value("${security.revocation.expected-entries:100000}")
+    private int entreesAttendues;
+
+    public RevocationList(MeterRegistry meterRegistry) {
+        meterRegistry.gaugeMapSize("security.revocation.entries", Tags.empty(), exactes);
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    /**
+     * @param userId subject du token
+     * @param jti    identifiant du token (peut être null pour les anciens tokens)
+     * @param emisLe claim iat en millisecondes
+     */
+    public boolean estRevoque(String userId, String jti, long emisLe) {
+        FiltreBloom f = filtre;
+        if (f == null) {
+            return false; // aucune révocation reçue
+        }
+        if (userId != null && f.peutContenir('u', userId)) {
+            Revocation r = exactes.get("u:" + userId);
+            // iat est à la seconde : un token émis dans la seconde de la révocation reste valide
+            if (r != null && emisLe < (r.revoqueAvant() / 1000) * 1000) {
+                return true;
+            }
+        }
+        return jti != null && f.peutContenir('t', jti) && exactes.containsKey("t:" + jti);
+    }
+
+    // ── Écriture ──────────────────────────────────────────────────────────────
+
+    public synchronized void revoquerUtilisateur(String userId, long revoqueAvant, long expireLe) {
+        Revocation existante = exactes.get("u:" + userId);
+        if (existante != null && existante.revoqueAvant() >= revoqueAvant) {
+            return;
+        }
+        ajouter('u', userId, new Revocation(revoqueAvant, expireLe));
+    }
+
+    public synchronized void revoquerToken(String jti, long expireLe) {
+        if (expireLe > System.currentTimeMillis()) {
+            ajouter('t', jti, new Revocation(0, expireLe));
+        }
+    }
+
+    private void ajouter(char type, String valeur, Revocation revocation) {
+        long maintenant = System.currentTimeMillis();
+        exactes.put(type + ":" + valeur, revocation);
+        if (filtre == null || maintenant >= prochainePurge || exactes.size() > filtre.capacite) {
+            reconstruire(maintenant);
+        } else {
+            filtre.ajouter(type, valeur);
+        }
+    }
+
+    // Purge des entrées expirées + nouveau filtre dimensionné (le Bloom ne sait pas retirer)
+    private void reconstruire(long maintenant) {
+        exactes.values().removeIf(r -> r.expireLe() <= maintenant);
+        FiltreBloom nouveau = new FiltreBloom(Math.max(entreesAttendues, exactes.size() * 2));
+        exactes.keySet().forEach(cle -> nouveau.ajouter(cle.charAt(0), cle.substring(2)));
+        filtre = nouveau;
+        prochainePurge = maintenant + 60_000;
+    }
+
+    // ── Filtre de Bloom (≈ 1 % de faux positifs à pleine capacité) ────────────
+
+    private static final class FiltreBloom {
+        private static final int HACHAGES = 7;
+
+        final int capacite;
+        private final AtomicLongArray bits;
+        private final int nbBits;
+
+        FiltreBloom(int capacite) {
+            this.capacite = capacite;
+            this.nbBits = Math.max(64, capacite * 10);   // ~9,6 bits par entrée pour 1 %
+            this.bits = new AtomicLongArray((nbBits + 63) / 64);
+        }
+
+        void ajouter(char type, String valeur) {
+            long h = hacher(type, valeur);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < HACHAGES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, nbBits);
+                long masque = 1L << (bit & 63);
+                long mot;
+                do {
+                    mot = bits.get(bit >>> 6);
+                } while ((mot & masque) == 0 && !bits.compareAndSet(bit >>> 6, mot, mot | masque));
+            }
+        }
+
+        boolean peutContenir(char type, String valeur) {
+            long h = hacher(type, valeur);
+            int h1 = (int) h;
+            int h2 = (int) (h >>> 32);
+            for (int i = 0; i < HACHAGES; i++) {
+                int bit = Math.floorMod(h1 + i * h2, nbBits);
+                if ((bits.get(bit >>> 6) & (1L << (bit & 63))) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        // FNV-1a 64 bits sur type + valeur, sans concaténation
+        private static long hacher(char type, String valeur) {
+            long h = 0xcbf29ce484222325L;
+            h = (h ^ type) * 0x100000001b3L;
+            for (int i = 0; i < valeur.length(); i++) {
+                h = (h ^ valeur.charAt(i)) * 0x100000001b3L;
+            }
+            return h ^ (h >>> 29);
+        }
+    }
+}
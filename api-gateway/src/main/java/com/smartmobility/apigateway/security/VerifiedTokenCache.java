@@ -0,0 +1,135 @@
+package com.smartmobility.apigateway.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * VerifiedTokenCache — tokens déjà vérifiés par la gateway.
+ *
+ * Un client mobile renvoie le même Bearer à chaque requête pendant toute sa
+ * durée de vie (jwt.access-expiration, 15 min par défaut). Après la première vérification,
+ * les valeurs des headers X-User-* sont gardées ici : les requêtes suivantes
+ * ne refont ni la vérification RSA ni le parsing JSON des claims.
+ *
+ *  - clé : SHA-256 du token (le token lui-même n'est jamais conservé) ;
+ *  - expiration : le claim exp du token, jamais au-delà ;
+ *  - borné à gateway.jwt-cache.max-entries (Caffeine : éviction en O(1) des
+ *    entrées les moins utiles, jamais de parcours de tout le cache).
+ */
+@Component
+public class VerifiedTokenCache {
+
+    /**
+     * Valeurs prêtes à injecter dans les headers X-User-Id / X-User-Email / X-User-Role,
+     * plus jti et iat pour le contrôle de révocation (refait à chaque requête).
+     */
+    public record IdentiteVerifiee(String userId, String email, String role,
+                                   String jti, long emisLe, long expireLe) {}
+
+    // Un MessageDigest par thread de l'event loop : pas de getInstance() par requête
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Cache<String, IdentiteVerifiee> entrees;
+    private final boolean actif;
+
+    private final Counter hits;
+    private final Counter miss;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${gateway.jwt-cache.enabled:true}") boolean actif,
+                              @Value("${gateway.jwt-cache.max-entries:50000}") int maxEntrees) {
+        this.actif = actif;
+        this.entrees = Caffeine.newBuilder()
+                .maximumSize(maxEntrees)
+                .expireAfter(new ExpirationAuExp())
+                .build();
+        this.hits = meterRegistry.counter("gateway.jwt.cache.requests", "result", "hit");
+        this.miss = meterRegistry.counter("gateway.jwt.cache.requests", "result", "miss");
+        meterRegistry.gauge("gateway.jwt.cache.size", entrees, Cache::estimatedSize);
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    /** Identité d'un token déjà vérifié et non expiré, sinon null. */
+    public IdentiteVerifiee obtenir(String token) {
+        if (!actif) {
+            return null;
+        }
+        IdentiteVerifiee identite = entrees.getIfPresent(empreinte(token));  // jamais une entrée expirée
+        if (identite != null) {
+            hits.increment();
+            return identite;
+        }
+        miss.increment();
+        return null;
+    }
+
+    // ── Écriture ──────────────────────────────────────────────────────────────
+
+    /** Enregistre les claims d'un token que JwtUtil vient de vérifier. */
+    public IdentiteVerifiee mettre(String token, Claims claims) {
+        String email = claims.get("email", String.class);
+        String role  = claims.get("role", String.class);
+        Date exp = claims.getExpiration();
+        Date iat = claims.getIssuedAt();
+        IdentiteVerifiee identite = new IdentiteVerifiee(
+                claims.getSubject(),
+                email != null ? email : "",
+                role  != null ? role  : "",
+                claims.getId(),
+                iat != null ? iat.getTime() : 0L,
+                exp != null ? exp.getTime() : 0L);
+
+        // Sans exp, le token n'est pas mis en cache : il sera vérifié à chaque requête
+        if (actif && exp != null) {
+            entrees.put(empreinte(token), identite);
+        }
+        return identite;
+    }
+
+    // ── Utilitaires ───────────────────────────────────────────────────────────
+
+    // Chaque entrée vit jusqu'au claim exp de son token, ni plus ni moins
+    private static final class ExpirationAuExp implements Expiry<String, IdentiteVerifiee> {
+        @Override
+        public long expireAfterCreate(String cle, IdentiteVerifiee identite, long maintenant) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, identite.expireLe() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String cle, IdentiteVerifiee identite, long maintenant, long dureeRestante) {
+            return expireAfterCreate(cle, identite, maintenant);
+        }
+
+        @Override
+        public long expireAfterRead(String cle, IdentiteVerifiee identite, long maintenant, long dureeRestante) {
+            return dureeRestante;
+        }
+    }
+
+    private static String empreinte(String token) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return Base64.getEncoder().withoutPadding()
+                .encodeToString(digest.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+}
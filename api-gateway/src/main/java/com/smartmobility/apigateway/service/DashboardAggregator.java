@@ -0,0 +1,112 @@
+package com.smartmobility.apigateway.service;
+
+import com.smartmobility.apigateway.security.VerifiedTokenCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * DashboardAggregator — écran d'accueil mobile en un seul aller-retour.
+ *
+ * Trois appels partent en parallèle (non bloquants) :
+ *   - trip-service         : GET /trips/user/{id}/latest
+ *   - user-service         : GET /api/users/{id}/pass
+ *   - notification-service : GET /notifications/user/{id}/unread/count
+ * Chaque branche a son propre timeout (gateway.dashboard.timeout-ms.*).
+ * Une branche en échec ou trop lente n'empêche pas la réponse : sa valeur
+ * est null et son nom figure dans "indisponibles".
+ */
+@Service
+public class DashboardAggregator {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardAggregator.class);
+
+    private final WebClient webClient;
+
+    @Value("${gateway.dashboard.timeout-ms.trip:800}")
+    private long timeoutTrajetMs;
+
+    @Value("${gateway.dashboard.timeout-ms.pass:800}")
+    private long timeoutPassMs;
+
+    @Value("${gateway.dashboard.timeout-ms.notifications:500}")
+    private long timeoutNotificationsMs;
+
+    public DashboardAggregator(WebClient.Builder loadBalancedWebClientBuilder) {
+        this.webClient = loadBalancedWebClientBuilder.build();
+    }
+
+    /** Résultat d'une branche : valeur (éventuellement absente) ou échec. */
+    private record Branche(String nom, Optional<Object> valeur, boolean echec) {}
+
+    public Mono<Map<String, Object>> agreger(VerifiedTokenCache.IdentiteVerifiee identite) {
+        String userId = identite.userId();
+
+        Mono<Branche> trajet = appeler("trajet", identite,
+                "lb://TRIP-SERVICE/trips/user/{id}/latest", userId, timeoutTrajetMs);
+        Mono<Branche> pass = appeler("pass", identite,
+                "lb://USER-SERVICE/api/users/{id}/pass", userId, timeoutPassMs);
+        Mono<Branche> notifications = appeler("notifications", identite,
+                "lb://NOTIFICATION-SERVICE/notifications/user/{id}/unread/count", userId, timeoutNotificationsMs);
+
+        return Mono.zip(trajet, pass, notifications).map(t -> {
+            Map<String, Object> dashboard = new LinkedHashMap<>();
+            List<String> indisponibles = new ArrayList<>();
+            for (Branche b : List.of(t.getT1(), t.getT2(), t.getT3())) {
+                dashboard.put(b.nom(), b.valeur().orElse(null));
+                if (b.echec()) {
+                    indisponibles.add(b.nom());
+                }
+            }
+            // {"unread": n} → n directement
+            if (dashboard.get("notifications") instanceof Map<?, ?> compte) {
+                dashboard.put("notifications", compte.get("unread"));
+            }
+            dashboard.put("partiel", !indisponibles.isEmpty());
+            dashboard.put("indisponibles", indisponibles);
+            return dashboard;
+        });
+    }
+
+    // ── Une branche ───────────────────────────────────────────────────────────
+
+    private Mono<Branche> appeler(String nom, VerifiedTokenCache.IdentiteVerifiee identite,
+                                  String uri, String userId, long timeoutMs) {
+        return webClient.get()
+                .uri(uri, userId)
+                .header("X-User-Id", identite.userId())
+                .header("X-User-Email", identite.email())
+                .header("X-User-Role", identite.role())
+                .exchangeToMono(DashboardAggregator::lireCorps)
+                .map(corps -> new Branche(nom, Optional.of(corps), false))
+                // 404 : rien à afficher (ex. aucun trajet), ce n'est pas un échec
+                .defaultIfEmpty(new Branche(nom, Optional.empty(), false))
+                .timeout(Duration.ofMillis(timeoutMs))
+                .onErrorResume(e -> {
+                    log.warn("Dashboard : branche {} indisponible pour userId={} : {}", nom, userId, e.toString());
+                    return Mono.just(new Branche(nom, Optional.empty(), true));
+                });
+    }
+
+    private static Mono<Object> lireCorps(ClientResponse reponse) {
+        int statut = reponse.statusCode().value();
+        if (statut == 404 || statut == 204) {
+            return reponse.releaseBody().then(Mono.empty());
+        }
+        if (reponse.statusCode().is2xxSuccessful()) {
+            return reponse.bodyToMono(Object.class);
+        }
+        return reponse.createError();
+    }
+}
@@ -0,0 +1,145 @@
+package com.smartmobility.apigateway.benchmark;
+
+import com.smartmobility.apigateway.filter.JwtAuthFilter;
+import com.smartmobility.apigateway.security.JwtUtil;
+import com.smartmobility.apigateway.security.RevocationList;
+import com.smartmobility.apigateway.security.VerifiedTokenCache;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtBuilder;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de l'authentification JWT par requête dans la gateway.
+ * Chaque comparaison se fait à algorithme égal, pour isoler un seul changement.
+ *
+ * Parser pré-construit et parsing unique (HS256 des deux côtés) :
+ *  - hmacAncienneValidation : clé + parser reconstruits, token parsé deux fois
+ *    (validateToken puis extractAllClaims, comme l'ancien JwtAuthFilter) ;
+ *  - hmacUnePasse : JwtUtil.verifier(), parser pré-construit, un seul parsing.
+ *
+ * Cache des tokens vérifiés (RS256, comme en production) :
+ *  - rsaUnePasse : JwtUtil.verifier() seul, vérification RSA à chaque appel ;
+ *  - rsaFiltreSansCache : JwtAuthFilter.authentifier(), VerifiedTokenCache désactivé ;
+ *  - rsaFiltreAvecCache : JwtAuthFilter.authentifier(), token déjà en cache (hit).
+ * Les deux variantes du filtre incluent le contrôle de révocation (liste vide).
+ *
+ * Lancement (hors cycle de tests Maven) :
+ *   mvn -B test-compile
+ *   java -cp "target/test-classes:target/classes:$(cat cp.txt)" \
+ *       com.smartmobility.apigateway.benchmark.JwtAuthBenchmark
+ * avec cp.txt produit par : mvn dependency:build-classpath -Dmdep.outputFile=cp.txt
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtAuthBenchmark {
+
+    private static final String SECRET = "benchmark-secret-benchmark-secret-benchmark-secret-0123456789";
+
+    private static final String KID = "bench";
+
+    private JwtUtil jwtUtilHmac;
+    private JwtUtil jwtUtilRsa;
+    private JwtAuthFilter filtreSansCache;
+    private JwtAuthFilter filtreAvecCache;
+    private String tokenHmac;
+    private String tokenRsa;
+    private String bearerRsa;
+
+    @Setup
+    public void preparer() {
+        SecretKey cleHmac = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+        KeyPair paire = Jwts.SIG.RS256.keyPair().build();
+        jwtUtilHmac = new JwtUtil(header -> cleHmac);
+        jwtUtilRsa = new JwtUtil(header -> paire.getPublic());
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        RevocationList revocationList = new RevocationList(registry);
+        filtreSansCache = new JwtAuthFilter(jwtUtilRsa, new VerifiedTokenCache(registry, false, 1), revocationList);
+        filtreAvecCache = new JwtAuthFilter(jwtUtilRsa, new VerifiedTokenCache(registry, true, 1000), revocationList);
+
+        tokenHmac = jeton().signWith(cleHmac).compact();
+        tokenRsa = jeton().header().keyId(KID).and().signWith(paire.getPrivate()).compact();
+        bearerRsa = "Bearer " + tokenRsa;
+        filtreAvecCache.authentifier(bearerRsa);   // premier passage : mise en cache
+    }
+
+    private static JwtBuilder jeton() {
+        return Jwts.builder()
+                .id(UUID.randomUUID().toString())
+                .subject(UUID.randomUUID().toString())
+                .claim("email", "bench@smartmobility.com")
+                .claim("role", "USER")
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + 3_600_000));
+    }
+
+    // ── HS256 : ancien chemin contre parsing unique ───────────────────────────
+
+    @Benchmark
+    public Claims hmacAncienneValidation() {
+        // Reproduit l'ancien chemin : deux parsers construits, deux parsings
+        Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(tokenHmac);
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .build()
+                .parseSignedClaims(tokenHmac)
+                .getPayload();
+    }
+
+    @Benchmark
+    public Claims hmacUnePasse() {
+        return jwtUtilHmac.verifier(tokenHmac);
+    }
+
+    // ── RS256 : vérification à chaque requête contre cache ────────────────────
+
+    @Benchmark
+    public Claims rsaUnePasse() {
+        return jwtUtilRsa.verifier(tokenRsa);
+    }
+
+    @Benchmark
+    public VerifiedTokenCache.IdentiteVerifiee rsaFiltreSansCache() {
+        return filtreSansCache.authentifier(bearerRsa);
+    }
+
+    @Benchmark
+    public VerifiedTokenCache.IdentiteVerifiee rsaFiltreAvecCache() {
+        return filtreAvecCache.authentifier(bearerRsa);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(JwtAuthBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
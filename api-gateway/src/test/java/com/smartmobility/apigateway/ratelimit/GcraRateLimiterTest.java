@@ -0,0 +1,81 @@
+package com.smartmobility.apigateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * GCRA : rafale, recharge au débit configuré et valeurs des headers 429.
+ */
+class GcraRateLimiterTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final GcraRateLimiter limiter = new GcraRateLimiter(registry, 1000, 1000);
+
+    @Test
+    void laRafaleEstAccepteePuisLaRequeteSuivanteRefusee() {
+        for (int i = 0; i < 5; i++) {
+            GcraRateLimiter.Decision decision = limiter.consommer("route:client", 1, 5);
+            assertTrue(decision.autorisee(), "requête " + (i + 1));
+            assertEquals(4 - i, decision.restants());
+        }
+        GcraRateLimiter.Decision refus = limiter.consommer("route:client", 1, 5);
+        assertFalse(refus.autorisee());
+        assertEquals(0, refus.restants());
+    }
+
+    @Test
+    void lesClesSontIndependantes() {
+        assertTrue(limiter.consommer("route:a", 1, 1).autorisee());
+        assertFalse(limiter.consommer("route:a", 1, 1).autorisee());
+        assertTrue(limiter.consommer("route:b", 1, 1).autorisee());
+    }
+
+    @Test
+    void leSeauSeRechargeAuDebitConfigure() throws InterruptedException {
+        // 20 requêtes/s : un jeton toutes les 50 ms
+        assertTrue(limiter.consommer("route:client", 20, 2).autorisee());
+        assertTrue(limiter.consommer("route:client", 20, 2).autorisee());
+        assertFalse(limiter.consommer("route:client", 20, 2).autorisee());
+
+        Thread.sleep(120);
+
+        assertTrue(limiter.consommer("route:client", 20, 2).autorisee());
+    }
+
+    @Test
+    void retryAfterCorrespondAuProchainJeton() {
+        // 1 requête toutes les 10 s, rafale 1
+        assertTrue(limiter.consommer("route:client", 0.1, 1).autorisee());
+        GcraRateLimiter.Decision refus = limiter.consommer("route:client", 0.1, 1);
+        assertFalse(refus.autorisee());
+        assertTrue(refus.retryAfterNanos() > 9_000_000_000L && refus.retryAfterNanos() <= 10_000_000_000L,
+                "retryAfterNanos = " + refus.retryAfterNanos());
+        assertEquals(10, refus.retryAfterSecondes());
+    }
+
+    @Test
+    void retryAfterSecondesArrondiAuDessusEtAuMoinsUn() {
+        assertEquals(1, new GcraRateLimiter.Decision(false, 0, 0).retryAfterSecondes());
+        assertEquals(1, new GcraRateLimiter.Decision(false, 0, 1).retryAfterSecondes());
+        assertEquals(1, new GcraRateLimiter.Decision(false, 0, 1_000_000_000L).retryAfterSecondes());
+        assertEquals(2, new GcraRateLimiter.Decision(false, 0, 1_000_000_001L).retryAfterSecondes());
+    }
+
+    @Test
+    void tablePleineNouvelleCleRefuseeSeauxExistantsConserves() {
+        GcraRateLimiter petit = new GcraRateLimiter(registry, 1, 60_000);
+        assertTrue(petit.consommer("route:a", 0.1, 2).autorisee());
+
+        // Le seau de "a" n'est pas plein : la purge ne libère rien
+        GcraRateLimiter.Decision refus = petit.consommer("route:b", 0.1, 2);
+        assertFalse(refus.autorisee());
+        assertTrue(refus.retryAfterSecondes() >= 1);
+        assertEquals(1.0, registry.get("gateway.ratelimit.buckets.rejected").counter().count());
+
+        assertTrue(petit.consommer("route:a", 0.1, 2).autorisee());
+    }
+}
@@ -0,0 +1,82 @@
+package com.smartmobility.apigateway.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filtre de Bloom + map exacte : aucun faux négatif, y compris après les reconstructions
+ * déclenchées quand le nombre d'entrées dépasse la capacité prévue.
+ */
+class RevocationListTest {
+
+    private static final long UNE_HEURE = 3_600_000L;
+
+    private RevocationList liste;
+    private long maintenant;
+
+    @BeforeEach
+    void preparer() {
+        liste = new RevocationList(new SimpleMeterRegistry());
+        // Capacité volontairement petite : chaque dépassement reconstruit le filtre
+        ReflectionTestUtils.setField(liste, "entreesAttendues", 100);
+        maintenant = System.currentTimeMillis();
+    }
+
+    @Test
+    void listeVideNeRevoqueRien() {
+        assertFalse(liste.estRevoque("42", "jti-1", maintenant));
+        assertFalse(liste.estRevoque(null, null, maintenant));
+    }
+
+    @Test
+    void aucunFauxNegatifApresReconstructions() {
+        for (int i = 0; i < 5_000; i++) {
+            liste.revoquerToken("jti-" + i, maintenant + UNE_HEURE);
+            liste.revoquerUtilisateur("user-" + i, maintenant, maintenant + UNE_HEURE);
+        }
+        long emisAvant = maintenant - 10_000;
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(liste.estRevoque(null, "jti-" + i, emisAvant), "jti-" + i);
+            assertTrue(liste.estRevoque("user-" + i, null, emisAvant), "user-" + i);
+        }
+    }
+
+    @Test
+    void utilisateurRevoqueSeulementPourLesTokensEmisAvant() {
+        liste.revoquerUtilisateur("42", maintenant, maintenant + UNE_HEURE);
+
+        assertTrue(liste.estRevoque("42", null, maintenant - 10_000));
+        // iat à la seconde : un token émis dans la seconde de la révocation reste valide
+        assertFalse(liste.estRevoque("42", null, (maintenant / 1000) * 1000));
+        assertFalse(liste.estRevoque("42", null, maintenant + 10_000));
+        assertFalse(liste.estRevoque("43", null, maintenant - 10_000));
+    }
+
+    @Test
+    void revocationPlusAncienneIgnoree() {
+        liste.revoquerUtilisateur("42", maintenant, maintenant + UNE_HEURE);
+        liste.revoquerUtilisateur("42", maintenant - 60_000, maintenant + UNE_HEURE);
+
+        assertTrue(liste.estRevoque("42", null, maintenant - 30_000));
+    }
+
+    @Test
+    void entreesExpireesPurgeesALaReconstruction() throws InterruptedException {
+        liste.revoquerToken("jti-expire", maintenant - 1);
+        liste.revoquerUtilisateur("expire", maintenant, maintenant + 50);
+        assertTrue(liste.estRevoque("expire", null, maintenant - 10_000));
+
+        Thread.sleep(100);
+        ReflectionTestUtils.setField(liste, "prochainePurge", 0L);
+        liste.revoquerToken("jti-vivant", maintenant + UNE_HEURE);   // déclenche la reconstruction
+
+        assertFalse(liste.estRevoque(null, "jti-expire", maintenant - 10_000));
+        assertFalse(liste.estRevoque("expire", null, maintenant - 10_000));
+        assertTrue(liste.estRevoque(null, "jti-vivant", maintenant - 10_000));
+    }
+}
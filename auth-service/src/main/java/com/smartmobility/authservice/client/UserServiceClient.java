@@ -1,13 +1,20 @@
 package com.smartmobility.authservice.client;
 
 import com.smartmobility.authservice.dto.CreateUserRequest;
+import com.smartmobility.authservice.dto.PasswordHashUpdate;
+import com.smartmobility.authservice.dto.RefreshTokenEmission;
+import com.smartmobility.authservice.dto.RefreshTokenRotation;
 import com.smartmobility.authservice.dto.UserDto;
 import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
+import java.util.UUID;
+
 @FeignClient(name = "user-service")
 public interface UserServiceClient {
 
@@ -23,4 +30,30 @@ public interface UserServiceClient {
      */
     @PostMapping("/internal/users")
     UserDto createUser(@RequestBody CreateUserRequest request);
-}
\ No newline at end of file
+
+    /**
+     * Remplace le hash du mot de passe (rehash au login, coût BCrypt relevé).
+     */
+    @PutMapping("/internal/users/{id}/password")
+    void updatePasswordHash(@PathVariable("id") UUID id, @RequestBody PasswordHashUpdate request);
+
+    /**
+     * Enregistre un refresh token émis : seuls les jti connus du user-service
+     * peuvent être échangés (état durable, partagé par toutes les instances).
+     */
+    @PostMapping("/internal/users/{id}/refresh-tokens")
+    void enregistrerRefreshToken(@PathVariable("id") UUID id, @RequestBody RefreshTokenEmission request);
+
+    /**
+     * Consomme l'ancien refresh token et enregistre le nouveau.
+     * 409 si l'ancien a déjà été échangé, révoqué ou est inconnu.
+     */
+    @PostMapping("/internal/users/{id}/refresh-tokens/rotation")
+    void faireTournerRefreshToken(@PathVariable("id") UUID id, @RequestBody RefreshTokenRotation request);
+
+    /**
+     * Révoque un refresh token (déconnexion).
+     */
+    @DeleteMapping("/internal/users/{id}/refresh-tokens/{jti}")
+    void revoquerRefreshToken(@PathVariable("id") UUID id, @PathVariable("jti") String jti);
+}
@@ -0,0 +1,55 @@
+package com.smartmobility.authservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * ExecutorConfig — pool dédié au hachage BCrypt (login, register, rehash).
+ *
+ * BCrypt coûte des dizaines de ms de CPU par appel : sur les threads Tomcat,
+ * une vague de logins bloquerait tout le service (health checks compris).
+ * Ici le nombre de hachages simultanés est borné par le nombre de cœurs,
+ * la file est courte et un dépassement est rejeté tout de suite (AbortPolicy).
+ *
+ * passwordHashIoExecutor : enregistrement des hachages refaits (appel Feign
+ * bloquant vers user-service), pour ne jamais occuper un cœur du pool BCrypt
+ * en attente réseau.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    @Bean(name = "passwordHashExecutor")
+    public ThreadPoolTaskExecutor passwordHashExecutor(
+            @Value("${auth.password-hash.threads:0}") int threads,
+            @Value("${auth.password-hash.queue-capacity:64}") int queueCapacity) {
+
+        int taille = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(taille);
+        executor.setMaxPoolSize(taille);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    @Bean(name = "passwordHashIoExecutor")
+    public ThreadPoolTaskExecutor passwordHashIoExecutor(
+            @Value("${auth.password-hash.io-threads:2}") int threads,
+            @Value("${auth.password-hash.io-queue-capacity:256}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("password-hash-io-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+}
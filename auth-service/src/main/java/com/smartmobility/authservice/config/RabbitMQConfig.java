@@ -0,0 +1,47 @@
+package com.smartmobility.authservice.config;
+
+import org.springframework.amqp.core.*;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * RabbitMQConfig — auth-service écoute les changements de comptes
+ * et publie les révocations d'access tokens (consommées par la gateway).
+ *
+ * File anonyme (exclusive, supprimée à l'arrêt) : CHAQUE instance reçoit
+ * tous les événements et invalide son propre cache d'identité.
+ */
+@Configuration
+public class RabbitMQConfig {
+
+    @Value("${rabbitmq.exchange.name}")
+    private String exchangeName;
+
+    @Value("${rabbitmq.routing-key.user-changed:user.changed}")
+    private String userChangedRoutingKey;
+
+    @Bean
+    public TopicExchange smartMobilityExchange() {
+        return new TopicExchange(exchangeName, true, false);
+    }
+
+    @Bean
+    public Queue userChangedQueue() {
+        return new AnonymousQueue();
+    }
+
+    @Bean
+    public Binding userChangedBinding() {
+        return BindingBuilder.bind(userChangedQueue())
+                .to(smartMobilityExchange())
+                .with(userChangedRoutingKey);
+    }
+
+    @Bean
+    public MessageConverter messageConverter() {
+        return new Jackson2JsonMessageConverter();
+    }
+}
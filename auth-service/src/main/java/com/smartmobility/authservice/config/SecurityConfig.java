@@ -1,6 +1,7 @@
 package com.smartmobility.authservice.config;
 
 import com.smartmobility.authservice.security.OAuth2SuccessHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
@@ -47,6 +48,8 @@ public class SecurityConfig {
                 .authorizeHttpRequests(auth -> auth
                         // Tout /api/auth/** est public : login, register, oauth2 callback
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Clés publiques JWKS (lues par les gateways)
+                        .requestMatchers("/.well-known/jwks.json").permitAll()
                         // Swagger
                         .requestMatchers("/v3/api-docs/**", "/swagger-ui/**").permitAll()
                         // Actuator
@@ -68,8 +71,9 @@ public class SecurityConfig {
     }
 
     // ── PasswordEncoder ───────────────────────────────────────────────────────
+    // Coût modifiable : les anciens hachages sont refaits au login suivant (PasswordHashService)
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${auth.bcrypt.strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 }
\ No newline at end of file
@@ -2,8 +2,11 @@ package com.smartmobility.authservice.controller;
 
 import com.smartmobility.authservice.dto.AuthResponse;
 import com.smartmobility.authservice.dto.LoginRequest;
+import com.smartmobility.authservice.dto.RefreshRequest;
 import com.smartmobility.authservice.dto.RegisterRequest;
+import com.smartmobility.authservice.exception.ServiceSurchargeException;
 import com.smartmobility.authservice.service.AuthService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -19,6 +22,8 @@ import java.util.Map;
  *
  * POST /api/auth/register        → inscription classique
  * POST /api/auth/login           → login email/password
+ * POST /api/auth/refresh         → nouvelle paire de tokens contre un refresh token
+ * POST /api/auth/logout          → révoque le refresh token (+ l'access token fourni)
  * GET  /api/auth/oauth2/callback → appelé automatiquement par Spring après Google
  * GET  /api/auth/me              → vérifie que le token est valide (optionnel)
  */
@@ -38,6 +43,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.register(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
+        } catch (ServiceSurchargeException e) {
+            return surcharge(e);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(Map.of("error", e.getMessage()));
@@ -50,6 +57,8 @@ public class AuthController {
         try {
             AuthResponse response = authService.login(request);
             return ResponseEntity.ok(response);
+        } catch (ServiceSurchargeException e) {
+            return surcharge(e);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(Map.of("error", e.getMessage()));
@@ -59,6 +68,34 @@ public class AuthController {
         }
     }
 
+    // ── Refresh ───────────────────────────────────────────────────────────────
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        try {
+            return ResponseEntity.ok(authService.rafraichir(request.refreshToken()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ── Logout ────────────────────────────────────────────────────────────────
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(
+            @RequestBody(required = false) RefreshRequest request,
+            @RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        try {
+            authService.deconnecter(request != null ? request.refreshToken() : null, authHeader);
+            return ResponseEntity.noContent().build();
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // ── OAuth2 Google — callback ──────────────────────────────────────────────
     /**
      * Spring Security redirige ici après une authentification Google réussie.
@@ -93,4 +130,11 @@ public class AuthController {
         // Utile pour tester que la chaîne Gateway → auth-service fonctionne
         return ResponseEntity.ok(Map.of("status", "Token valide"));
     }
+
+    // ── Surcharge du pool BCrypt : rejet rapide, le client réessaie ───────────
+    private ResponseEntity<?> surcharge(ServiceSurchargeException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("error", e.getMessage()));
+    }
 }
@@ -0,0 +1,33 @@
+package com.smartmobility.authservice.controller;
+
+import com.smartmobility.authservice.security.SigningKeyStore;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * JwksController — clés publiques de vérification des tokens (RFC 7517).
+ *
+ * GET /.well-known/jwks.json → lu par les gateways (JwksCache), en arrière-plan :
+ * jamais sur le chemin d'une requête utilisateur.
+ */
+@RestController
+public class JwksController {
+
+    private final SigningKeyStore signingKeyStore;
+
+    public JwksController(SigningKeyStore signingKeyStore) {
+        this.signingKeyStore = signingKeyStore;
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(Duration.ofMinutes(5)).cachePublic())
+                .body(signingKeyStore.jwks());
+    }
+}
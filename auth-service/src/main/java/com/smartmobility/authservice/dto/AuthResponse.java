@@ -7,5 +7,6 @@ public record AuthResponse(
         UUID userId,
         String email,
         String role,
-        long expiresIn
+        long expiresIn,
+        String refreshToken
 ) {}
@@ -0,0 +1,8 @@
+package com.smartmobility.authservice.dto;
+
+/**
+ * Nouveau hash BCrypt (rehash au login après changement de coût).
+ */
+public record PasswordHashUpdate(
+        String password   // déjà encodé BCrypt
+) {}
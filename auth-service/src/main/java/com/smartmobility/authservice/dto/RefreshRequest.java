@@ -0,0 +1,5 @@
+package com.smartmobility.authservice.dto;
+
+public record RefreshRequest(
+        String refreshToken
+) {}
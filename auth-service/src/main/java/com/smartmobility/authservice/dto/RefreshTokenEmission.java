@@ -0,0 +1,9 @@
+package com.smartmobility.authservice.dto;
+
+/**
+ * Refresh token émis (login, register, OAuth2), enregistré dans le user-service.
+ */
+public record RefreshTokenEmission(
+        String jti,
+        long expireLe       // claim exp, en millisecondes
+) {}
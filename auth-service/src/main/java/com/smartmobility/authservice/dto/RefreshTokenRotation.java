@@ -0,0 +1,14 @@
+package com.smartmobility.authservice.dto;
+
+/**
+ * Échange d'un refresh token : l'ancien est consommé et le nouveau enregistré
+ * en une seule transaction côté user-service (409 si l'ancien a déjà servi).
+ * ancienExpireLe : renseigné seulement pour un ancien token HMAC (transition),
+ * jamais enregistré : le user-service l'adopte, consommé, à son premier échange.
+ */
+public record RefreshTokenRotation(
+        String ancienJti,
+        String nouveauJti,
+        long expireLe,      // exp du nouveau token, en millisecondes
+        Long ancienExpireLe
+) {}
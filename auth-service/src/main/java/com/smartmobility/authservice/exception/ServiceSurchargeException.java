@@ -0,0 +1,12 @@
+package com.smartmobility.authservice.exception;
+
+/**
+ * Pool de vérification des mots de passe saturé : rejet immédiat (503)
+ * plutôt que d'empiler des requêtes sur les threads Tomcat.
+ */
+public class ServiceSurchargeException extends RuntimeException {
+
+    public ServiceSurchargeException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,43 @@
+package com.smartmobility.authservice.messaging;
+
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+@Component
+public class TokenRevocationPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenRevocationPublisher.class);
+
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${rabbitmq.exchange.name}")
+    private String exchange;
+
+    @Value("${rabbitmq.routing-key.token-revoked:auth.token.revoked}")
+    private String tokenRevokedKey;
+
+    public TokenRevocationPublisher(RabbitTemplate rabbitTemplate) {
+        this.rabbitTemplate = rabbitTemplate;
+    }
+
+    // ── Révocation d'un token précis ──────────────────────────────────────────
+    // Diffusée aux gateways, qui refusent le jti jusqu'à son exp
+    public void revoquer(Claims claims) {
+        if (claims.getId() == null || claims.getExpiration() == null) {
+            return; // ancien token sans jti : il expirera de lui-même
+        }
+        long expireLe = claims.getExpiration().getTime();
+        try {
+            rabbitTemplate.convertAndSend(exchange, tokenRevokedKey,
+                    new TokenRevokedEvent(claims.getId(), claims.getSubject(), expireLe));
+            log.info("[TokenRevocationPublisher] TOKEN_REVOKED publié - jti={}, userId={}",
+                    claims.getId(), claims.getSubject());
+        } catch (Exception e) {
+            log.warn("[TokenRevocationPublisher] RabbitMQ indisponible, TOKEN_REVOKED non publié : {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.smartmobility.authservice.messaging;
+
+/**
+ * Access token révoqué avant son exp (déconnexion).
+ * Diffusé à toutes les instances de gateway (RevocationList locale).
+ */
+public record TokenRevokedEvent(
+        String jti,
+        String userId,
+        long expireLe       // exp du token révoqué (epoch ms) : au-delà, l'entrée est inutile
+) {}
@@ -0,0 +1,14 @@
+package com.smartmobility.authservice.messaging;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Miroir de UserChangedEvent publié par le user-service (compte créé, modifié ou supprimé).
+ */
+public record UserChangedEvent(
+        UUID userId,
+        String email,
+        String type,        // CREE, MODIFIE, SUPPRIME
+        LocalDateTime occurredAt
+) {}
@@ -0,0 +1,27 @@
+package com.smartmobility.authservice.messaging;
+
+import com.smartmobility.authservice.service.UserIdentityCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class UserChangedListener {
+
+    private static final Logger log = LoggerFactory.getLogger(UserChangedListener.class);
+
+    private final UserIdentityCache userIdentityCache;
+
+    public UserChangedListener(UserIdentityCache userIdentityCache) {
+        this.userIdentityCache = userIdentityCache;
+    }
+
+    @RabbitListener(queues = "#{userChangedQueue.name}")
+    public void onUserChanged(UserChangedEvent event) {
+        log.debug("[RabbitMQ] USER_CHANGED - userId={}, type={}", event.userId(), event.type());
+        if (event.email() != null) {
+            userIdentityCache.invalider(event.email());
+        }
+    }
+}
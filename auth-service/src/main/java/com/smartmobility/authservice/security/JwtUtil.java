@@ -2,8 +2,12 @@ package com.smartmobility.authservice.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,6 +16,8 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.time.Instant;
 import java.util.Date;
 import java.util.UUID;
 
@@ -21,6 +27,18 @@ import java.util.UUID;
  * Contrairement à la Gateway qui ne fait que VALIDER,
  * l'auth-service fait les deux : GÉNÉRER + VALIDER.
  *
+ * Deux sortes de tokens, chacun avec un identifiant unique (jti) révocable :
+ *   - access token  : court (jwt.access-expiration, 15 min), présenté à chaque requête ;
+ *   - refresh token : long (jwt.refresh-expiration, 30 jours), claim typ=refresh,
+ *     accepté uniquement par POST /api/auth/refresh (la gateway le refuse).
+ *
+ * Signature RS256 avec la clé active de SigningKeyStore (header kid) :
+ * la gateway vérifie avec les clés publiques du JWKS, sans aucun secret.
+ * Transition (jwt.legacy.enabled, désactivée par défaut) : un ancien refresh
+ * token HMAC (jwt.legacy-secret) n'est accepté que s'il a été émis avant
+ * jwt.legacy.cutover et expire avant cutover + jwt.refresh-expiration.
+ * Passé cette date, plus aucun token HMAC ne peut être valide : désactiver.
+ *
  * API jjwt 0.12.x :
  *   Génération  → .subject() .issuedAt() .expiration()
  *   Validation  → .parser() .verifyWith() .parseSignedClaims() .getPayload()
@@ -30,23 +48,49 @@ public class JwtUtil {
 
     private static final Logger log = LoggerFactory.getLogger(JwtUtil.class);
 
-    @Value("${jwt.secret}")
-    private String jwtSecret;
+    public static final String CLAIM_TYPE = "typ";
+    public static final String TYPE_REFRESH = "refresh";
+
+    private final SigningKeyStore signingKeyStore;
+    private final JwtParser parser;
+    private final Instant basculeHeritage;   // null : aucun token HMAC accepté
+
+    @Value("${jwt.access-expiration:900000}")
+    private long accessExpiration;
 
-    @Value("${jwt.expiration:86400000}")
-    private long jwtExpiration;
+    @Value("${jwt.refresh-expiration:2592000000}")
+    private long refreshExpiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    public JwtUtil(SigningKeyStore signingKeyStore,
+                   @Value("${jwt.legacy.enabled:false}") boolean heritageActive,
+                   @Value("${jwt.legacy.cutover:}") String bascule,
+                   @Value("${jwt.legacy-secret:}") String legacySecret) {
+        this.signingKeyStore = signingKeyStore;
+        if (heritageActive && (bascule.isBlank() || legacySecret.isBlank())) {
+            throw new IllegalStateException("jwt.legacy.enabled exige jwt.legacy.cutover et jwt.legacy-secret");
+        }
+        this.basculeHeritage = heritageActive ? Instant.parse(bascule) : null;
+        SecretKey cleHmac = heritageActive
+                ? Keys.hmacShaKeyFor(legacySecret.getBytes(StandardCharsets.UTF_8)) : null;
+        this.parser = Jwts.parser().keyLocator(new LocatorAdapter<Key>() {
+            @Override
+            protected Key locate(JwsHeader header) {
+                if (estHmac(header)) {
+                    return cleHmac;   // ancien token HMAC : null (refusé) hors transition
+                }
+                return signingKeyStore.publique(header.getKeyId());
+            }
+        }).build();
     }
 
     // ── Génération ────────────────────────────────────────────────────────────
 
     /**
-     * Génère un JWT signé avec les infos de l'utilisateur.
+     * Génère un access token signé avec les infos de l'utilisateur.
      * Structure du token :
      * {
      *   "sub":   "42",           ← userId
+     *   "jti":   "…",            ← identifiant unique (révocation)
      *   "email": "user@mail.com",
      *   "role":  "USER",
      *   "iat":   ...,
@@ -54,25 +98,42 @@ public class JwtUtil {
      * }
      */
     public String generateToken(UUID userId, String email, String role) {
+        Date maintenant = new Date();
+        SigningKeyStore.Cle cle = signingKeyStore.active();
         return Jwts.builder()
+                .header().keyId(cle.kid()).and()
+                .id(UUID.randomUUID().toString())
                 .subject(String.valueOf(userId))
                 .claim("email", email)
                 .claim("role", role)
-                .issuedAt(new Date())
-                .expiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSigningKey())
+                .issuedAt(maintenant)
+                .expiration(new Date(maintenant.getTime() + accessExpiration))
+                .signWith(cle.privee(), Jwts.SIG.RS256)
+                .compact();
+    }
+
+    /** Refresh token : pas de rôle (relu au moment du refresh), seulement de quoi retrouver le compte. */
+    public String generateRefreshToken(UUID userId, String email) {
+        Date maintenant = new Date();
+        SigningKeyStore.Cle cle = signingKeyStore.active();
+        return Jwts.builder()
+                .header().keyId(cle.kid()).and()
+                .id(UUID.randomUUID().toString())
+                .subject(String.valueOf(userId))
+                .claim("email", email)
+                .claim(CLAIM_TYPE, TYPE_REFRESH)
+                .issuedAt(maintenant)
+                .expiration(new Date(maintenant.getTime() + refreshExpiration))
+                .signWith(cle.privee(), Jwts.SIG.RS256)
                 .compact();
     }
 
     // ── Validation ────────────────────────────────────────────────────────────
 
-    public boolean validateToken(String token) {
+    /** Vérifie signature + expiration et retourne les claims, ou null si le token est invalide. */
+    public Claims verifier(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return true;
+            return analyser(token).getPayload();
         } catch (ExpiredJwtException e) {
             log.warn("Token expiré : {}", e.getMessage());
         } catch (JwtException e) {
@@ -80,17 +141,48 @@ public class JwtUtil {
         } catch (IllegalArgumentException e) {
             log.warn("Token vide : {}", e.getMessage());
         }
-        return false;
+        return null;
+    }
+
+    public boolean validateToken(String token) {
+        return verifier(token) != null;
+    }
+
+    /** Ancien refresh token HMAC, accepté pendant la transition (à adopter côté user-service). */
+    public boolean estHeritage(String token) {
+        try {
+            return estHmac(analyser(token).getHeader());
+        } catch (JwtException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private Jws<Claims> analyser(String token) {
+        Jws<Claims> jws = parser.parseSignedClaims(token);
+        if (estHmac(jws.getHeader()) && !heritageAccepte(jws.getPayload())) {
+            throw new JwtException("Token HMAC hors de la fenêtre de transition");
+        }
+        return jws;
+    }
+
+    // Refresh token seulement, émis avant la bascule, sans durée de vie allongée après elle
+    private boolean heritageAccepte(Claims claims) {
+        Date emisLe = claims.getIssuedAt();
+        Date expireLe = claims.getExpiration();
+        return basculeHeritage != null
+                && TYPE_REFRESH.equals(claims.get(CLAIM_TYPE, String.class))
+                && emisLe != null && emisLe.toInstant().isBefore(basculeHeritage)
+                && expireLe != null && !expireLe.toInstant().isAfter(basculeHeritage.plusMillis(refreshExpiration));
+    }
+
+    private static boolean estHmac(JwsHeader header) {
+        return header.getAlgorithm() != null && header.getAlgorithm().startsWith("HS");
     }
 
     // ── Extraction ────────────────────────────────────────────────────────────
 
     public Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return analyser(token).getPayload();
     }
 
     public String extractUserId(String token) {
@@ -104,4 +196,4 @@ public class JwtUtil {
     public String extractRole(String token) {
         return extractAllClaims(token).get("role", String.class);
     }
-}
\ No newline at end of file
+}
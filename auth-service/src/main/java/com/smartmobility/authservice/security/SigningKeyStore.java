@@ -0,0 +1,233 @@
+package com.smartmobility.authservice.security;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPrivateCrtKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SigningKeyStore — clés RSA de signature des tokens, identifiées par kid.
+ *
+ * Les clés privées sont des fichiers PEM PKCS#8 dans jwt.signing.key-dir
+ * (volume/secret monté sur toutes les instances d'auth-service) ; kid = nom du fichier.
+ * Le répertoire est relu toutes les jwt.signing.reload-seconds par un thread dédié :
+ * une rotation se fait sans redémarrage, et la lecture par requête (login, refresh)
+ * reste un simple accès à un instantané, sans verrou ni I/O.
+ *
+ * Rotation :
+ *   1. déposer la nouvelle clé : elle est publiée tout de suite dans le JWKS ;
+ *   2. elle ne signe qu'après jwt.signing.activation-delay-seconds (date du fichier),
+ *      le temps que toutes les gateways l'aient rechargée ;
+ *   3. supprimer l'ancienne clé après jwt.refresh-expiration (plus aucun token signé avec).
+ * Clé active = la plus récente des clés publiées depuis assez longtemps.
+ *
+ * Sans répertoire configuré, le démarrage échoue : avec plusieurs instances derrière
+ * lb://AUTH-SERVICE, chacune aurait sa propre clé et la gateway refuserait les tokens
+ * de toutes celles dont elle n'a pas lu le JWKS. En développement seulement
+ * (une seule instance, tokens invalidés au redémarrage), jwt.signing.ephemeral-key=true
+ * autorise une clé éphémère générée au démarrage.
+ */
+@Component
+public class SigningKeyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SigningKeyStore.class);
+
+    public record Cle(String kid, PrivateKey privee, RSAPublicKey publique, long publieeLe) {}
+
+    // Instantané immuable, remplacé en bloc à chaque relecture
+    private record Trousseau(Map<String, Cle> cles, List<Cle> parAnciennete) {}
+
+    private final Path repertoire;
+    private final long rechargementMs;
+    private final long delaiActivationMs;
+
+    // Instantané courant : lu sans verrou, remplacé par le thread de relecture
+    private volatile Trousseau trousseau;
+    private ScheduledExecutorService relecture;
+
+    public SigningKeyStore(@Value("${jwt.signing.key-dir:}") String repertoire,
+                           @Value("${jwt.signing.reload-seconds:60}") long rechargementSecondes,
+                           @Value("${jwt.signing.activation-delay-seconds:900}") long delaiActivationSecondes,
+                           @Value("${jwt.signing.ephemeral-key:false}") boolean cleEphemereAutorisee) {
+        this.repertoire = repertoire.isBlank() ? null : Path.of(repertoire);
+        this.rechargementMs = rechargementSecondes * 1000;
+        this.delaiActivationMs = delaiActivationSecondes * 1000;
+        if (this.repertoire != null) {
+            relire();
+        } else if (cleEphemereAutorisee) {
+            this.trousseau = cleEphemere();
+        } else {
+            throw new IllegalStateException("jwt.signing.key-dir non configuré : répertoire de clés partagé "
+                    + "requis (jwt.signing.ephemeral-key=true pour une clé éphémère en développement)");
+        }
+    }
+
+    @PostConstruct
+    void demarrer() {
+        if (repertoire == null) {
+            return;
+        }
+        relecture = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "signing-key-reload");
+            t.setDaemon(true);
+            return t;
+        });
+        relecture.scheduleWithFixedDelay(this::relireSansEchec, rechargementMs, rechargementMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void arreter() {
+        if (relecture != null) {
+            relecture.shutdownNow();
+        }
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    /** Clé avec laquelle signer maintenant. */
+    public Cle active() {
+        Trousseau t = trousseau;
+        long seuil = System.currentTimeMillis() - delaiActivationMs;
+        for (Cle cle : t.parAnciennete()) {   // de la plus récente à la plus ancienne
+            if (cle.publieeLe() <= seuil) {
+                return cle;
+            }
+        }
+        return t.parAnciennete().get(0); // toutes trop récentes (premier déploiement)
+    }
+
+    /** Clé publique d'un kid publié, ou null. */
+    public RSAPublicKey publique(String kid) {
+        Cle cle = kid != null ? trousseau.cles().get(kid) : null;
+        return cle != null ? cle.publique() : null;
+    }
+
+    /** Document JWKS (RFC 7517) : toutes les clés publiées, actives ou non. */
+    public Map<String, Object> jwks() {
+        List<Map<String, String>> cles = new ArrayList<>();
+        for (Cle cle : trousseau.parAnciennete()) {
+            Map<String, String> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("kid", cle.kid());
+            jwk.put("use", "sig");
+            jwk.put("alg", "RS256");
+            jwk.put("n", base64Url(cle.publique().getModulus()));
+            jwk.put("e", base64Url(cle.publique().getPublicExponent()));
+            cles.add(jwk);
+        }
+        return Map.of("keys", cles);
+    }
+
+    // ── Relecture du répertoire ───────────────────────────────────────────────
+
+    // Une exception ne doit pas arrêter les relectures suivantes
+    private void relireSansEchec() {
+        try {
+            relire();
+        } catch (RuntimeException e) {
+            log.error("[SigningKeyStore] Relecture de {} impossible : {}", repertoire, e.getMessage());
+        }
+    }
+
+    private void relire() {
+        Map<String, Cle> cles = new HashMap<>();
+        try (DirectoryStream<Path> fichiers = Files.newDirectoryStream(repertoire, "*.pem")) {
+            for (Path fichier : fichiers) {
+                String nom = fichier.getFileName().toString();
+                String kid = nom.substring(0, nom.length() - ".pem".length());
+                try {
+                    cles.put(kid, lire(kid, fichier));
+                } catch (Exception e) {
+                    log.warn("[SigningKeyStore] Clé {} ignorée : {}", fichier, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.error("[SigningKeyStore] Répertoire {} illisible : {}", repertoire, e.getMessage());
+        }
+
+        if (cles.isEmpty()) {
+            if (trousseau == null) {
+                throw new IllegalStateException("Aucune clé de signature lisible dans " + repertoire);
+            }
+            log.warn("[SigningKeyStore] Aucune clé lisible, les {} clé(s) précédente(s) restent en service",
+                    trousseau.cles().size());
+            return;
+        }
+        if (trousseau == null || !cles.keySet().equals(trousseau.cles().keySet())) {
+            log.info("[SigningKeyStore] Clés publiées : {}", cles.keySet());
+        }
+        trousseau = trousseau(cles);
+    }
+
+    private static Cle lire(String kid, Path fichier) throws Exception {
+        String pem = Files.readString(fichier, StandardCharsets.US_ASCII)
+                .replaceAll("-----(BEGIN|END) PRIVATE KEY-----", "")
+                .replaceAll("\\s", "");
+        KeyFactory rsa = KeyFactory.getInstance("RSA");
+        PrivateKey privee = rsa.generatePrivate(new PKCS8EncodedKeySpec(Base64.getDecoder().decode(pem)));
+        if (!(privee instanceof RSAPrivateCrtKey crt) || crt.getModulus().bitLength() < 2048) {
+            throw new IllegalArgumentException("clé RSA PKCS#8 d'au moins 2048 bits attendue");
+        }
+        RSAPublicKey publique = (RSAPublicKey) rsa.generatePublic(
+                new RSAPublicKeySpec(crt.getModulus(), crt.getPublicExponent()));
+        return new Cle(kid, privee, publique, Files.getLastModifiedTime(fichier).toMillis());
+    }
+
+    private static Trousseau cleEphemere() {
+        try {
+            KeyPairGenerator generateur = KeyPairGenerator.getInstance("RSA");
+            generateur.initialize(2048);
+            KeyPair paire = generateur.generateKeyPair();
+            String kid = "ephemere-" + System.currentTimeMillis();
+            log.warn("[SigningKeyStore] jwt.signing.key-dir absent : clé éphémère {} "
+                    + "(une seule instance, tokens invalidés au redémarrage)", kid);
+            // Publiée "depuis toujours" : active immédiatement
+            return trousseau(Map.of(kid, new Cle(kid, paire.getPrivate(), (RSAPublicKey) paire.getPublic(), 0)));
+        } catch (Exception e) {
+            throw new IllegalStateException("Génération de la clé de signature impossible", e);
+        }
+    }
+
+    private static Trousseau trousseau(Map<String, Cle> cles) {
+        List<Cle> parAnciennete = new ArrayList<>(cles.values());
+        parAnciennete.sort(Comparator.comparingLong(Cle::publieeLe).reversed());
+        return new Trousseau(Map.copyOf(cles), List.copyOf(parAnciennete));
+    }
+
+    private static String base64Url(BigInteger valeur) {
+        byte[] octets = valeur.toByteArray();
+        if (octets.length > 1 && octets[0] == 0) {   // octet de signe, absent en JWK
+            byte[] sansSigne = new byte[octets.length - 1];
+            System.arraycopy(octets, 1, sansSigne, 0, sansSigne.length);
+            octets = sansSigne;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(octets);
+    }
+}
@@ -2,25 +2,34 @@ package com.smartmobility.authservice.service;
 
 import com.smartmobility.authservice.client.UserServiceClient;
 import com.smartmobility.authservice.dto.*;
+import com.smartmobility.authservice.messaging.TokenRevocationPublisher;
 import com.smartmobility.authservice.security.JwtUtil;
 import feign.FeignException;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+
 /**
  * AuthService — logique métier de l'authentification.
  *
  * Ce service NE touche PAS à la base de données.
  * Il délègue toute la persistance au user-service via Feign.
  *
- * JWT stateless : généré ici, validé par la Gateway, jamais stocké en BDD.
+ * Access token stateless : généré ici, validé par la Gateway, jamais stocké en BDD.
+ * Access token court (15 min) + refresh token long : la révocation d'un access token
+ * (liste de la gateway, diffusée par RabbitMQ) n'a besoin de tenir que quelques minutes.
+ * Les refresh tokens, eux, sont enregistrés dans le user-service (par jti) : rotation
+ * et déconnexion y sont tranchées, pour toutes les instances et après redémarrage.
  *
  * Responsabilités :
  *  - register    → encode le mot de passe, crée le user via Feign, génère JWT
  *  - login       → vérifie le mot de passe, génère JWT
  *  - loginOAuth2 → crée ou récupère le user Google, génère JWT
+ *  - rafraichir  → échange un refresh token contre une nouvelle paire (rotation)
+ *  - deconnecter → révoque le refresh token et l'access token courant
  */
 @Service
 public class AuthService {
@@ -29,14 +38,20 @@ public class AuthService {
 
     private final UserServiceClient userServiceClient;
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashService passwordHashService;
+    private final UserIdentityCache userIdentityCache;
+    private final TokenRevocationPublisher revocationPublisher;
 
     public AuthService(UserServiceClient userServiceClient,
                        JwtUtil jwtUtil,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordHashService passwordHashService,
+                       UserIdentityCache userIdentityCache,
+                       TokenRevocationPublisher revocationPublisher) {
         this.userServiceClient = userServiceClient;
         this.jwtUtil = jwtUtil;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashService = passwordHashService;
+        this.userIdentityCache = userIdentityCache;
+        this.revocationPublisher = revocationPublisher;
     }
 
     // ── Register ──────────────────────────────────────────────────────────────
@@ -55,7 +70,7 @@ public class AuthService {
                 request.nom(),
                 request.prenom(),
                 request.email(),
-                passwordEncoder.encode(request.password()),  // encodage BCrypt ici
+                passwordHashService.encoder(request.password()),  // encodage BCrypt (pool dédié)
                 request.username(),
                 request.telephone(),
                 "USER",   // rôle par défaut
@@ -64,17 +79,11 @@ public class AuthService {
         );
 
         UserDto created = userServiceClient.createUser(createRequest);
+        userIdentityCache.mettre(created);
         log.info("Nouveau compte créé : {}", created.email());
 
-        // 3. Générer le JWT stateless (non stocké)
-        String token = jwtUtil.generateToken(created.id(), created.email(), created.role());
-        return new AuthResponse(
-                token,
-                created.id(),
-                created.email(),
-                created.role(),
-                jwtUtil.extractAllClaims(token).getExpiration().getTime()
-        );
+        // 3. Générer le JWT stateless (non stocké) + refresh token
+        return emettre(created);
     }
 
     // ── Login classique ───────────────────────────────────────────────────────
@@ -88,8 +97,8 @@ public class AuthService {
             throw new IllegalArgumentException("Identifiants incorrects");
         }
 
-        // 2. Vérifier le mot de passe contre le hash BCrypt
-        if (!passwordEncoder.matches(request.password(), user.password())) {
+        // 2. Vérifier le mot de passe contre le hash BCrypt (pool dédié, hors thread Tomcat)
+        if (!passwordHashService.verifier(request.password(), user.password())) {
             throw new IllegalArgumentException("Identifiants incorrects");
         }
 
@@ -100,15 +109,18 @@ public class AuthService {
 
         log.info("Login réussi : {}", user.email());
 
-        // 4. Générer le JWT stateless
-        String token = jwtUtil.generateToken(user.id(), user.email(), user.role());
-        return new AuthResponse(
-                token,
-                user.id(),
-                user.email(),
-                user.role(),
-                jwtUtil.extractAllClaims(token).getExpiration().getTime()
-        );
+        // Coût BCrypt relevé depuis le dernier hash : on refait le hash en arrière-plan
+        if (passwordHashService.doitRehasher(user.password())) {
+            UserDto compte = user;
+            passwordHashService.rehasherEnArrierePlan(request.password(), hash -> {
+                userServiceClient.updatePasswordHash(compte.id(), new PasswordHashUpdate(hash));
+                userIdentityCache.invalider(compte.email());
+                log.info("Mot de passe rehaché au coût courant : {}", compte.email());
+            });
+        }
+
+        // 4. Générer le JWT stateless + refresh token
+        return emettre(user);
     }
 
     // ── Login OAuth2 Google ───────────────────────────────────────────────────
@@ -137,29 +149,124 @@ public class AuthService {
                     googleId                             // googleId
             );
             user = userServiceClient.createUser(createRequest);
+            userIdentityCache.mettre(user);
         }
 
         if (!user.enabled()) {
             throw new IllegalStateException("Compte désactivé");
         }
 
+        return emettre(user);
+    }
+
+    // ── Refresh ───────────────────────────────────────────────────────────────
+
+    /**
+     * Échange un refresh token contre une nouvelle paire.
+     * Le compte est relu (rôle à jour, compte supprimé ou désactivé refusé)
+     * et l'ancien refresh token est consommé par le user-service : chacun ne sert qu'une fois
+     * (déjà consommé ou révoqué → 409 sur la rotation → 401 ici).
+     * Pass suspendu : refusé par le user-service (403) jusqu'à réactivation.
+     */
+    public AuthResponse rafraichir(String refreshToken) {
+        Claims claims = refreshToken == null ? null : jwtUtil.verifier(refreshToken);
+        if (claims == null || !JwtUtil.TYPE_REFRESH.equals(claims.get(JwtUtil.CLAIM_TYPE, String.class))) {
+            throw new IllegalArgumentException("Refresh token invalide ou expiré");
+        }
+        UserDto user = findUserByEmailSafe(claims.get("email", String.class));
+        if (user == null || !String.valueOf(user.id()).equals(claims.getSubject())) {
+            throw new IllegalArgumentException("Compte introuvable");
+        }
+        if (!user.enabled()) {
+            throw new IllegalStateException("Compte désactivé");
+        }
+
+        if (claims.getId() == null) {
+            throw new IllegalArgumentException("Refresh token invalide ou expiré");
+        }
+
+        Long ancienExpireLe = jwtUtil.estHeritage(refreshToken) ? claims.getExpiration().getTime() : null;
+        return emettre(user, claims.getId(), ancienExpireLe);
+    }
+
+    // ── Déconnexion ───────────────────────────────────────────────────────────
+
+    /**
+     * Révoque l'access token courant (header Authorization, diffusé aux gateways)
+     * et le refresh token (ligne refresh_tokens du user-service).
+     * user-service injoignable → IllegalStateException : le client doit réessayer,
+     * sinon le refresh token resterait utilisable jusqu'à son exp.
+     */
+    public void deconnecter(String refreshToken, String authHeader) {
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            Claims access = jwtUtil.verifier(authHeader.substring(7));
+            if (access != null) {
+                revocationPublisher.revoquer(access);
+            }
+        }
+        Claims refresh = refreshToken == null ? null : jwtUtil.verifier(refreshToken);
+        if (refresh != null && refresh.getId() != null
+                && JwtUtil.TYPE_REFRESH.equals(refresh.get(JwtUtil.CLAIM_TYPE, String.class))) {
+            try {
+                userServiceClient.revoquerRefreshToken(UUID.fromString(refresh.getSubject()), refresh.getId());
+            } catch (Exception e) {
+                log.error("Révocation du refresh token {} impossible : {}", refresh.getId(), e.getMessage());
+                throw new IllegalStateException("Service utilisateur indisponible", e);
+            }
+        }
+    }
+
+    // ── Utilitaire interne ────────────────────────────────────────────────────
+
+    private AuthResponse emettre(UserDto user) {
+        return emettre(user, null, null);
+    }
+
+    /**
+     * Nouvelle paire de tokens. Le refresh token est enregistré dans le user-service ;
+     * lors d'un refresh (ancienJti non null), l'ancien y est consommé dans la même transaction.
+     */
+    private AuthResponse emettre(UserDto user, String ancienJti, Long ancienExpireLe) {
         String token = jwtUtil.generateToken(user.id(), user.email(), user.role());
+        String refreshToken = jwtUtil.generateRefreshToken(user.id(), user.email());
+        Claims refresh = jwtUtil.extractAllClaims(refreshToken);
+        long expireLe = refresh.getExpiration().getTime();
+        try {
+            if (ancienJti == null) {
+                userServiceClient.enregistrerRefreshToken(user.id(),
+                        new RefreshTokenEmission(refresh.getId(), expireLe));
+            } else {
+                userServiceClient.faireTournerRefreshToken(user.id(),
+                        new RefreshTokenRotation(ancienJti, refresh.getId(), expireLe, ancienExpireLe));
+            }
+        } catch (FeignException.Conflict e) {
+            throw new IllegalArgumentException("Refresh token révoqué");
+        } catch (FeignException.Forbidden e) {
+            throw new IllegalStateException("Pass suspendu : reconnexion impossible avant réactivation");
+        } catch (Exception e) {
+            log.error("Enregistrement du refresh token impossible pour {} : {}", user.email(), e.getMessage());
+            throw new IllegalStateException("Service utilisateur indisponible", e);
+        }
         return new AuthResponse(
                 token,
                 user.id(),
                 user.email(),
                 user.role(),
-                jwtUtil.extractAllClaims(token).getExpiration().getTime()
+                jwtUtil.extractAllClaims(token).getExpiration().getTime(),
+                refreshToken
         );
     }
 
-    // ── Utilitaire interne ────────────────────────────────────────────────────
-
     /**
      * Cherche un user par email sans lever d'exception si non trouvé (404).
      * Feign lève FeignException.NotFound pour un 404 → on retourne null proprement.
+     * Servi par UserIdentityCache : un seul appel amont par email, même en rafale.
      */
     private UserDto findUserByEmailSafe(String email) {
+        return userIdentityCache.obtenir(email, this::chargerUserParEmail);
+    }
+
+    private UserDto chargerUserParEmail(String email) {
         try {
             return userServiceClient.findByEmail(email);
         } catch (FeignException.NotFound e) {
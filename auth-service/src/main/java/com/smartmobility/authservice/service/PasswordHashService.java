@@ -0,0 +1,159 @@
+package com.smartmobility.authservice.service;
+
+import com.smartmobility.authservice.exception.ServiceSurchargeException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * PasswordHashService — BCrypt hors des threads Tomcat.
+ *
+ * Chaque hachage passe par passwordHashExecutor (borné) :
+ *   - file pleine        → ServiceSurchargeException immédiate (503 + Retry-After) ;
+ *   - attente trop longue → tâche annulée, même réponse.
+ * Le thread HTTP attend au plus auth.password-hash.timeout-ms.
+ * Le rehash au login est calculé sur ce pool, mais enregistré (Feign) sur
+ * passwordHashIoExecutor : aucune attente réseau n'y prend la place d'un login.
+ *
+ * Métriques : auth.password.hash{operation} (durée du hachage),
+ * auth.password.hash.queue.wait (attente en file), auth.password.hash.rejected.
+ */
+@Service
+public class PasswordHashService {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHashService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolTaskExecutor executor;
+    private final ThreadPoolTaskExecutor ioExecutor;
+    private final MeterRegistry meterRegistry;
+    private final Timer attenteFile;
+    private final Counter rejets;
+
+    @Value("${auth.password-hash.timeout-ms:2000}")
+    private long timeoutMs;
+
+    public PasswordHashService(PasswordEncoder passwordEncoder,
+                               @Qualifier("passwordHashExecutor") ThreadPoolTaskExecutor executor,
+                               @Qualifier("passwordHashIoExecutor") ThreadPoolTaskExecutor ioExecutor,
+                               MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.ioExecutor = ioExecutor;
+        this.meterRegistry = meterRegistry;
+        this.attenteFile = meterRegistry.timer("auth.password.hash.queue.wait");
+        this.rejets = meterRegistry.counter("auth.password.hash.rejected");
+        meterRegistry.gauge("auth.password.hash.queue.size", executor,
+                e -> e.getThreadPoolExecutor().getQueue().size());
+    }
+
+    // ── Opérations ────────────────────────────────────────────────────────────
+
+    public boolean verifier(String motDePasse, String hash) {
+        if (motDePasse == null || hash == null) {
+            return false; // compte OAuth2 sans mot de passe
+        }
+        return executer("verify", () -> passwordEncoder.matches(motDePasse, hash));
+    }
+
+    public String encoder(String motDePasse) {
+        return executer("encode", () -> passwordEncoder.encode(motDePasse));
+    }
+
+    /** true si le hash a été calculé avec un coût inférieur au coût configuré. */
+    public boolean doitRehasher(String hash) {
+        return hash != null && passwordEncoder.upgradeEncoding(hash);
+    }
+
+    /**
+     * Nouveau hash au coût courant, en arrière-plan : le login n'attend pas.
+     * Calcul sur le pool BCrypt, enregistrement sur le pool d'I/O.
+     * Un pool saturé → on abandonne, le prochain login réessaiera.
+     */
+    public void rehasherEnArrierePlan(String motDePasse, Consumer<String> enregistrer) {
+        try {
+            executor.execute(() -> {
+                String nouveau;
+                try {
+                    nouveau = mesurer("rehash", () -> passwordEncoder.encode(motDePasse));
+                } catch (Exception e) {
+                    log.warn("Rehash du mot de passe échoué : {}", e.getMessage());
+                    return;
+                }
+                enregistrerEnArrierePlan(nouveau, enregistrer);
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Rehash reporté : pool de hachage saturé");
+        }
+    }
+
+    private void enregistrerEnArrierePlan(String hash, Consumer<String> enregistrer) {
+        try {
+            ioExecutor.execute(() -> {
+                try {
+                    enregistrer.accept(hash);
+                } catch (Exception e) {
+                    log.warn("Enregistrement du mot de passe rehaché échoué : {}", e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.debug("Rehash reporté : pool d'enregistrement saturé");
+        }
+    }
+
+    // ── Exécution bornée ──────────────────────────────────────────────────────
+
+    private <T> T executer(String operation, Callable<T> tache) {
+        long soumisLe = System.nanoTime();
+        Future<T> resultat;
+        try {
+            resultat = executor.submit(() -> {
+                attenteFile.record(System.nanoTime() - soumisLe, TimeUnit.NANOSECONDS);
+                return mesurer(operation, tache);
+            });
+        } catch (RejectedExecutionException e) {
+            rejets.increment();
+            throw new ServiceSurchargeException("Trop de connexions simultanées, réessayez dans un instant");
+        }
+
+        try {
+            return resultat.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            resultat.cancel(true); // retirée de la file si pas encore démarrée
+            rejets.increment();
+            throw new ServiceSurchargeException("Trop de connexions simultanées, réessayez dans un instant");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServiceSurchargeException("Vérification du mot de passe interrompue");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private <T> T mesurer(String operation, Callable<T> tache) throws Exception {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            return tache.call();
+        } finally {
+            sample.stop(meterRegistry.timer("auth.password.hash", "operation", operation));
+        }
+    }
+}
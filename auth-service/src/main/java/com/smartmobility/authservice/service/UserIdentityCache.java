@@ -0,0 +1,160 @@
+package com.smartmobility.authservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.smartmobility.authservice.dto.UserDto;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * UserIdentityCache — identités lues au login / register, par email normalisé.
+ *
+ * Une vague de logins (sortie d'une nouvelle version de l'app) ne fait plus
+ * un appel GET /internal/users/email/{email} par tentative :
+ *   - TTL court (auth.identity-cache.ttl-seconds), plus court encore pour
+ *     "email inconnu" (negative-ttl-seconds) ;
+ *   - invalidé par les événements USER_CHANGED du user-service (suppression = révocation) ;
+ *   - single-flight : les logins simultanés d'un même email partagent UN appel amont ;
+ *   - borné à auth.identity-cache.max-entries (Caffeine : éviction en O(1),
+ *     jamais de parcours de tout le cache à l'insertion).
+ */
+@Component
+public class UserIdentityCache {
+
+    // user == null : email inconnu du user-service (entrée négative)
+    private record Entree(UserDto user, long expireLe) {}
+
+    private final Cache<String, Entree> entrees;
+    private final Map<String, CompletableFuture<UserDto>> enVol = new ConcurrentHashMap<>();
+
+    // Incrémenté à chaque invalidation : un chargement démarré avant n'est pas mis en cache
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter miss;
+    private final Counter partages;
+
+    private final long ttlSecondes;
+    private final long ttlNegatifSecondes;
+
+    public UserIdentityCache(MeterRegistry meterRegistry,
+                             @Value("${auth.identity-cache.ttl-seconds:30}") long ttlSecondes,
+                             @Value("${auth.identity-cache.negative-ttl-seconds:5}") long ttlNegatifSecondes,
+                             @Value("${auth.identity-cache.max-entries:100000}") int maxEntrees) {
+        this.ttlSecondes = ttlSecondes;
+        this.ttlNegatifSecondes = ttlNegatifSecondes;
+        this.entrees = Caffeine.newBuilder()
+                .maximumSize(maxEntrees)
+                .expireAfter(new ExpirationEntree())
+                .build();
+        this.hits = meterRegistry.counter("auth.identity.cache.requests", "result", "hit");
+        this.miss = meterRegistry.counter("auth.identity.cache.requests", "result", "miss");
+        this.partages = meterRegistry.counter("auth.identity.cache.requests", "result", "coalesced");
+        meterRegistry.gauge("auth.identity.cache.size", entrees, Cache::estimatedSize);
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    /**
+     * Identité de l'email, ou null s'il est inconnu.
+     * chargeur : appel amont (reçoit l'email normalisé) ; ses exceptions sont
+     * propagées à tous les appelants qui attendaient le même chargement.
+     */
+    public UserDto obtenir(String email, Function<String, UserDto> chargeur) {
+        String cle = normaliser(email);
+        Entree entree = entrees.getIfPresent(cle);   // jamais une entrée expirée
+        if (entree != null) {
+            hits.increment();
+            return entree.user();
+        }
+
+        CompletableFuture<UserDto> chargement = new CompletableFuture<>();
+        CompletableFuture<UserDto> dejaEnVol = enVol.putIfAbsent(cle, chargement);
+        if (dejaEnVol != null) {
+            partages.increment();
+            return attendre(dejaEnVol);
+        }
+
+        miss.increment();
+        long generation = invalidations.get();
+        try {
+            UserDto user = chargeur.apply(cle);
+            if (invalidations.get() == generation) {
+                stocker(cle, user);
+            }
+            chargement.complete(user);
+            return user;
+        } catch (RuntimeException e) {
+            chargement.completeExceptionally(e);
+            throw e;
+        } finally {
+            enVol.remove(cle, chargement);
+        }
+    }
+
+    // ── Écriture ──────────────────────────────────────────────────────────────
+
+    /** Compte tout juste créé par cette instance : le login qui suit ne repasse pas par le user-service. */
+    public void mettre(UserDto user) {
+        if (user != null && user.email() != null) {
+            stocker(normaliser(user.email()), user);
+        }
+    }
+
+    public void invalider(String email) {
+        invalidations.incrementAndGet();
+        entrees.invalidate(normaliser(email));
+    }
+
+    // ── Utilitaires ───────────────────────────────────────────────────────────
+
+    static String normaliser(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private void stocker(String cle, UserDto user) {
+        long ttl = (user != null ? ttlSecondes : ttlNegatifSecondes) * 1000;
+        entrees.put(cle, new Entree(user, System.currentTimeMillis() + ttl));
+    }
+
+    // TTL propre à chaque entrée (positive / négative), fixé à l'écriture
+    private static final class ExpirationEntree implements Expiry<String, Entree> {
+        @Override
+        public long expireAfterCreate(String cle, Entree entree, long maintenant) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entree.expireLe() - System.currentTimeMillis()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String cle, Entree entree, long maintenant, long dureeRestante) {
+            return expireAfterCreate(cle, entree, maintenant);
+        }
+
+        @Override
+        public long expireAfterRead(String cle, Entree entree, long maintenant, long dureeRestante) {
+            return dureeRestante;
+        }
+    }
+
+    private static UserDto attendre(CompletableFuture<UserDto> chargement) {
+        try {
+            return chargement.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
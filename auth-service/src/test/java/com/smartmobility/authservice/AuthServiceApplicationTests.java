@@ -3,7 +3,8 @@ package com.smartmobility.authservice;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+// Pas de répertoire de clés partagé en test : clé éphémère
+@SpringBootTest(properties = "jwt.signing.ephemeral-key=true")
 class AuthServiceApplicationTests {
 
 	@Test
@@ -0,0 +1,27 @@
+package com.smartmobility.billingservice.client;
+
+import com.smartmobility.billingservice.dto.TripSettlementRow;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * TripServiceClient — billing-service → trip-service (réconciliation uniquement).
+ * Endpoint interne — réponse = tableau JSON (pas d'enveloppe "data").
+ */
+@FeignClient(name = "trip-service", configuration = com.smartmobility.billingservice.config.FeignConfig.class)
+public interface TripServiceClient {
+
+    @GetMapping("/internal/trips/settlement")
+    List<TripSettlementRow> lireTrajetsTarifes(
+            @RequestParam("apresId") UUID apresId,
+            @RequestParam("depuis") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime depuis,
+            @RequestParam("avant") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime avant,
+            @RequestParam("limite") int limite
+    );
+}
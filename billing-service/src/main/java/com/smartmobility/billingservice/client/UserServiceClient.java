@@ -1,10 +1,14 @@
 package com.smartmobility.billingservice.client;
 
 import com.smartmobility.billingservice.dto.PassResponse;
+import com.smartmobility.billingservice.dto.PassSoldeRow;
+import com.smartmobility.billingservice.dto.RechargeBatchItem;
+import com.smartmobility.billingservice.dto.RechargeBatchResult;
 import com.smartmobility.billingservice.dto.UpdateSoldeRequest;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -25,12 +29,17 @@ public interface UserServiceClient {
             @RequestHeader("X-User-Role") String role
     );
 
+    /**
+     * Débit idempotent : un appel rejoué avec la même Idempotency-Key (tripId)
+     * renvoie le résultat d'origine sans redébiter le pass.
+     */
     @PutMapping("/api/users/{id}/pass/debiter")
     PassResponse debiterSolde(
             @PathVariable("id") UUID userId,
             @RequestBody UpdateSoldeRequest request,
             @RequestHeader("X-User-Id")   String userIdHeader,
-            @RequestHeader("X-User-Role") String role
+            @RequestHeader("X-User-Role") String role,
+            @RequestHeader(value = "Idempotency-Key", required = false) String cleIdempotence
     );
 
     @PutMapping("/api/users/{id}/pass/recharger")
@@ -40,4 +49,20 @@ public interface UserServiceClient {
             @RequestHeader("X-User-Id")   String userIdHeader,
             @RequestHeader("X-User-Role") String role
     );
-}
\ No newline at end of file
+
+    /**
+     * Recharge un lot de pass en un seul aller-retour.
+     * Endpoint interne — réponse = tableau JSON (pas d'enveloppe "data").
+     */
+    @PostMapping("/internal/users/passes/recharger")
+    List<RechargeBatchResult> rechargerSoldesEnMasse(@RequestBody List<RechargeBatchItem> items);
+
+    /**
+     * Soldes des pass triés par passId (pagination keyset) — réconciliation.
+     */
+    @GetMapping("/internal/users/passes/soldes")
+    List<PassSoldeRow> lireSoldes(
+            @RequestParam("apresId") UUID apresId,
+            @RequestParam("limite") int limite
+    );
+}
@@ -0,0 +1,72 @@
+package com.smartmobility.billingservice.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * ExecutorConfig — pools de threads dédiés du billing-service.
+ *
+ * Chaque traitement de fond a son propre pool borné pour ne jamais
+ * consommer les threads Tomcat des requêtes HTTP.
+ */
+@Configuration
+public class ExecutorConfig {
+
+    /**
+     * Recharges en masse : un lot (chunk) par tâche.
+     * File pleine → le thread soumetteur traite le lot lui-même (back-pressure).
+     */
+    @Bean(name = "bulkRechargeExecutor")
+    public ThreadPoolTaskExecutor bulkRechargeExecutor(
+            @Value("${billing.bulk-recharge.threads:4}") int threads,
+            @Value("${billing.bulk-recharge.queue-capacity:1000}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("bulk-recharge-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Reprise des débits en file : une tâche par débit réservé.
+     * File pleine → le thread du scheduler rejoue lui-même (il ralentit le polling).
+     */
+    @Bean(name = "debitRetryExecutor")
+    public ThreadPoolTaskExecutor debitRetryExecutor(
+            @Value("${billing.debit-retry.threads:2}") int threads,
+            @Value("${billing.debit-retry.queue-capacity:200}") int queueCapacity) {
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("debit-retry-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Réconciliation déclenchée par un ADMIN : un seul thread, une seule exécution à la fois.
+     */
+    @Bean(name = "reconciliationExecutor")
+    public ThreadPoolTaskExecutor reconciliationExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("reconciliation-");
+        executor.initialize();
+        return executor;
+    }
+}
@@ -1,10 +1,18 @@
 package com.smartmobility.billingservice.controller;
 
+import com.smartmobility.billingservice.dto.BulkRechargeJobResponse;
 import com.smartmobility.billingservice.dto.DebitRequest;
 import com.smartmobility.billingservice.dto.RechargeRequest;
 import com.smartmobility.billingservice.dto.TransactionResponse;
+import com.smartmobility.billingservice.entity.TransactionStatus;
 import com.smartmobility.billingservice.service.BillingService;
+import com.smartmobility.billingservice.service.BulkRechargeService;
+import com.smartmobility.billingservice.service.ReconciliationService;
+import com.smartmobility.billingservice.service.TransactionArchiveService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -18,9 +26,18 @@ import java.util.UUID;
 public class BillingController {
 
     private final BillingService billingService;
+    private final BulkRechargeService bulkRechargeService;
+    private final ReconciliationService reconciliationService;
+    private final TransactionArchiveService archiveService;
 
-    public BillingController(BillingService billingService) {
+    public BillingController(BillingService billingService,
+                             BulkRechargeService bulkRechargeService,
+                             ReconciliationService reconciliationService,
+                             TransactionArchiveService archiveService) {
         this.billingService = billingService;
+        this.bulkRechargeService = bulkRechargeService;
+        this.reconciliationService = reconciliationService;
+        this.archiveService = archiveService;
     }
 
     /**
@@ -39,7 +56,15 @@ public class BillingController {
 
         try {
             TransactionResponse response = billingService.debiter(request);
-            return ResponseEntity.status(HttpStatus.CREATED).body(response);
+            // PENDING : user-service indisponible, le débit sera rejoué en arrière-plan
+            HttpStatus status = response.getStatus() == TransactionStatus.PENDING
+                    ? HttpStatus.ACCEPTED
+                    : HttpStatus.CREATED;
+            return ResponseEntity.status(status).body(response);
+        } catch (DataIntegrityViolationException e) {
+            // Débit concurrent du même trajet déjà enregistré : le rejeu renverra la transaction existante
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Débit déjà enregistré pour le trajet " + request.getTripId()));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -71,9 +96,211 @@ public class BillingController {
         }
     }
 
+    /**
+     * POST /api/billing/recharge/bulk (application/json)
+     * Recharge en masse — ADMIN uniquement.
+     * Corps : [{ "userId": "...", "montant": 5000 }, ...]
+     * Traitement asynchrone : renvoie 202 avec l'identifiant du job.
+     */
+    @PostMapping(value = "/recharge/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<?> rechargerEnMasse(
+            @RequestBody List<RechargeRequest> lignes,
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        try {
+            return ResponseEntity.accepted().body(bulkRechargeService.demarrer(lignes));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/billing/recharge/bulk (text/csv)
+     * Même traitement à partir d'un CSV "userId,montant" (en-tête facultatif).
+     */
+    @PostMapping(value = "/recharge/bulk", consumes = "text/csv")
+    public ResponseEntity<?> rechargerEnMasseCsv(
+            @RequestBody String contenu,
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        try {
+            return ResponseEntity.accepted()
+                    .body(bulkRechargeService.demarrer(bulkRechargeService.parserCsv(contenu)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/billing/recharge/bulk/{jobId}
+     * Progression d'une recharge en masse — ADMIN uniquement.
+     */
+    @GetMapping("/recharge/bulk/{jobId}")
+    public ResponseEntity<?> obtenirProgressionRecharge(
+            @PathVariable UUID jobId,
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        try {
+            BulkRechargeJobResponse progression = bulkRechargeService.obtenirProgression(jobId);
+            return ResponseEntity.ok(progression);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/billing/recharge/bulk/{jobId}/reprise
+     * Rejoue les lignes A_RECONCILIER d'un job terminé (mêmes clés d'idempotence :
+     * aucune ligne n'est créditée deux fois) — ADMIN uniquement.
+     */
+    @PostMapping("/recharge/bulk/{jobId}/reprise")
+    public ResponseEntity<?> reprendreRechargeEnMasse(
+            @PathVariable UUID jobId,
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        try {
+            return ResponseEntity.accepted().body(bulkRechargeService.reprendre(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/billing/recharge/bulk/{jobId}/resultats
+     * Fichier résultat CSV (une ligne par ligne soumise) — ADMIN uniquement.
+     */
+    @GetMapping("/recharge/bulk/{jobId}/resultats")
+    public ResponseEntity<?> exporterResultatsRecharge(
+            @PathVariable UUID jobId,
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        try {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .header("Content-Disposition", "attachment; filename=recharge-" + jobId + ".csv")
+                    .body(bulkRechargeService.exporterResultatsCsv(jobId));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * POST /api/billing/reconciliation
+     * Lance la réconciliation trajets / débits / soldes — ADMIN uniquement.
+     * Exécution en arrière-plan : 202, 409 si une exécution est déjà en cours.
+     */
+    @PostMapping("/reconciliation")
+    public ResponseEntity<?> lancerReconciliation(
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        try {
+            return ResponseEntity.accepted().body(reconciliationService.demarrer());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(409).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/billing/reconciliation/dernier
+     * Bilan de la dernière réconciliation (en cours ou terminée) — ADMIN uniquement.
+     */
+    @GetMapping("/reconciliation/dernier")
+    public ResponseEntity<?> obtenirDerniereReconciliation(
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        try {
+            return ResponseEntity.ok(reconciliationService.obtenirDernier());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/billing/reconciliation/dernier/ecarts
+     * Fichier CSV des écarts de la dernière réconciliation — ADMIN uniquement.
+     */
+    @GetMapping("/reconciliation/dernier/ecarts")
+    public ResponseEntity<?> exporterEcartsReconciliation(
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        try {
+            FileSystemResource fichier = new FileSystemResource(reconciliationService.fichierDernierRapport());
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType("text/csv"))
+                    .header("Content-Disposition", "attachment; filename=" + fichier.getFilename())
+                    .body(fichier);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    /**
+     * GET /api/billing/archives
+     * Mois de transactions archivés hors de la table chaude — ADMIN uniquement.
+     */
+    @GetMapping("/archives")
+    public ResponseEntity<?> listerArchives(
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        return ResponseEntity.ok(archiveService.listerArchives());
+    }
+
+    /**
+     * GET /api/billing/archives/{mois}
+     * Fichier CSV gzip d'un mois archivé (ex: 2026-07) — ADMIN uniquement.
+     */
+    @GetMapping("/archives/{mois}")
+    public ResponseEntity<?> telechargerArchive(
+            @PathVariable String mois,
+            @RequestHeader("X-User-Role") String userRole) {
+
+        if (!"ADMIN".equalsIgnoreCase(userRole)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Accès refusé"));
+        }
+        try {
+            FileSystemResource fichier = new FileSystemResource(archiveService.fichierArchive(mois));
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                    .header("Content-Disposition", "attachment; filename=" + fichier.getFilename())
+                    .body(fichier);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.status(404).body(Map.of("error", e.getMessage()));
+        }
+    }
+
     /**
      * GET /api/billing/history/{userId}
      * Historique des transactions — propriétaire OU ADMIN.
+     * Table chaude uniquement : les mois archivés sont dans /api/billing/archives.
      */
     @GetMapping("/history/{userId}")
     public ResponseEntity<?> obtenirHistorique(
@@ -0,0 +1,53 @@
+package com.smartmobility.billingservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * BulkRechargeJobResponse — progression d'une recharge en masse.
+ * Renvoyé à la soumission (202) puis par GET /api/billing/recharge/bulk/{jobId}.
+ */
+public class BulkRechargeJobResponse {
+
+    private UUID jobId;
+    private String statut;          // EN_COURS, TERMINE
+    private int totalLignes;
+    private int lignesTraitees;
+    private int succes;
+    private int echecs;
+    private int aReconcilier;       // résultat inconnu (timeout) : reprendre, ne pas resoumettre
+    private BigDecimal montantTotalRecharge;
+    private LocalDateTime demarreLe;
+    private LocalDateTime termineLe;
+
+    public UUID getJobId() { return jobId; }
+    public void setJobId(UUID jobId) { this.jobId = jobId; }
+
+    public String getStatut() { return statut; }
+    public void setStatut(String statut) { this.statut = statut; }
+
+    public int getTotalLignes() { return totalLignes; }
+    public void setTotalLignes(int totalLignes) { this.totalLignes = totalLignes; }
+
+    public int getLignesTraitees() { return lignesTraitees; }
+    public void setLignesTraitees(int lignesTraitees) { this.lignesTraitees = lignesTraitees; }
+
+    public int getSucces() { return succes; }
+    public void setSucces(int succes) { this.succes = succes; }
+
+    public int getEchecs() { return echecs; }
+    public void setEchecs(int echecs) { this.echecs = echecs; }
+
+    public int getAReconcilier() { return aReconcilier; }
+    public void setAReconcilier(int aReconcilier) { this.aReconcilier = aReconcilier; }
+
+    public BigDecimal getMontantTotalRecharge() { return montantTotalRecharge; }
+    public void setMontantTotalRecharge(BigDecimal montantTotalRecharge) { this.montantTotalRecharge = montantTotalRecharge; }
+
+    public LocalDateTime getDemarreLe() { return demarreLe; }
+    public void setDemarreLe(LocalDateTime demarreLe) { this.demarreLe = demarreLe; }
+
+    public LocalDateTime getTermineLe() { return termineLe; }
+    public void setTermineLe(LocalDateTime termineLe) { this.termineLe = termineLe; }
+}
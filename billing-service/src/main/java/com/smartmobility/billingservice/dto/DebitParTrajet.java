@@ -0,0 +1,24 @@
+package com.smartmobility.billingservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * DebitParTrajet — débits SUCCESS agrégés par trajet (projection JPQL).
+ */
+public class DebitParTrajet {
+
+    private final UUID tripId;
+    private final BigDecimal montant;
+    private final long nbDebits;
+
+    public DebitParTrajet(UUID tripId, BigDecimal montant, Long nbDebits) {
+        this.tripId = tripId;
+        this.montant = montant;
+        this.nbDebits = nbDebits != null ? nbDebits : 0L;
+    }
+
+    public UUID getTripId() { return tripId; }
+    public BigDecimal getMontant() { return montant; }
+    public long getNbDebits() { return nbDebits; }
+}
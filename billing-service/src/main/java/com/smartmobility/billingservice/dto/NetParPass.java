@@ -0,0 +1,22 @@
+package com.smartmobility.billingservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * NetParPass — recharges moins débits SUCCESS d'un pass (projection JPQL).
+ * Doit être égal au solde du pass côté user-service (le pass démarre à 0).
+ */
+public class NetParPass {
+
+    private final UUID passId;
+    private final BigDecimal net;
+
+    public NetParPass(UUID passId, BigDecimal net) {
+        this.passId = passId;
+        this.net = net != null ? net : BigDecimal.ZERO;
+    }
+
+    public UUID getPassId() { return passId; }
+    public BigDecimal getNet() { return net; }
+}
@@ -0,0 +1,34 @@
+package com.smartmobility.billingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * PassSoldeRow — miroir du record PassSoldeRow du user-service.
+ * Solde courant d'un pass, lu par lots triés par passId.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class PassSoldeRow {
+
+    private UUID passId;
+    private UUID userId;       // null si pass orphelin
+    private BigDecimal solde;
+    private String status;
+
+    public PassSoldeRow() {
+    }
+
+    public UUID getPassId() { return passId; }
+    public void setPassId(UUID passId) { this.passId = passId; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public BigDecimal getSolde() { return solde; }
+    public void setSolde(BigDecimal solde) { this.solde = solde; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+}
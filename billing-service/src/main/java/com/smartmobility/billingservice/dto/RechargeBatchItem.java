@@ -0,0 +1,35 @@
+package com.smartmobility.billingservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * RechargeBatchItem — une ligne envoyée à user-service
+ * (POST /internal/users/passes/recharger).
+ * cle : clé d'idempotence (jobId + numéro de ligne), une ligne renvoyée
+ * avec la même clé n'est créditée qu'une fois.
+ */
+public class RechargeBatchItem {
+
+    private UUID userId;
+    private BigDecimal montant;
+    private String cle;
+
+    public RechargeBatchItem() {
+    }
+
+    public RechargeBatchItem(UUID userId, BigDecimal montant, String cle) {
+        this.userId = userId;
+        this.montant = montant;
+        this.cle = cle;
+    }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public BigDecimal getMontant() { return montant; }
+    public void setMontant(BigDecimal montant) { this.montant = montant; }
+
+    public String getCle() { return cle; }
+    public void setCle(String cle) { this.cle = cle; }
+}
@@ -0,0 +1,38 @@
+package com.smartmobility.billingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * RechargeBatchResult — miroir du record RechargeBatchResult du user-service.
+ * Une entrée par ligne envoyée, dans le même ordre.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class RechargeBatchResult {
+
+    private UUID userId;
+    private UUID passId;       // null si le pass n'a pas été trouvé
+    private boolean succes;
+    private BigDecimal soldeApres;
+    private String erreur;
+
+    public RechargeBatchResult() {
+    }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public UUID getPassId() { return passId; }
+    public void setPassId(UUID passId) { this.passId = passId; }
+
+    public boolean isSucces() { return succes; }
+    public void setSucces(boolean succes) { this.succes = succes; }
+
+    public BigDecimal getSoldeApres() { return soldeApres; }
+    public void setSoldeApres(BigDecimal soldeApres) { this.soldeApres = soldeApres; }
+
+    public String getErreur() { return erreur; }
+    public void setErreur(String erreur) { this.erreur = erreur; }
+}
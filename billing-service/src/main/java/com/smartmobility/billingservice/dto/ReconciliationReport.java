@@ -0,0 +1,69 @@
+package com.smartmobility.billingservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * ReconciliationReport — bilan d'une réconciliation trajets / débits / soldes.
+ * Le détail ligne par ligne est dans le fichier CSV référencé par "fichier".
+ */
+public class ReconciliationReport {
+
+    private UUID id;
+    private String declencheur;         // CRON, ADMIN
+    private String statut;              // EN_COURS, TERMINE, ECHEC
+    private LocalDateTime demarreLe;
+    private LocalDateTime termineLe;
+    private LocalDateTime coupure;      // seules les données antérieures sont rapprochées
+    private LocalDateTime debutTableChaude; // trajets et débits antérieurs archivés, non rapprochés
+    private long trajetsLus;
+    private long debitsLus;
+    private long passLus;
+    private long ecarts;
+    private Map<String, Long> ecartsParType;
+    private String fichier;
+    private String erreur;
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public String getDeclencheur() { return declencheur; }
+    public void setDeclencheur(String declencheur) { this.declencheur = declencheur; }
+
+    public String getStatut() { return statut; }
+    public void setStatut(String statut) { this.statut = statut; }
+
+    public LocalDateTime getDemarreLe() { return demarreLe; }
+    public void setDemarreLe(LocalDateTime demarreLe) { this.demarreLe = demarreLe; }
+
+    public LocalDateTime getTermineLe() { return termineLe; }
+    public void setTermineLe(LocalDateTime termineLe) { this.termineLe = termineLe; }
+
+    public LocalDateTime getCoupure() { return coupure; }
+    public void setCoupure(LocalDateTime coupure) { this.coupure = coupure; }
+
+    public LocalDateTime getDebutTableChaude() { return debutTableChaude; }
+    public void setDebutTableChaude(LocalDateTime debutTableChaude) { this.debutTableChaude = debutTableChaude; }
+
+    public long getTrajetsLus() { return trajetsLus; }
+    public void setTrajetsLus(long trajetsLus) { this.trajetsLus = trajetsLus; }
+
+    public long getDebitsLus() { return debitsLus; }
+    public void setDebitsLus(long debitsLus) { this.debitsLus = debitsLus; }
+
+    public long getPassLus() { return passLus; }
+    public void setPassLus(long passLus) { this.passLus = passLus; }
+
+    public long getEcarts() { return ecarts; }
+    public void setEcarts(long ecarts) { this.ecarts = ecarts; }
+
+    public Map<String, Long> getEcartsParType() { return ecartsParType; }
+    public void setEcartsParType(Map<String, Long> ecartsParType) { this.ecartsParType = ecartsParType; }
+
+    public String getFichier() { return fichier; }
+    public void setFichier(String fichier) { this.fichier = fichier; }
+
+    public String getErreur() { return erreur; }
+    public void setErreur(String erreur) { this.erreur = erreur; }
+}
@@ -0,0 +1,43 @@
+package com.smartmobility.billingservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * TripSettlementRow — miroir du TripSettlementRow du trip-service.
+ * Un trajet tarifé, lu par lots triés par id pour la réconciliation.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TripSettlementRow {
+
+    private UUID id;
+    private UUID userId;
+    private UUID passId;
+    private String status;          // IN_PROGRESS, COMPLETED, CANCELLED
+    private BigDecimal computedFare;
+    private LocalDateTime createdAt;
+
+    public TripSettlementRow() {
+    }
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public UUID getPassId() { return passId; }
+    public void setPassId(UUID passId) { this.passId = passId; }
+
+    public String getStatus() { return status; }
+    public void setStatus(String status) { this.status = status; }
+
+    public BigDecimal getComputedFare() { return computedFare; }
+    public void setComputedFare(BigDecimal computedFare) { this.computedFare = computedFare; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+}
@@ -0,0 +1,7 @@
+package com.smartmobility.billingservice.entity;
+
+public enum ArchiveStatus {
+    EN_COURS,  // Export du mois en cours (sert aussi de verrou entre instances)
+    EXPORTE,   // Fichier écrit + totaux par pass reportés, purge de la table chaude en cours
+    PURGE      // Mois entièrement sorti de la table transactions
+}
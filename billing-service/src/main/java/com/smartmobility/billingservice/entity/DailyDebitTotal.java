@@ -0,0 +1,45 @@
+package com.smartmobility.billingservice.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * Total des débits SUCCESS d'un pass pour une journée.
+ *
+ * Maintenu dans la même transaction que chaque débit réussi : le plafond
+ * journalier lu par pricing-service ne demande plus de SUM sur les transactions.
+ */
+@Entity
+@Table(name = "daily_debit_totals", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_debit_totals_pass_jour", columnNames = {"pass_id", "jour"})
+})
+public class DailyDebitTotal {
+
+    @Id
+    private UUID id;
+
+    @Column(name = "pass_id", nullable = false)
+    private UUID passId;
+
+    @Column(nullable = false)
+    private LocalDate jour;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal total;
+
+    // ── Getters / Setters ─────────────────────────────────────────────────────
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getPassId() { return passId; }
+    public void setPassId(UUID passId) { this.passId = passId; }
+
+    public LocalDate getJour() { return jour; }
+    public void setJour(LocalDate jour) { this.jour = jour; }
+
+    public BigDecimal getTotal() { return total; }
+    public void setTotal(BigDecimal total) { this.total = total; }
+}
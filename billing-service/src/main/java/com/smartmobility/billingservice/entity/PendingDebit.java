@@ -0,0 +1,102 @@
+package com.smartmobility.billingservice.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Débit en file de reprise.
+ *
+ * Créé quand user-service est indisponible (timeout, 5xx) au moment du débit
+ * d'un trajet. Le trajet est déjà créé côté trip-service : on ne perd pas la
+ * recette, un worker rejoue le débit avec un backoff exponentiel.
+ *
+ * tripId est unique → un même trajet n'est jamais mis deux fois en file.
+ */
+@Entity
+@Table(name = "pending_debits", indexes = {
+        @Index(name = "idx_pending_debits_status_next", columnList = "status, prochaine_tentative")
+})
+public class PendingDebit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "trip_id", nullable = false, unique = true)
+    private UUID tripId;
+
+    @Column(nullable = false)
+    private UUID userId;
+
+    @Column(nullable = false, precision = 10, scale = 2)
+    private BigDecimal montant;
+
+    private String description;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PendingDebitStatus status;
+
+    @Column(nullable = false)
+    private int tentatives;
+
+    @Column(name = "prochaine_tentative", nullable = false)
+    private LocalDateTime prochaineTentative;
+
+    // Bail du worker : au-delà, une instance plantée libère le débit
+    private LocalDateTime verrouilleJusqua;
+
+    @Column(length = 500)
+    private String derniereErreur;
+
+    // Transaction finale (SUCCESS ou FAILED) une fois le débit traité
+    private UUID transactionId;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime updatedAt;
+
+    // ── Getters / Setters ─────────────────────────────────────────────────────
+
+    public UUID getId() { return id; }
+    public void setId(UUID id) { this.id = id; }
+
+    public UUID getTripId() { return tripId; }
+    public void setTripId(UUID tripId) { this.tripId = tripId; }
+
+    public UUID getUserId() { return userId; }
+    public void setUserId(UUID userId) { this.userId = userId; }
+
+    public BigDecimal getMontant() { return montant; }
+    public void setMontant(BigDecimal montant) { this.montant = montant; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public PendingDebitStatus getStatus() { return status; }
+    public void setStatus(PendingDebitStatus status) { this.status = status; }
+
+    public int getTentatives() { return tentatives; }
+    public void setTentatives(int tentatives) { this.tentatives = tentatives; }
+
+    public LocalDateTime getProchaineTentative() { return prochaineTentative; }
+    public void setProchaineTentative(LocalDateTime prochaineTentative) { this.prochaineTentative = prochaineTentative; }
+
+    public LocalDateTime getVerrouilleJusqua() { return verrouilleJusqua; }
+    public void setVerrouilleJusqua(LocalDateTime verrouilleJusqua) { this.verrouilleJusqua = verrouilleJusqua; }
+
+    public String getDerniereErreur() { return derniereErreur; }
+    public void setDerniereErreur(String derniereErreur) { this.derniereErreur = derniereErreur; }
+
+    public UUID getTransactionId() { return transactionId; }
+    public void setTransactionId(UUID transactionId) { this.transactionId = transactionId; }
+
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,8 @@
+package com.smartmobility.billingservice.entity;
+
+public enum PendingDebitStatus {
+    PENDING,      // En attente de la prochaine tentative
+    IN_PROGRESS,  // Réservé par un worker (bail limité dans le temps)
+    DONE,         // Débit effectué — transaction SUCCESS créée
+    ABANDONED     // Refus métier ou nombre max de tentatives atteint
+}
@@ -6,7 +6,16 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Idempotence des débits : recherche par trajet à chaque débit
+        @Index(name = "idx_transactions_trip_id", columnList = "trip_id"),
+        // Reconstruction du total journalier d'un pass
+        @Index(name = "idx_transactions_pass_created", columnList = "pass_id, created_at"),
+        // Historique d'un utilisateur (trié par date)
+        @Index(name = "idx_transactions_user_created", columnList = "user_id, created_at"),
+        // Stats du jour et archivage par mois
+        @Index(name = "idx_transactions_created", columnList = "created_at")
+})
 public class Transaction {
 
     @Id
@@ -24,6 +33,11 @@ public class Transaction {
     // tripId — UUID, null si c'est une recharge
     private UUID tripId;
 
+    // = tripId pour un DEBIT réussi, null sinon : l'index unique interdit
+    // deux débits réussis du même trajet (MySQL n'a pas d'index partiel)
+    @Column(name = "debit_reussi_trip_id", unique = true)
+    private UUID debitReussiTripId;
+
     // BigDecimal pour la précision financière (comme trip-service)
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal montant;
@@ -62,6 +76,9 @@ public class Transaction {
     public UUID getTripId() { return tripId; }
     public void setTripId(UUID tripId) { this.tripId = tripId; }
 
+    public UUID getDebitReussiTripId() { return debitReussiTripId; }
+    public void setDebitReussiTripId(UUID debitReussiTripId) { this.debitReussiTripId = debitReussiTripId; }
+
     public BigDecimal getMontant() { return montant; }
     public void setMontant(BigDecimal montant) { this.montant = montant; }
 
@@ -0,0 +1,55 @@
+package com.smartmobility.billingservice.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Un mois de transactions archivé hors de la table chaude.
+ *
+ * Les lignes du mois sont exportées dans un fichier CSV gzip (stockage froid),
+ * les nets par pass reportés dans transaction_archive_totals, puis supprimées
+ * de la table transactions.
+ */
+@Entity
+@Table(name = "transaction_archives")
+public class TransactionArchive {
+
+    // "2026-07"
+    @Id
+    @Column(length = 7)
+    private String mois;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private ArchiveStatus statut;
+
+    @Column(length = 500)
+    private String fichier;
+
+    private long nbTransactions;
+
+    @Column(nullable = false)
+    private LocalDateTime demarreLe;
+
+    private LocalDateTime termineLe;
+
+    // ── Getters / Setters ─────────────────────────────────────────────────────
+
+    public String getMois() { return mois; }
+    public void setMois(String mois) { this.mois = mois; }
+
+    public ArchiveStatus getStatut() { return statut; }
+    public void setStatut(ArchiveStatus statut) { this.statut = statut; }
+
+    public String getFichier() { return fichier; }
+    public void setFichier(String fichier) { this.fichier = fichier; }
+
+    public long getNbTransactions() { return nbTransactions; }
+    public void setNbTransactions(long nbTransactions) { this.nbTransactions = nbTransactions; }
+
+    public LocalDateTime getDemarreLe() { return demarreLe; }
+    public void setDemarreLe(LocalDateTime demarreLe) { this.demarreLe = demarreLe; }
+
+    public LocalDateTime getTermineLe() { return termineLe; }
+    public void setTermineLe(LocalDateTime termineLe) { this.termineLe = termineLe; }
+}
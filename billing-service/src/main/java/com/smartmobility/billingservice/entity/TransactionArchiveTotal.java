@@ -0,0 +1,29 @@
+package com.smartmobility.billingservice.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Net (recharges − débits SUCCESS) des transactions archivées d'un pass.
+ * Solde attendu d'un pass = ce net + net des transactions encore dans la table chaude.
+ */
+@Entity
+@Table(name = "transaction_archive_totals")
+public class TransactionArchiveTotal {
+
+    @Id
+    @Column(name = "pass_id")
+    private UUID passId;
+
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal net;
+
+    // ── Getters / Setters ─────────────────────────────────────────────────────
+
+    public UUID getPassId() { return passId; }
+    public void setPassId(UUID passId) { this.passId = passId; }
+
+    public BigDecimal getNet() { return net; }
+    public void setNet(BigDecimal net) { this.net = net; }
+}
@@ -2,5 +2,6 @@ package com.smartmobility.billingservice.entity;
 
 public enum TransactionStatus {
     SUCCESS,  // Débit ou recharge effectué avec succès
-    FAILED    // Echec : solde insuffisant, pass suspendu/expiré
+    FAILED,   // Echec : solde insuffisant, pass suspendu/expiré
+    PENDING   // Réponse uniquement : débit en file de reprise (jamais persisté en base)
 }
\ No newline at end of file
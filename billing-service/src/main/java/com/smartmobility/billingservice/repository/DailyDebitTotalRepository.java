@@ -0,0 +1,47 @@
+package com.smartmobility.billingservice.repository;
+
+import com.smartmobility.billingservice.entity.DailyDebitTotal;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface DailyDebitTotalRepository extends JpaRepository<DailyDebitTotal, UUID> {
+
+    Optional<DailyDebitTotal> findByPassIdAndJour(UUID passId, LocalDate jour);
+
+    /**
+     * Incrément atomique (verrou de ligne). Retourne 0 si la ligne du jour n'existe pas encore.
+     */
+    @Modifying
+    @Query("UPDATE DailyDebitTotal d SET d.total = d.total + :montant " +
+            "WHERE d.passId = :passId AND d.jour = :jour")
+    int incrementer(@Param("passId") UUID passId,
+                    @Param("jour") LocalDate jour,
+                    @Param("montant") BigDecimal montant);
+
+    /**
+     * Crée la ligne du jour. INSERT IGNORE : si une autre transaction l'a créée
+     * entre-temps (contrainte unique pass_id + jour), retourne 0 sans exception.
+     */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO daily_debit_totals (id, pass_id, jour, total) " +
+            "VALUES (:id, :passId, :jour, :total)", nativeQuery = true)
+    int insererSiAbsent(@Param("id") UUID id,
+                        @Param("passId") UUID passId,
+                        @Param("jour") LocalDate jour,
+                        @Param("total") BigDecimal total);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DailyDebitTotal d WHERE d.jour < :limite")
+    int supprimerAvant(@Param("limite") LocalDate limite);
+}
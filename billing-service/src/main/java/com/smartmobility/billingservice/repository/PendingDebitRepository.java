@@ -0,0 +1,70 @@
+package com.smartmobility.billingservice.repository;
+
+import com.smartmobility.billingservice.entity.PendingDebit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface PendingDebitRepository extends JpaRepository<PendingDebit, UUID> {
+
+    Optional<PendingDebit> findByTripId(UUID tripId);
+
+    /**
+     * Débits dont la prochaine tentative est échue, les plus anciens d'abord.
+     * ⚠️ Hibernate 7 : enums en HQL doivent être qualifiés avec le FQCN.
+     */
+    @Query("SELECT p FROM PendingDebit p " +
+            "WHERE p.status = com.smartmobility.billingservice.entity.PendingDebitStatus.PENDING " +
+            "AND p.prochaineTentative <= :maintenant " +
+            "ORDER BY p.prochaineTentative")
+    List<PendingDebit> findDus(@Param("maintenant") LocalDateTime maintenant, Pageable pageable);
+
+    /**
+     * Réserve un débit pour un worker. Retourne 0 si une autre instance l'a déjà pris.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PendingDebit p " +
+            "SET p.status = com.smartmobility.billingservice.entity.PendingDebitStatus.IN_PROGRESS, " +
+            "p.verrouilleJusqua = :bail " +
+            "WHERE p.id = :id " +
+            "AND p.status = com.smartmobility.billingservice.entity.PendingDebitStatus.PENDING")
+    int reserver(@Param("id") UUID id, @Param("bail") LocalDateTime bail);
+
+    /**
+     * Prise effective du débit au démarrage de la tâche : le bail posé par reserver()
+     * sert de jeton. Retourne 0 si le bail a expiré entre-temps (débit remis en file,
+     * éventuellement réservé par une autre tâche) : la tâche ne doit rien faire.
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PendingDebit p " +
+            "SET p.verrouilleJusqua = :nouveauBail " +
+            "WHERE p.id = :id " +
+            "AND p.status = com.smartmobility.billingservice.entity.PendingDebitStatus.IN_PROGRESS " +
+            "AND p.verrouilleJusqua = :jeton")
+    int demarrer(@Param("id") UUID id,
+                 @Param("jeton") LocalDateTime jeton,
+                 @Param("nouveauBail") LocalDateTime nouveauBail);
+
+    /**
+     * Remet en file les débits dont le bail a expiré (instance arrêtée en cours de traitement).
+     */
+    @Modifying
+    @Transactional
+    @Query("UPDATE PendingDebit p " +
+            "SET p.status = com.smartmobility.billingservice.entity.PendingDebitStatus.PENDING " +
+            "WHERE p.status = com.smartmobility.billingservice.entity.PendingDebitStatus.IN_PROGRESS " +
+            "AND p.verrouilleJusqua < :maintenant")
+    int libererBauxExpires(@Param("maintenant") LocalDateTime maintenant);
+}
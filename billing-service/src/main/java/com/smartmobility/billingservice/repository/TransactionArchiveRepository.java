@@ -0,0 +1,23 @@
+package com.smartmobility.billingservice.repository;
+
+import com.smartmobility.billingservice.entity.TransactionArchive;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TransactionArchiveRepository extends JpaRepository<TransactionArchive, String> {
+
+    List<TransactionArchive> findAllByOrderByMoisDesc();
+
+    /**
+     * Dernier mois dont les totaux sont reportés (EXPORTE ou PURGE).
+     * Les transactions antérieures ne font plus partie de la table chaude.
+     * ⚠️ Hibernate 7 : enums en HQL doivent être qualifiés avec le FQCN.
+     */
+    @Query("SELECT MAX(a.mois) FROM TransactionArchive a " +
+            "WHERE a.statut <> com.smartmobility.billingservice.entity.ArchiveStatus.EN_COURS")
+    String findDernierMoisArchive();
+}
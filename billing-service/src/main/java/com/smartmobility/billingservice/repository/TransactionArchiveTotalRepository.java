@@ -0,0 +1,39 @@
+package com.smartmobility.billingservice.repository;
+
+import com.smartmobility.billingservice.dto.NetParPass;
+import com.smartmobility.billingservice.entity.TransactionArchiveTotal;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface TransactionArchiveTotalRepository extends JpaRepository<TransactionArchiveTotal, UUID> {
+
+    /**
+     * Reporte les nets par pass d'un mois archivé (INSERT ... SELECT groupé, côté MySQL).
+     * status est persisté en ORDINAL, type en STRING : valeurs passées en paramètres.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO transaction_archive_totals (pass_id, net) " +
+            "SELECT t.pass_id, SUM(CASE WHEN t.type = :credit THEN t.montant ELSE -t.montant END) " +
+            "FROM transactions t " +
+            "WHERE t.status = :succes AND t.created_at >= :debut AND t.created_at < :fin " +
+            "GROUP BY t.pass_id " +
+            "ON DUPLICATE KEY UPDATE net = net + VALUES(net)", nativeQuery = true)
+    int reporterNets(@Param("credit") String credit,
+                     @Param("succes") int succes,
+                     @Param("debut") LocalDateTime debut,
+                     @Param("fin") LocalDateTime fin);
+
+    /** Nets archivés triés par passId (pagination keyset) — réconciliation. */
+    @Query("SELECT new com.smartmobility.billingservice.dto.NetParPass(a.passId, a.net) " +
+            "FROM TransactionArchiveTotal a WHERE a.passId > :apres ORDER BY a.passId")
+    List<NetParPass> findNetsParPass(@Param("apres") UUID apres, Pageable pageable);
+}
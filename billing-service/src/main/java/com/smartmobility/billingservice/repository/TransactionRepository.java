@@ -1,12 +1,17 @@
 package com.smartmobility.billingservice.repository;
 
+import com.smartmobility.billingservice.dto.DebitParTrajet;
+import com.smartmobility.billingservice.dto.NetParPass;
 import com.smartmobility.billingservice.entity.Transaction;
 import com.smartmobility.billingservice.entity.TransactionStatus;
 import com.smartmobility.billingservice.entity.TransactionType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -22,8 +27,6 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
 
     List<Transaction> findByTripId(UUID tripId);
 
-    List<Transaction> findAllByOrderByCreatedAtDesc();
-
     List<Transaction> findByStatusOrderByCreatedAtDesc(TransactionStatus status);
 
     /**
@@ -38,4 +41,77 @@ public interface TransactionRepository extends JpaRepository<Transaction, UUID>
             "AND t.createdAt >= :debutJour")
     BigDecimal sumDebitsJourByPassId(@Param("passId") UUID passId,
                                      @Param("debutJour") LocalDateTime debutJour);
-}
\ No newline at end of file
+
+    // ── Réconciliation (pagination keyset, lots triés) ───────────────────────
+
+    /**
+     * Débits SUCCESS agrégés par trajet, triés par tripId (tripId > apres).
+     */
+    @Query("SELECT new com.smartmobility.billingservice.dto.DebitParTrajet(t.tripId, SUM(t.montant), COUNT(t)) " +
+            "FROM Transaction t " +
+            "WHERE t.tripId IS NOT NULL AND t.tripId > :apres " +
+            "AND t.type = com.smartmobility.billingservice.entity.TransactionType.DEBIT " +
+            "AND t.status = com.smartmobility.billingservice.entity.TransactionStatus.SUCCESS " +
+            "AND t.createdAt >= :depuis AND t.createdAt < :avant " +
+            "GROUP BY t.tripId ORDER BY t.tripId")
+    List<DebitParTrajet> findDebitsParTrajet(@Param("apres") UUID apres,
+                                             @Param("depuis") LocalDateTime depuis,
+                                             @Param("avant") LocalDateTime avant,
+                                             Pageable pageable);
+
+    /**
+     * Net (recharges − débits SUCCESS) par pass, trié par passId (passId > apres).
+     */
+    @Query("SELECT new com.smartmobility.billingservice.dto.NetParPass(t.passId, " +
+            "SUM(CASE WHEN t.type = com.smartmobility.billingservice.entity.TransactionType.CREDIT " +
+            "THEN t.montant ELSE -t.montant END)) " +
+            "FROM Transaction t " +
+            "WHERE t.passId > :apres AND t.createdAt >= :depuis " +
+            "AND t.status = com.smartmobility.billingservice.entity.TransactionStatus.SUCCESS " +
+            "GROUP BY t.passId ORDER BY t.passId")
+    List<NetParPass> findNetsParPass(@Param("apres") UUID apres,
+                                     @Param("depuis") LocalDateTime depuis,
+                                     Pageable pageable);
+
+    @Query("SELECT COALESCE(SUM(CASE WHEN t.type = com.smartmobility.billingservice.entity.TransactionType.CREDIT " +
+            "THEN t.montant ELSE -t.montant END), 0) " +
+            "FROM Transaction t " +
+            "WHERE t.passId = :passId AND t.createdAt >= :depuis " +
+            "AND t.status = com.smartmobility.billingservice.entity.TransactionStatus.SUCCESS")
+    BigDecimal netParPass(@Param("passId") UUID passId, @Param("depuis") LocalDateTime depuis);
+
+    // ── Stats et archivage ────────────────────────────────────────────────────
+
+    /**
+     * Nombre et montant des transactions depuis une date, par type et statut.
+     * Lignes : [TransactionType, TransactionStatus, Long, BigDecimal].
+     */
+    @Query("SELECT t.type, t.status, COUNT(t), COALESCE(SUM(t.montant), 0) FROM Transaction t " +
+            "WHERE t.createdAt >= :depuis GROUP BY t.type, t.status")
+    List<Object[]> statsDepuis(@Param("depuis") LocalDateTime depuis);
+
+    @Query("SELECT MIN(t.createdAt) FROM Transaction t")
+    LocalDateTime findPlusAncienneDate();
+
+    /**
+     * Transactions d'une période triées par (createdAt, id), lot après (apresDate, apresId).
+     * Parcours de l'index created_at (InnoDB y ajoute la clé primaire).
+     */
+    @Query("SELECT t FROM Transaction t " +
+            "WHERE t.createdAt < :fin " +
+            "AND (t.createdAt > :apresDate OR (t.createdAt = :apresDate AND t.id > :apresId)) " +
+            "ORDER BY t.createdAt, t.id")
+    List<Transaction> findLotPeriode(@Param("apresDate") LocalDateTime apresDate,
+                                     @Param("apresId") UUID apresId,
+                                     @Param("fin") LocalDateTime fin,
+                                     Pageable pageable);
+
+    /** Purge par tranches : chaque appel est une transaction courte. */
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM transactions WHERE created_at >= :debut AND created_at < :fin LIMIT :limite",
+            nativeQuery = true)
+    int purgerTranche(@Param("debut") LocalDateTime debut,
+                      @Param("fin") LocalDateTime fin,
+                      @Param("limite") int limite);
+}
@@ -2,13 +2,17 @@ package com.smartmobility.billingservice.service;
 
 import com.smartmobility.billingservice.client.UserServiceClient;
 import com.smartmobility.billingservice.dto.*;
+import com.smartmobility.billingservice.entity.PendingDebit;
+import com.smartmobility.billingservice.entity.PendingDebitStatus;
 import com.smartmobility.billingservice.entity.Transaction;
 import com.smartmobility.billingservice.entity.TransactionStatus;
 import com.smartmobility.billingservice.entity.TransactionType;
 import com.smartmobility.billingservice.exception.TransactionNotFoundException;
+import com.smartmobility.billingservice.repository.PendingDebitRepository;
 import com.smartmobility.billingservice.repository.TransactionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -31,55 +35,61 @@ public class BillingService {
 
     private final TransactionRepository transactionRepository;
     private final UserServiceClient userServiceClient;
+    private final PendingDebitRepository pendingDebitRepository;
+    private final DebitRetryQueue debitRetryQueue;
+    private final DailyDebitTotalService dailyDebitTotalService;
 
     public BillingService(TransactionRepository transactionRepository,
-                          UserServiceClient userServiceClient) {
+                          UserServiceClient userServiceClient,
+                          PendingDebitRepository pendingDebitRepository,
+                          DebitRetryQueue debitRetryQueue,
+                          DailyDebitTotalService dailyDebitTotalService) {
         this.transactionRepository = transactionRepository;
         this.userServiceClient = userServiceClient;
+        this.pendingDebitRepository = pendingDebitRepository;
+        this.debitRetryQueue = debitRetryQueue;
+        this.dailyDebitTotalService = dailyDebitTotalService;
     }
 
     // ── Débiter après un trajet ───────────────────────────────────────────────
 
+    /**
+     * Débit d'un trajet, idempotent sur tripId :
+     *   - ici : index unique debit_reussi_trip_id (un seul DEBIT réussi par trajet) ;
+     *   - côté user-service : tripId envoyé en Idempotency-Key, un débit rejoué
+     *     après un timeout (déjà commité là-bas) n'est pas réappliqué.
+     * Si user-service est indisponible (timeout, 5xx), le débit est mis en file
+     * de reprise et la réponse porte le statut PENDING au lieu d'un échec.
+     */
     public TransactionResponse debiter(DebitRequest request) {
 
-        Transaction transaction = new Transaction();
-        transaction.setUserId(request.getUserId());
-        transaction.setTripId(request.getTripId());
-        transaction.setMontant(request.getMontant());
-        transaction.setType(TransactionType.DEBIT);
-        transaction.setCreatedAt(LocalDateTime.now());
-        transaction.setDescription(request.getDescription() != null
+        // Idempotence : un trajet déjà débité (ou en file) n'est pas débité deux fois
+        if (request.getTripId() != null) {
+            TransactionResponse existant = trouverDebitExistant(request.getTripId());
+            if (existant != null) {
+                return existant;
+            }
+        }
+
+        String description = request.getDescription() != null
                 ? request.getDescription()
-                : "Paiement trajet #" + request.getTripId());
+                : "Paiement trajet #" + request.getTripId();
+        Transaction transaction = nouveauDebit(request.getUserId(), request.getTripId(),
+                request.getMontant(), description);
 
         try {
-            // Récupère d'abord le pass pour avoir le passId
-            PassResponse passInfo = userServiceClient.getPass(
-                    request.getUserId(),
-                    request.getUserId().toString(),
-                    INTERNAL_ROLE
-            );
-
-            UUID passId = passInfo.getId();
-            transaction.setPassId(passId);
-
-            // Débite le solde
-            PassResponse passResponse = userServiceClient.debiterSolde(
-                    request.getUserId(),
-                    new UpdateSoldeRequest(request.getMontant()),
-                    request.getUserId().toString(),
-                    INTERNAL_ROLE
-            );
-
-            transaction.setSoldeApres(passResponse.getSolde());
-            transaction.setStatus(TransactionStatus.SUCCESS);
-            Transaction saved = transactionRepository.save(transaction);
-
-            TransactionResponse response = mapToResponse(saved);
-            response.setSoldeApresOperation(passResponse.getSolde());
-            return response;
+            return enregistrerDebitReussi(transaction, appelerDebit(transaction));
 
+        } catch (DataIntegrityViolationException e) {
+            // Débit concurrent du même trajet déjà enregistré (user-service ne l'a appliqué qu'une fois)
+            throw e;
         } catch (Exception e) {
+            if (request.getTripId() != null && DebitRetryQueue.estTransitoire(e)) {
+                log.warn("user-service indisponible, débit du trajet {} mis en file : {}",
+                        request.getTripId(), e.getMessage());
+                debitRetryQueue.mettreEnFile(request, description, e.getMessage());
+                return reponseEnAttente(request.getUserId(), request.getTripId(), request.getMontant());
+            }
             log.error("Débit échoué pour userId={} : {}", request.getUserId(), e.getMessage());
             transaction.setStatus(TransactionStatus.FAILED);
             transaction.setDescription("ÉCHEC - " + e.getMessage());
@@ -89,6 +99,64 @@ public class BillingService {
         }
     }
 
+    // ── Reprise d'un débit en file (appelé par DebitRetryWorker) ──────────────
+
+    public void reprendreDebit(UUID pendingDebitId) {
+        PendingDebit pending = pendingDebitRepository.findById(pendingDebitId).orElse(null);
+        if (pending == null || pending.getStatus() != PendingDebitStatus.IN_PROGRESS) {
+            return;
+        }
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        // Débit déjà enregistré (appel direct concurrent) : rien à rejouer
+        Transaction dejaDebite = debitReussi(pending.getTripId());
+        if (dejaDebite != null) {
+            pending.setStatus(PendingDebitStatus.DONE);
+            pending.setTransactionId(dejaDebite.getId());
+            pending.setVerrouilleJusqua(null);
+            pending.setUpdatedAt(maintenant);
+            pendingDebitRepository.save(pending);
+            return;
+        }
+
+        pending.setTentatives(pending.getTentatives() + 1);
+        pending.setUpdatedAt(maintenant);
+        pending.setVerrouilleJusqua(null);
+
+        Transaction transaction = nouveauDebit(pending.getUserId(), pending.getTripId(),
+                pending.getMontant(), pending.getDescription());
+        try {
+            TransactionResponse response = enregistrerDebitReussi(transaction, appelerDebit(transaction));
+            pending.setStatus(PendingDebitStatus.DONE);
+            pending.setTransactionId(response.getId());
+            pending.setDerniereErreur(null);
+            log.info("Débit du trajet {} rejoué avec succès (tentative {})",
+                    pending.getTripId(), pending.getTentatives());
+
+        } catch (DataIntegrityViolationException e) {
+            // Débit enregistré entre-temps par un appel direct : annulé ici, la prochaine reprise passe en DONE
+            throw e;
+        } catch (Exception e) {
+            pending.setDerniereErreur(DebitRetryQueue.tronquer(e.getMessage()));
+            if (DebitRetryQueue.estTransitoire(e) && pending.getTentatives() < debitRetryQueue.getMaxTentatives()) {
+                pending.setStatus(PendingDebitStatus.PENDING);
+                pending.setProchaineTentative(debitRetryQueue.prochaineTentative(pending.getTentatives()));
+            } else {
+                log.error("Débit du trajet {} abandonné après {} tentatives : {}",
+                        pending.getTripId(), pending.getTentatives(), e.getMessage());
+                pending.setStatus(PendingDebitStatus.ABANDONED);
+                // Le passId n'est connu que si user-service a répondu au moins une fois
+                if (transaction.getPassId() != null) {
+                    transaction.setStatus(TransactionStatus.FAILED);
+                    transaction.setDescription("ÉCHEC - " + e.getMessage());
+                    transaction.setSoldeApres(BigDecimal.ZERO);
+                    pending.setTransactionId(transactionRepository.save(transaction).getId());
+                }
+            }
+        }
+        pendingDebitRepository.save(pending);
+    }
+
     // ── Recharger le solde ────────────────────────────────────────────────────
 
     public TransactionResponse recharger(RechargeRequest request) {
@@ -141,9 +209,7 @@ public class BillingService {
 
     @Transactional(readOnly = true)
     public BigDecimal getDailyTotal(UUID passId) {
-        LocalDateTime debutJour = LocalDate.now().atStartOfDay();
-        BigDecimal total = transactionRepository.sumDebitsJourByPassId(passId, debutJour);
-        return total != null ? total : BigDecimal.ZERO;
+        return dailyDebitTotalService.totalDuJour(passId);
     }
 
     // ── Historique complet d'un utilisateur ───────────────────────────────────
@@ -169,34 +235,121 @@ public class BillingService {
 
     @Transactional(readOnly = true)
     public Map<String, Object> obtenirStatsJour() {
-        List<Transaction> toutes = transactionRepository.findAllByOrderByCreatedAtDesc();
-
+        // Agrégat SQL sur les seules transactions du jour (index created_at)
         LocalDateTime debutJour = LocalDate.now().atStartOfDay();
-        List<Transaction> duJour = toutes.stream()
-                .filter(t -> t.getCreatedAt().isAfter(debutJour))
-                .collect(Collectors.toList());
 
-        BigDecimal totalDebits = duJour.stream()
-                .filter(t -> t.getType() == TransactionType.DEBIT
-                        && t.getStatus() == TransactionStatus.SUCCESS)
-                .map(Transaction::getMontant)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalCredits = duJour.stream()
-                .filter(t -> t.getType() == TransactionType.CREDIT
-                        && t.getStatus() == TransactionStatus.SUCCESS)
-                .map(Transaction::getMontant)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal totalDebits = BigDecimal.ZERO;
+        BigDecimal totalCredits = BigDecimal.ZERO;
+        long nbTransactions = 0;
+        long nbEchecs = 0;
+        for (Object[] ligne : transactionRepository.statsDepuis(debutJour)) {
+            TransactionType type = (TransactionType) ligne[0];
+            TransactionStatus status = (TransactionStatus) ligne[1];
+            long nombre = (Long) ligne[2];
+            BigDecimal montant = (BigDecimal) ligne[3];
+
+            nbTransactions += nombre;
+            if (status == TransactionStatus.FAILED) {
+                nbEchecs += nombre;
+            } else if (status == TransactionStatus.SUCCESS) {
+                if (type == TransactionType.DEBIT) {
+                    totalDebits = totalDebits.add(montant);
+                } else if (type == TransactionType.CREDIT) {
+                    totalCredits = totalCredits.add(montant);
+                }
+            }
+        }
 
         return Map.of(
                 "date",           LocalDate.now().toString(),
                 "totalDebits",    totalDebits,
                 "totalCredits",   totalCredits,
-                "nbTransactions", duJour.size(),
-                "nbEchecs",       duJour.stream()
-                        .filter(t -> t.getStatus() == TransactionStatus.FAILED)
-                        .count()
+                "nbTransactions", nbTransactions,
+                "nbEchecs",       nbEchecs
+        );
+    }
+
+    // ── Débit : étapes communes (direct et reprise) ───────────────────────────
+
+    private Transaction nouveauDebit(UUID userId, UUID tripId, BigDecimal montant, String description) {
+        Transaction transaction = new Transaction();
+        transaction.setUserId(userId);
+        transaction.setTripId(tripId);
+        transaction.setMontant(montant);
+        transaction.setType(TransactionType.DEBIT);
+        transaction.setCreatedAt(LocalDateTime.now());
+        transaction.setDescription(description);
+        return transaction;
+    }
+
+    /** Appelle user-service (pass puis débit) et renseigne le passId. Retourne le solde après débit. */
+    private BigDecimal appelerDebit(Transaction transaction) {
+        UUID userId = transaction.getUserId();
+
+        // Récupère d'abord le pass pour avoir le passId
+        PassResponse passInfo = userServiceClient.getPass(userId, userId.toString(), INTERNAL_ROLE);
+        transaction.setPassId(passInfo.getId());
+
+        // Débite le solde (clé d'idempotence = trajet : un rejeu n'est jamais redébité)
+        PassResponse passResponse = userServiceClient.debiterSolde(
+                userId,
+                new UpdateSoldeRequest(transaction.getMontant()),
+                userId.toString(),
+                INTERNAL_ROLE,
+                transaction.getTripId() != null ? "debit:" + transaction.getTripId() : null
         );
+        return passResponse.getSolde();
+    }
+
+    private TransactionResponse enregistrerDebitReussi(Transaction transaction, BigDecimal soldeApres) {
+        transaction.setSoldeApres(soldeApres);
+        transaction.setStatus(TransactionStatus.SUCCESS);
+        transaction.setDebitReussiTripId(transaction.getTripId());
+        // Flush immédiat : une violation de l'index unique remonte ici, pas au commit
+        Transaction saved = transactionRepository.saveAndFlush(transaction);
+
+        // Total du jour (plafond journalier) mis à jour dans la même transaction
+        dailyDebitTotalService.enregistrerDebit(saved.getPassId(),
+                saved.getCreatedAt().toLocalDate(), saved.getMontant());
+
+        TransactionResponse response = mapToResponse(saved);
+        response.setSoldeApresOperation(soldeApres);
+        return response;
+    }
+
+    private Transaction debitReussi(UUID tripId) {
+        for (Transaction t : transactionRepository.findByTripId(tripId)) {
+            if (t.getType() == TransactionType.DEBIT && t.getStatus() == TransactionStatus.SUCCESS) {
+                return t;
+            }
+        }
+        return null;
+    }
+
+    private TransactionResponse trouverDebitExistant(UUID tripId) {
+        Transaction t = debitReussi(tripId);
+        if (t != null) {
+            TransactionResponse response = mapToResponse(t);
+            response.setSoldeApresOperation(t.getSoldeApres());
+            return response;
+        }
+        return pendingDebitRepository.findByTripId(tripId)
+                .filter(p -> p.getStatus() == PendingDebitStatus.PENDING
+                        || p.getStatus() == PendingDebitStatus.IN_PROGRESS)
+                .map(p -> reponseEnAttente(p.getUserId(), p.getTripId(), p.getMontant()))
+                .orElse(null);
+    }
+
+    private TransactionResponse reponseEnAttente(UUID userId, UUID tripId, BigDecimal montant) {
+        TransactionResponse response = new TransactionResponse();
+        response.setUserId(userId);
+        response.setTripId(tripId);
+        response.setMontant(montant);
+        response.setType(TransactionType.DEBIT);
+        response.setStatus(TransactionStatus.PENDING);
+        response.setDescription("Débit en attente : user-service indisponible, nouvelle tentative programmée");
+        response.setCreatedAt(LocalDateTime.now());
+        return response;
     }
 
     // ── Mapper ────────────────────────────────────────────────────────────────
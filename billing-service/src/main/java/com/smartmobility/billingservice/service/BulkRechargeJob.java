@@ -0,0 +1,102 @@
+package com.smartmobility.billingservice.service;
+
+import com.smartmobility.billingservice.dto.BulkRechargeJobResponse;
+import com.smartmobility.billingservice.dto.RechargeRequest;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * État en mémoire d'une recharge en masse.
+ * Les lots sont traités en parallèle : chaque lot écrit dans ses propres
+ * cases de {@code resultats}, les compteurs sont atomiques.
+ * Les lignes soumises sont gardées : une reprise renvoie les lignes
+ * A_RECONCILIER avec leurs clés d'idempotence d'origine.
+ */
+class BulkRechargeJob {
+
+    /** Résultat d'une ligne du fichier soumis (ordre d'origine conservé). */
+    record LigneResultat(int ligne, UUID userId, BigDecimal montant, String statut,
+                         UUID transactionId, BigDecimal soldeApres, String erreur) {}
+
+    private final UUID id = UUID.randomUUID();
+    private final LocalDateTime demarreLe = LocalDateTime.now();
+    private final List<RechargeRequest> lignes;
+    private final LigneResultat[] resultats;
+
+    private final AtomicInteger lignesTraitees = new AtomicInteger();
+    private final AtomicInteger succes = new AtomicInteger();
+    private final AtomicInteger echecs = new AtomicInteger();
+    private final AtomicInteger aReconcilier = new AtomicInteger();
+    private final AtomicReference<BigDecimal> montantTotal = new AtomicReference<>(BigDecimal.ZERO);
+    private volatile LocalDateTime termineLe;
+
+    BulkRechargeJob(List<RechargeRequest> lignes) {
+        this.lignes = List.copyOf(lignes);
+        this.resultats = new LigneResultat[lignes.size()];
+    }
+
+    /** Une ligne n'est traitée que par un lot à la fois : pas de course sur resultats[index]. */
+    void enregistrer(int index, LigneResultat resultat) {
+        LigneResultat precedent = resultats[index];
+        resultats[index] = resultat;
+        if (precedent == null) {
+            lignesTraitees.incrementAndGet();
+        } else {
+            compteur(precedent.statut()).decrementAndGet(); // reprise d'une ligne A_RECONCILIER
+        }
+        compteur(resultat.statut()).incrementAndGet();
+        if ("SUCCES".equals(resultat.statut())) {
+            montantTotal.accumulateAndGet(resultat.montant(), BigDecimal::add);
+        }
+    }
+
+    private AtomicInteger compteur(String statut) {
+        return switch (statut) {
+            case "SUCCES" -> succes;
+            case "A_RECONCILIER" -> aReconcilier;
+            default -> echecs;
+        };
+    }
+
+    void terminer() {
+        termineLe = LocalDateTime.now();
+    }
+
+    void rouvrir() {
+        termineLe = null;
+    }
+
+    /** Clé d'idempotence d'une ligne, stable d'une reprise à l'autre. */
+    String cle(int index) {
+        return "recharge:" + id + ":" + (index + 1);
+    }
+
+    boolean estTermine() {
+        return termineLe != null;
+    }
+
+    UUID getId() { return id; }
+    LocalDateTime getTermineLe() { return termineLe; }
+    List<RechargeRequest> getLignes() { return lignes; }
+    LigneResultat[] getResultats() { return resultats; }
+
+    BulkRechargeJobResponse toResponse() {
+        BulkRechargeJobResponse response = new BulkRechargeJobResponse();
+        response.setJobId(id);
+        response.setStatut(estTermine() ? "TERMINE" : "EN_COURS");
+        response.setTotalLignes(resultats.length);
+        response.setLignesTraitees(lignesTraitees.get());
+        response.setSucces(succes.get());
+        response.setEchecs(echecs.get());
+        response.setAReconcilier(aReconcilier.get());
+        response.setMontantTotalRecharge(montantTotal.get());
+        response.setDemarreLe(demarreLe);
+        response.setTermineLe(termineLe);
+        return response;
+    }
+}
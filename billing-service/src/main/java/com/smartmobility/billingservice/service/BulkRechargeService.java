@@ -0,0 +1,340 @@
+package com.smartmobility.billingservice.service;
+
+import com.smartmobility.billingservice.client.UserServiceClient;
+import com.smartmobility.billingservice.dto.BulkRechargeJobResponse;
+import com.smartmobility.billingservice.dto.RechargeBatchItem;
+import com.smartmobility.billingservice.dto.RechargeBatchResult;
+import com.smartmobility.billingservice.dto.RechargeRequest;
+import com.smartmobility.billingservice.entity.Transaction;
+import com.smartmobility.billingservice.entity.TransactionStatus;
+import com.smartmobility.billingservice.entity.TransactionType;
+import com.smartmobility.billingservice.repository.TransactionRepository;
+import com.smartmobility.billingservice.service.BulkRechargeJob.LigneResultat;
+import feign.FeignException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * BulkRechargeService — recharges en masse (employeurs, programmes sociaux).
+ *
+ * Le fichier soumis (JSON ou CSV) est découpé en lots traités en parallèle :
+ *   1 lot = 1 appel user-service (POST /internal/users/passes/recharger)
+ *         + 1 saveAll des transactions (INSERT regroupés en batch JDBC).
+ * Au lieu de 2 appels Feign + 1 INSERT par recharge.
+ *
+ * Chaque ligne part avec une clé d'idempotence (job + numéro de ligne) :
+ * un lot dont le résultat est inconnu (timeout, 5xx) passe en A_RECONCILIER
+ * et se rejoue sans risque via reprendre(jobId) — jamais en resoumettant le fichier.
+ *
+ * Les jobs sont gardés en mémoire (progression + fichier résultat) pendant 24h.
+ */
+@Service
+public class BulkRechargeService {
+
+    private static final Logger log = LoggerFactory.getLogger(BulkRechargeService.class);
+
+    private static final BigDecimal MONTANT_MINIMUM = BigDecimal.valueOf(100);
+
+    private final TransactionRepository transactionRepository;
+    private final UserServiceClient userServiceClient;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final Map<UUID, BulkRechargeJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${billing.bulk-recharge.chunk-size:500}")
+    private int tailleLot;
+
+    @Value("${billing.bulk-recharge.max-lignes:100000}")
+    private int maxLignes;
+
+    public BulkRechargeService(TransactionRepository transactionRepository,
+                               UserServiceClient userServiceClient,
+                               @Qualifier("bulkRechargeExecutor") ThreadPoolTaskExecutor executor) {
+        this.transactionRepository = transactionRepository;
+        this.userServiceClient = userServiceClient;
+        this.executor = executor;
+    }
+
+    // ── Soumission ────────────────────────────────────────────────────────────
+
+    public BulkRechargeJobResponse demarrer(List<RechargeRequest> lignes) {
+        if (lignes == null || lignes.isEmpty()) {
+            throw new IllegalArgumentException("Le fichier de recharge est vide");
+        }
+        if (lignes.size() > maxLignes) {
+            throw new IllegalArgumentException(
+                    "Trop de lignes : " + lignes.size() + " (maximum " + maxLignes + ")");
+        }
+        purgerAnciensJobs();
+
+        BulkRechargeJob job = new BulkRechargeJob(lignes);
+        jobs.put(job.getId(), job);
+
+        List<Integer> indices = new ArrayList<>(lignes.size());
+        for (int i = 0; i < lignes.size(); i++) {
+            indices.add(i);
+        }
+        int nbLots = lancer(job, indices);
+        log.info("Recharge en masse {} démarrée : {} lignes, {} lots", job.getId(), lignes.size(), nbLots);
+        return job.toResponse();
+    }
+
+    /**
+     * Rejoue les lignes A_RECONCILIER d'un job terminé, avec leurs clés d'origine :
+     * user-service renvoie le résultat déjà appliqué au lieu de recréditer,
+     * et la transaction manquante est journalisée.
+     */
+    public BulkRechargeJobResponse reprendre(UUID jobId) {
+        BulkRechargeJob job = trouverJob(jobId);
+        List<Integer> indices = new ArrayList<>();
+        synchronized (job) {
+            if (!job.estTermine()) {
+                throw new IllegalStateException("Recharge en masse encore en cours : " + jobId);
+            }
+            LigneResultat[] resultats = job.getResultats();
+            for (int i = 0; i < resultats.length; i++) {
+                if (resultats[i] != null && "A_RECONCILIER".equals(resultats[i].statut())) {
+                    indices.add(i);
+                }
+            }
+            if (indices.isEmpty()) {
+                return job.toResponse();
+            }
+            job.rouvrir();
+        }
+        int nbLots = lancer(job, indices);
+        log.info("Recharge en masse {} reprise : {} lignes à réconcilier, {} lots", jobId, indices.size(), nbLots);
+        return job.toResponse();
+    }
+
+    private int lancer(BulkRechargeJob job, List<Integer> indices) {
+        List<CompletableFuture<Void>> lots = new ArrayList<>();
+        for (int debut = 0; debut < indices.size(); debut += tailleLot) {
+            List<Integer> lot = indices.subList(debut, Math.min(debut + tailleLot, indices.size()));
+            lots.add(CompletableFuture.runAsync(() -> traiterLotSansEchec(job, lot), executor));
+        }
+
+        CompletableFuture.allOf(lots.toArray(new CompletableFuture[0]))
+                .whenComplete((ignored, error) -> {
+                    job.terminer();
+                    BulkRechargeJobResponse bilan = job.toResponse();
+                    log.info("Recharge en masse {} terminée : {} succès, {} échecs, {} à réconcilier, {} FCFA",
+                            job.getId(), bilan.getSucces(), bilan.getEchecs(), bilan.getAReconcilier(),
+                            bilan.getMontantTotalRecharge());
+                });
+        return lots.size();
+    }
+
+    /**
+     * Parse un CSV "userId,montant" (séparateur , ou ;).
+     * La première ligne est ignorée si c'est un en-tête.
+     * Une ligne illisible devient une requête vide → rejetée avec son numéro dans le résultat.
+     */
+    public List<RechargeRequest> parserCsv(String contenu) {
+        List<RechargeRequest> lignes = new ArrayList<>();
+        if (contenu == null) {
+            return lignes;
+        }
+        String[] brutes = contenu.split("\\r?\\n");
+        for (int i = 0; i < brutes.length; i++) {
+            String brute = brutes[i].trim();
+            if (brute.isEmpty()) {
+                continue;
+            }
+            String[] colonnes = brute.split("[,;]");
+            RechargeRequest ligne = new RechargeRequest();
+            try {
+                ligne.setUserId(UUID.fromString(colonnes[0].trim()));
+                ligne.setMontant(new BigDecimal(colonnes[1].trim()));
+            } catch (RuntimeException e) {
+                if (i == 0) {
+                    continue; // en-tête
+                }
+            }
+            lignes.add(ligne);
+        }
+        return lignes;
+    }
+
+    // ── Suivi ─────────────────────────────────────────────────────────────────
+
+    public BulkRechargeJobResponse obtenirProgression(UUID jobId) {
+        return trouverJob(jobId).toResponse();
+    }
+
+    /** Fichier résultat CSV, une ligne par ligne soumise. */
+    public String exporterResultatsCsv(UUID jobId) {
+        BulkRechargeJob job = trouverJob(jobId);
+        StringBuilder csv = new StringBuilder("ligne,userId,montant,statut,transactionId,soldeApres,erreur\n");
+        LigneResultat[] resultats = job.getResultats();
+        for (int i = 0; i < resultats.length; i++) {
+            LigneResultat r = resultats[i];
+            if (r == null) {
+                csv.append(i + 1).append(",,,EN_ATTENTE,,,\n");
+                continue;
+            }
+            csv.append(r.ligne()).append(',')
+                    .append(valeur(r.userId())).append(',')
+                    .append(valeur(r.montant())).append(',')
+                    .append(r.statut()).append(',')
+                    .append(valeur(r.transactionId())).append(',')
+                    .append(valeur(r.soldeApres())).append(',')
+                    .append(r.erreur() != null ? '"' + r.erreur().replace("\"", "\"\"") + '"' : "")
+                    .append('\n');
+        }
+        return csv.toString();
+    }
+
+    // ── Traitement d'un lot ───────────────────────────────────────────────────
+
+    private void traiterLotSansEchec(BulkRechargeJob job, List<Integer> lot) {
+        // Résultats avant ce passage (null, ou A_RECONCILIER lors d'une reprise)
+        LigneResultat[] avant = new LigneResultat[lot.size()];
+        for (int k = 0; k < lot.size(); k++) {
+            avant[k] = job.getResultats()[lot.get(k)];
+        }
+        try {
+            traiterLot(job, lot);
+        } catch (Exception e) {
+            boolean refuse = estRefusDefinitif(e);
+            log.error("Lot de {} lignes (ligne {}) du job {} en erreur, {} : {}", lot.size(), lot.get(0) + 1,
+                    job.getId(), refuse ? "refusé" : "résultat inconnu", e.getMessage());
+            String erreur = refuse ? e.getMessage()
+                    : "Résultat inconnu (" + e.getMessage() + ") : ne pas resoumettre, "
+                    + "utiliser POST /api/billing/recharge/bulk/" + job.getId() + "/reprise";
+            for (int k = 0; k < lot.size(); k++) {
+                int index = lot.get(k);
+                if (job.getResultats()[index] == avant[k]) {   // pas encore résolue par ce passage
+                    RechargeRequest ligne = job.getLignes().get(index);
+                    job.enregistrer(index, new LigneResultat(index + 1, ligne.getUserId(),
+                            ligne.getMontant(), refuse ? "ECHEC" : "A_RECONCILIER", null, null, erreur));
+                }
+            }
+        }
+    }
+
+    /**
+     * Réponse 4xx de user-service : le lot a été annulé, aucun solde crédité.
+     * Sauf 409 (clé déjà insérée par un appel concurrent encore en vol) : à reprendre.
+     * Tout le reste (timeout, 5xx, réponse incomplète) : résultat inconnu.
+     */
+    private static boolean estRefusDefinitif(Exception e) {
+        return e instanceof FeignException fe && fe.status() >= 400 && fe.status() < 500 && fe.status() != 409;
+    }
+
+    private void traiterLot(BulkRechargeJob job, List<Integer> lot) {
+        List<Integer> positions = new ArrayList<>();
+        List<RechargeBatchItem> items = new ArrayList<>();
+
+        // 1. Validation locale — les lignes invalides ne partent pas vers user-service
+        for (int index : lot) {
+            RechargeRequest ligne = job.getLignes().get(index);
+            String erreur = valider(ligne);
+            if (erreur != null) {
+                job.enregistrer(index, new LigneResultat(index + 1, ligne.getUserId(),
+                        ligne.getMontant(), "REJETE", null, null, erreur));
+                continue;
+            }
+            positions.add(index);
+            items.add(new RechargeBatchItem(ligne.getUserId(), ligne.getMontant(), job.cle(index)));
+        }
+        if (items.isEmpty()) {
+            return;
+        }
+
+        // 2. Un seul appel user-service pour tout le lot
+        List<RechargeBatchResult> resultats = userServiceClient.rechargerSoldesEnMasse(items);
+        if (resultats == null || resultats.size() != items.size()) {
+            throw new IllegalStateException("Réponse user-service incomplète pour le lot");
+        }
+
+        // 3. Transactions du lot — INSERT regroupés (hibernate.jdbc.batch_size)
+        LocalDateTime maintenant = LocalDateTime.now();
+        Transaction[] transactions = new Transaction[items.size()];
+        List<Transaction> aEnregistrer = new ArrayList<>();
+        for (int k = 0; k < items.size(); k++) {
+            RechargeBatchResult r = resultats.get(k);
+            if (r.getPassId() == null) {
+                continue; // pass introuvable : rien à journaliser côté billing
+            }
+            Transaction t = new Transaction();
+            t.setUserId(items.get(k).getUserId());
+            t.setPassId(r.getPassId());
+            t.setMontant(items.get(k).getMontant());
+            t.setType(TransactionType.CREDIT);
+            t.setCreatedAt(maintenant);
+            t.setStatus(r.isSucces() ? TransactionStatus.SUCCESS : TransactionStatus.FAILED);
+            t.setSoldeApres(r.getSoldeApres() != null ? r.getSoldeApres() : BigDecimal.ZERO);
+            t.setDescription(r.isSucces()
+                    ? "Recharge en masse : +" + items.get(k).getMontant() + " FCFA"
+                    : "ÉCHEC RECHARGE EN MASSE - " + r.getErreur());
+            transactions[k] = t;
+            aEnregistrer.add(t);
+        }
+
+        String erreurJournal = null;
+        try {
+            transactionRepository.saveAll(aEnregistrer);
+        } catch (Exception e) {
+            // Les soldes sont déjà crédités : on le signale ligne par ligne pour la réconciliation
+            log.error("Journalisation du lot de {} lignes (ligne {}) du job {} échouée : {}",
+                    lot.size(), lot.get(0) + 1, job.getId(), e.getMessage());
+            erreurJournal = "Solde crédité mais transaction non journalisée (reprise possible) : " + e.getMessage();
+        }
+
+        // 4. Résultats ligne par ligne
+        for (int k = 0; k < items.size(); k++) {
+            int index = positions.get(k);
+            RechargeBatchResult r = resultats.get(k);
+            Transaction t = transactions[k];
+            String statut = r.isSucces() ? (erreurJournal == null ? "SUCCES" : "A_RECONCILIER") : "ECHEC";
+            job.enregistrer(index, new LigneResultat(index + 1, items.get(k).getUserId(),
+                    items.get(k).getMontant(), statut,
+                    t != null && erreurJournal == null ? t.getId() : null,
+                    r.getSoldeApres(),
+                    r.isSucces() ? erreurJournal : r.getErreur()));
+        }
+    }
+
+    // ── Utilitaires ───────────────────────────────────────────────────────────
+
+    private String valider(RechargeRequest ligne) {
+        if (ligne.getUserId() == null || ligne.getMontant() == null) {
+            return "Ligne invalide : userId et montant sont obligatoires";
+        }
+        if (ligne.getMontant().compareTo(MONTANT_MINIMUM) < 0) {
+            return "Le montant minimum de recharge est de 100 FCFA";
+        }
+        return null;
+    }
+
+    private BulkRechargeJob trouverJob(UUID jobId) {
+        BulkRechargeJob job = jobs.get(jobId);
+        if (job == null) {
+            throw new IllegalArgumentException("Recharge en masse introuvable : " + jobId);
+        }
+        return job;
+    }
+
+    private void purgerAnciensJobs() {
+        LocalDateTime limite = LocalDateTime.now().minusHours(24);
+        jobs.values().removeIf(j -> j.estTermine() && j.getTermineLe().isBefore(limite));
+    }
+
+    private static String valeur(Object o) {
+        return o != null ? o.toString() : "";
+    }
+}
@@ -0,0 +1,84 @@
+package com.smartmobility.billingservice.service;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Parcours d'une source triée par UUID, lot par lot (pagination keyset : id > dernier id lu).
+ * Un seul lot en mémoire à la fois, quelle que soit la taille de la source.
+ */
+class CurseurKeyset<T> implements Iterator<T> {
+
+    /** Plus petit UUID : point de départ du parcours. */
+    static final UUID DEBUT = new UUID(0L, 0L);
+
+    /**
+     * Ordre des UUID en base (binary(16) ou char(36)) : octets non signés.
+     * ≠ UUID.compareTo, qui compare des long signés.
+     */
+    static final Comparator<UUID> ORDRE_BASE = (a, b) -> {
+        int c = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return c != 0 ? c : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    };
+
+    private final BiFunction<UUID, Integer, List<T>> chargeur;
+    private final Function<T, UUID> cle;
+    private final int tailleLot;
+
+    private List<T> lot = List.of();
+    private int position;
+    private UUID dernier = DEBUT;
+    private boolean epuise;
+    private long lus;
+
+    CurseurKeyset(BiFunction<UUID, Integer, List<T>> chargeur, Function<T, UUID> cle, int tailleLot) {
+        this.chargeur = chargeur;
+        this.cle = cle;
+        this.tailleLot = tailleLot;
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (position < lot.size()) {
+            return true;
+        }
+        if (epuise) {
+            return false;
+        }
+        lot = chargeur.apply(dernier, tailleLot);
+        position = 0;
+        if (lot == null || lot.isEmpty()) {
+            lot = List.of();
+            epuise = true;
+            return false;
+        }
+        if (lot.size() < tailleLot) {
+            epuise = true;
+        }
+        dernier = cle.apply(lot.get(lot.size() - 1));
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        lus++;
+        return lot.get(position++);
+    }
+
+    /** Élément suivant, ou null en fin de source. */
+    T suivant() {
+        return hasNext() ? next() : null;
+    }
+
+    long getLus() {
+        return lus;
+    }
+}
@@ -0,0 +1,127 @@
+package com.smartmobility.billingservice.service;
+
+import com.smartmobility.billingservice.entity.DailyDebitTotal;
+import com.smartmobility.billingservice.repository.DailyDebitTotalRepository;
+import com.smartmobility.billingservice.repository.TransactionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * DailyDebitTotalService — total des débits du jour par pass, pour le plafond journalier.
+ *
+ * Écriture : chaque débit SUCCESS incrémente la ligne (passId, jour) de
+ * daily_debit_totals dans la même transaction que le débit.
+ * Lecture : map en mémoire → simple lookup. Une entrée expire après cache-ttl-ms
+ * pour voir les débits passés par les autres instances du billing-service.
+ *
+ * Au redémarrage (ou pour un jour sans ligne), le total est reconstruit
+ * à la demande depuis les transactions.
+ */
+@Service
+public class DailyDebitTotalService {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyDebitTotalService.class);
+
+    private record Cle(UUID passId, LocalDate jour) {}
+
+    private record Entree(BigDecimal total, long chargeLe) {}
+
+    private final DailyDebitTotalRepository dailyDebitTotalRepository;
+    private final TransactionRepository transactionRepository;
+
+    private final Map<Cle, Entree> cache = new ConcurrentHashMap<>();
+
+    @Value("${billing.daily-total.cache-ttl-ms:5000}")
+    private long ttlMs;
+
+    @Value("${billing.daily-total.retention-jours:7}")
+    private int retentionJours;
+
+    public DailyDebitTotalService(DailyDebitTotalRepository dailyDebitTotalRepository,
+                                  TransactionRepository transactionRepository) {
+        this.dailyDebitTotalRepository = dailyDebitTotalRepository;
+        this.transactionRepository = transactionRepository;
+    }
+
+    // ── Écriture (dans la transaction du débit) ───────────────────────────────
+
+    /**
+     * À appeler après l'enregistrement d'un débit SUCCESS, dans la même transaction.
+     * Le cache n'est mis à jour qu'au commit.
+     */
+    public void enregistrerDebit(UUID passId, LocalDate jour, BigDecimal montant) {
+        if (dailyDebitTotalRepository.incrementer(passId, jour, montant) == 0) {
+            // Première écriture du jour : le SUM inclut déjà le débit courant (flush automatique)
+            BigDecimal total = transactionRepository.sumDebitsJourByPassId(passId, jour.atStartOfDay());
+            if (dailyDebitTotalRepository.insererSiAbsent(UUID.randomUUID(), passId, jour, total) == 0) {
+                // Ligne créée par une transaction concurrente : on ajoute notre débit
+                dailyDebitTotalRepository.incrementer(passId, jour, montant);
+            }
+        }
+
+        BigDecimal total = dailyDebitTotalRepository.findByPassIdAndJour(passId, jour)
+                .map(DailyDebitTotal::getTotal)
+                .orElse(montant);
+        Cle cle = new Cle(passId, jour);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    memoriser(cle, total);
+                }
+            });
+        } else {
+            memoriser(cle, total);
+        }
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    public BigDecimal totalDuJour(UUID passId) {
+        Cle cle = new Cle(passId, LocalDate.now());
+        Entree entree = cache.get(cle);
+        if (entree != null && System.currentTimeMillis() - entree.chargeLe() < ttlMs) {
+            return entree.total();
+        }
+
+        BigDecimal total = dailyDebitTotalRepository.findByPassIdAndJour(passId, cle.jour())
+                .map(DailyDebitTotal::getTotal)
+                .orElseGet(() -> transactionRepository.sumDebitsJourByPassId(passId, cle.jour().atStartOfDay()));
+        if (total == null) {
+            total = BigDecimal.ZERO;
+        }
+        memoriser(cle, total);
+        return total;
+    }
+
+    // ── Purge quotidienne ─────────────────────────────────────────────────────
+
+    @Scheduled(cron = "${billing.daily-total.purge-cron:0 5 0 * * *}")
+    public void purger() {
+        LocalDate aujourdhui = LocalDate.now();
+        cache.keySet().removeIf(cle -> cle.jour().isBefore(aujourdhui));
+        int supprimees = dailyDebitTotalRepository.supprimerAvant(aujourdhui.minusDays(retentionJours));
+        log.info("Totaux journaliers purgés : {} ligne(s) de plus de {} jours", supprimees, retentionJours);
+    }
+
+    /**
+     * Les totaux d'une journée ne font que croître : en cas de commits concurrents
+     * on garde la plus grande valeur, quel que soit l'ordre des afterCommit.
+     */
+    private void memoriser(Cle cle, BigDecimal total) {
+        Entree nouvelle = new Entree(total, System.currentTimeMillis());
+        cache.merge(cle, nouvelle, (ancienne, recue) ->
+                recue.total().compareTo(ancienne.total()) >= 0 ? recue : new Entree(ancienne.total(), recue.chargeLe()));
+    }
+}
@@ -0,0 +1,103 @@
+package com.smartmobility.billingservice.service;
+
+import com.smartmobility.billingservice.dto.DebitRequest;
+import com.smartmobility.billingservice.entity.PendingDebit;
+import com.smartmobility.billingservice.entity.PendingDebitStatus;
+import com.smartmobility.billingservice.repository.PendingDebitRepository;
+import feign.FeignException;
+import feign.RetryableException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * DebitRetryQueue — file persistante des débits à rejouer.
+ *
+ * Seules les pannes transitoires de user-service (timeout, connexion refusée, 5xx)
+ * passent par la file. Les refus métier (solde insuffisant, pass suspendu → 4xx)
+ * restent des échecs immédiats.
+ */
+@Component
+public class DebitRetryQueue {
+
+    private final PendingDebitRepository pendingDebitRepository;
+
+    @Value("${billing.debit-retry.base-delay-ms:2000}")
+    private long delaiBaseMs;
+
+    @Value("${billing.debit-retry.max-delay-ms:300000}")
+    private long delaiMaxMs;
+
+    @Value("${billing.debit-retry.max-attempts:12}")
+    private int maxTentatives;
+
+    public DebitRetryQueue(PendingDebitRepository pendingDebitRepository) {
+        this.pendingDebitRepository = pendingDebitRepository;
+    }
+
+    /**
+     * Met le débit en file dans sa propre transaction.
+     * Si le trajet est déjà en file (contrainte unique sur tripId), on ne fait rien.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void mettreEnFile(DebitRequest request, String description, String erreur) {
+        PendingDebit pending = new PendingDebit();
+        pending.setTripId(request.getTripId());
+        pending.setUserId(request.getUserId());
+        pending.setMontant(request.getMontant());
+        pending.setDescription(description);
+        pending.setStatus(PendingDebitStatus.PENDING);
+        pending.setTentatives(0);
+        pending.setProchaineTentative(prochaineTentative(0));
+        pending.setDerniereErreur(tronquer(erreur));
+        pending.setCreatedAt(LocalDateTime.now());
+        try {
+            pendingDebitRepository.saveAndFlush(pending);
+        } catch (DataIntegrityViolationException e) {
+            // Déjà en file : le worker s'en occupe
+        }
+    }
+
+    /**
+     * Backoff exponentiel avec jitter : base × 2^tentatives, plafonné à max-delay.
+     */
+    public LocalDateTime prochaineTentative(int tentatives) {
+        long delai = Math.min(delaiMaxMs, delaiBaseMs << Math.min(tentatives, 20));
+        long jitter = ThreadLocalRandom.current().nextLong(delai / 4 + 1);
+        return LocalDateTime.now().plusNanos((delai + jitter) * 1_000_000L);
+    }
+
+    public int getMaxTentatives() {
+        return maxTentatives;
+    }
+
+    /** Panne transitoire de user-service → le débit peut être rejoué plus tard. */
+    public static boolean estTransitoire(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof RetryableException) {
+                return true;
+            }
+            if (t instanceof FeignException fe) {
+                return fe.status() < 0 || fe.status() >= 500 || fe.status() == 429;
+            }
+            if (t instanceof SocketTimeoutException || t instanceof ConnectException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String tronquer(String message) {
+        if (message == null) {
+            return null;
+        }
+        return message.length() > 500 ? message.substring(0, 500) : message;
+    }
+}
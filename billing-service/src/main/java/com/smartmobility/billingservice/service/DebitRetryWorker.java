@@ -0,0 +1,104 @@
+package com.smartmobility.billingservice.service;
+
+import com.smartmobility.billingservice.entity.PendingDebit;
+import com.smartmobility.billingservice.repository.PendingDebitRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * DebitRetryWorker — rejoue les débits en file.
+ *
+ * Chaque instance poll la table pending_debits et réserve les débits dus par
+ * un UPDATE conditionnel (PENDING → IN_PROGRESS + bail) : plusieurs instances
+ * du billing-service peuvent tourner sans rejouer deux fois le même débit.
+ * Un bail expiré (instance tombée en cours de reprise) remet le débit en PENDING.
+ *
+ * Le bail posé à la réservation sert de jeton : quand la tâche démarre enfin
+ * (elle a pu attendre dans la file de l'executor), elle reprend le débit par
+ * un second UPDATE conditionnel qui repart pour un bail complet. Si le bail a
+ * expiré pendant l'attente, la tâche abandonne sans appeler user-service.
+ * Le bail doit couvrir les deux appels Feign (pass + débit) au pire timeout :
+ * vérifié au démarrage.
+ */
+@Component
+public class DebitRetryWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(DebitRetryWorker.class);
+
+    private final PendingDebitRepository pendingDebitRepository;
+    private final BillingService billingService;
+    private final ThreadPoolTaskExecutor executor;
+
+    @Value("${billing.debit-retry.batch-size:50}")
+    private int tailleLot;
+
+    private final long bailSecondes;
+
+    public DebitRetryWorker(PendingDebitRepository pendingDebitRepository,
+                            BillingService billingService,
+                            @Qualifier("debitRetryExecutor") ThreadPoolTaskExecutor executor,
+                            @Value("${billing.debit-retry.lease-seconds:60}") long bailSecondes,
+                            @Value("${spring.cloud.openfeign.client.config.user-service.connect-timeout:2000}") long connexionMs,
+                            @Value("${spring.cloud.openfeign.client.config.user-service.read-timeout:5000}") long lectureMs) {
+        this.pendingDebitRepository = pendingDebitRepository;
+        this.billingService = billingService;
+        this.executor = executor;
+        this.bailSecondes = bailSecondes;
+
+        // Pire cas d'une reprise : 2 appels Feign (getPass + debiter) + marge pour l'écriture en base
+        long pireCasMs = 2 * (connexionMs + lectureMs) + 10_000;
+        if (bailSecondes * 1000 < pireCasMs) {
+            throw new IllegalStateException("billing.debit-retry.lease-seconds=" + bailSecondes
+                    + " trop court : au moins " + (pireCasMs + 999) / 1000 + " s avec les timeouts Feign du user-service");
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${billing.debit-retry.poll-interval-ms:2000}")
+    public void traiterDebitsDus() {
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        int liberes = pendingDebitRepository.libererBauxExpires(maintenant);
+        if (liberes > 0) {
+            log.warn("{} débit(s) en reprise avec bail expiré remis en file", liberes);
+        }
+
+        List<PendingDebit> dus = pendingDebitRepository.findDus(maintenant, PageRequest.of(0, tailleLot));
+        for (PendingDebit pending : dus) {
+            UUID id = pending.getId();
+            LocalDateTime jeton = bail();
+            if (pendingDebitRepository.reserver(id, jeton) == 1) {
+                executor.execute(() -> reprendre(id, jeton));
+            }
+        }
+    }
+
+    private void reprendre(UUID pendingDebitId, LocalDateTime jeton) {
+        try {
+            // Hors transaction : la prise est visible tout de suite par les autres instances
+            if (pendingDebitRepository.demarrer(pendingDebitId, jeton, bail()) == 0) {
+                log.warn("Débit {} : bail expiré avant le démarrage de la reprise, abandonnée", pendingDebitId);
+                return;
+            }
+            billingService.reprendreDebit(pendingDebitId);
+        } catch (Exception e) {
+            // Le bail expirera et le débit sera remis en file
+            log.error("Reprise du débit {} en erreur : {}", pendingDebitId, e.getMessage());
+        }
+    }
+
+    // Tronqué à la milliseconde : relu tel quel depuis la colonne DATETIME pour servir de jeton
+    private LocalDateTime bail() {
+        return LocalDateTime.now().plusSeconds(bailSecondes).truncatedTo(ChronoUnit.MILLIS);
+    }
+}
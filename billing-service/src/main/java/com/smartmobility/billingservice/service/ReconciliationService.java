@@ -0,0 +1,382 @@
+package com.smartmobility.billingservice.service;
+
+import com.smartmobility.billingservice.client.TripServiceClient;
+import com.smartmobility.billingservice.client.UserServiceClient;
+import com.smartmobility.billingservice.dto.DebitParTrajet;
+import com.smartmobility.billingservice.dto.NetParPass;
+import com.smartmobility.billingservice.dto.PassSoldeRow;
+import com.smartmobility.billingservice.dto.ReconciliationReport;
+import com.smartmobility.billingservice.dto.TripSettlementRow;
+import com.smartmobility.billingservice.entity.PendingDebitStatus;
+import com.smartmobility.billingservice.repository.PendingDebitRepository;
+import com.smartmobility.billingservice.repository.TransactionArchiveTotalRepository;
+import com.smartmobility.billingservice.repository.TransactionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * ReconciliationService — rapprochement nocturne billing / trip-service / user-service.
+ *
+ * 1. Trajets ↔ débits : trajets tarifés (trip-service) et débits SUCCESS agrégés
+ *    par trajet (billing), lus en parallèle par lots triés par id puis fusionnés
+ *    (merge-join) → TRAJET_SANS_DEBIT, DEBIT_SANS_TRAJET, MONTANT_DIFFERENT, DEBIT_MULTIPLE.
+ * 2. Soldes : solde des pass (user-service) ↔ net recharges − débits (billing),
+ *    même principe → SOLDE_DIVERGENT, PASS_INCONNU.
+ *
+ * Mémoire bornée : un lot de chaque côté à la fois, les écarts sont écrits
+ * au fil de l'eau dans un CSV. Compteurs Micrometer "billing.reconciliation.*".
+ *
+ * Mois archivés : les trajets et débits antérieurs à la table chaude ne sont pas
+ * rapprochés ; pour les soldes, le net archivé (transaction_archive_totals) est
+ * ajouté au net de la table chaude.
+ */
+@Service
+public class ReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+
+    private static final String INTERNAL_ROLE = "ADMIN";
+    private static final DateTimeFormatter HORODATAGE = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final TransactionRepository transactionRepository;
+    private final PendingDebitRepository pendingDebitRepository;
+    private final TransactionArchiveTotalRepository archiveTotalRepository;
+    private final TransactionArchiveService archiveService;
+    private final TripServiceClient tripServiceClient;
+    private final UserServiceClient userServiceClient;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolTaskExecutor executor;
+
+    private final AtomicBoolean enCours = new AtomicBoolean(false);
+    private volatile ReconciliationReport dernier;
+
+    @Value("${billing.reconciliation.chunk-size:1000}")
+    private int tailleLot;
+
+    @Value("${billing.reconciliation.report-dir:${java.io.tmpdir}/billing-reconciliation}")
+    private String dossierRapports;
+
+    /** Marge avant "maintenant" : les trajets et débits en vol ne sont pas rapprochés. */
+    @Value("${billing.reconciliation.marge-minutes:10}")
+    private long margeMinutes;
+
+    public ReconciliationService(TransactionRepository transactionRepository,
+                                 PendingDebitRepository pendingDebitRepository,
+                                 TransactionArchiveTotalRepository archiveTotalRepository,
+                                 TransactionArchiveService archiveService,
+                                 TripServiceClient tripServiceClient,
+                                 UserServiceClient userServiceClient,
+                                 MeterRegistry meterRegistry,
+                                 @Qualifier("reconciliationExecutor") ThreadPoolTaskExecutor executor) {
+        this.transactionRepository = transactionRepository;
+        this.pendingDebitRepository = pendingDebitRepository;
+        this.archiveTotalRepository = archiveTotalRepository;
+        this.archiveService = archiveService;
+        this.tripServiceClient = tripServiceClient;
+        this.userServiceClient = userServiceClient;
+        this.meterRegistry = meterRegistry;
+        this.executor = executor;
+    }
+
+    // ── Déclenchement ─────────────────────────────────────────────────────────
+
+    @Scheduled(cron = "${billing.reconciliation.cron:0 30 2 * * *}")
+    public void executerNuit() {
+        if (!enCours.compareAndSet(false, true)) {
+            log.warn("Réconciliation nocturne ignorée : une exécution est déjà en cours");
+            return;
+        }
+        executer(nouveauRapport("CRON"));
+    }
+
+    /** Déclenchement ADMIN : exécution en arrière-plan, renvoie le rapport EN_COURS. */
+    public ReconciliationReport demarrer() {
+        if (!enCours.compareAndSet(false, true)) {
+            throw new IllegalStateException("Une réconciliation est déjà en cours");
+        }
+        ReconciliationReport rapport = nouveauRapport("ADMIN");
+        try {
+            executor.execute(() -> executer(rapport));
+        } catch (RuntimeException e) {
+            enCours.set(false);
+            throw e;
+        }
+        return rapport;
+    }
+
+    public ReconciliationReport obtenirDernier() {
+        if (dernier == null) {
+            throw new IllegalArgumentException("Aucune réconciliation exécutée depuis le démarrage");
+        }
+        return dernier;
+    }
+
+    public Path fichierDernierRapport() {
+        ReconciliationReport rapport = obtenirDernier();
+        if (rapport.getFichier() == null || !Files.exists(Paths.get(rapport.getFichier()))) {
+            throw new IllegalArgumentException("Rapport indisponible pour la réconciliation " + rapport.getId());
+        }
+        return Paths.get(rapport.getFichier());
+    }
+
+    // ── Exécution ─────────────────────────────────────────────────────────────
+
+    /** Appelé avec le verrou "enCours" déjà pris. */
+    private void executer(ReconciliationReport rapport) {
+        Map<String, Long> ecarts = rapport.getEcartsParType();
+
+        Timer.Sample chrono = Timer.start(meterRegistry);
+        try {
+            Path dossier = Paths.get(dossierRapports);
+            Files.createDirectories(dossier);
+            Path fichier = dossier.resolve("reconciliation-" + HORODATAGE.format(rapport.getDemarreLe()) + ".csv");
+            rapport.setFichier(fichier.toString());
+            rapport.setDebutTableChaude(archiveService.debutTableChaude());
+
+            try (BufferedWriter out = Files.newBufferedWriter(fichier, StandardCharsets.UTF_8)) {
+                out.write("type,tripId,passId,userId,montantAttendu,montantConstate,detail\n");
+                rapprocherTrajets(rapport, out);
+                rapprocherSoldes(rapport, out);
+            }
+            rapport.setStatut("TERMINE");
+            log.info("Réconciliation {} terminée : {} trajets, {} débits, {} pass, {} écart(s) {}",
+                    rapport.getId(), rapport.getTrajetsLus(), rapport.getDebitsLus(),
+                    rapport.getPassLus(), rapport.getEcarts(), ecarts);
+
+        } catch (Exception e) {
+            log.error("Réconciliation {} en échec : {}", rapport.getId(), e.getMessage());
+            rapport.setStatut("ECHEC");
+            rapport.setErreur(e.getMessage());
+            meterRegistry.counter("billing.reconciliation.echecs").increment();
+        } finally {
+            rapport.setTermineLe(LocalDateTime.now());
+            chrono.stop(meterRegistry.timer("billing.reconciliation.duree"));
+            enCours.set(false);
+        }
+    }
+
+    // ── 1. Trajets ↔ débits ───────────────────────────────────────────────────
+
+    private void rapprocherTrajets(ReconciliationReport rapport, BufferedWriter out) throws IOException {
+        LocalDateTime depuis = rapport.getDebutTableChaude();
+        LocalDateTime coupure = rapport.getCoupure();
+        CurseurKeyset<TripSettlementRow> trajets = new CurseurKeyset<>(
+                (apres, limite) -> tripServiceClient.lireTrajetsTarifes(apres, depuis, coupure, limite),
+                TripSettlementRow::getId, tailleLot);
+        CurseurKeyset<DebitParTrajet> debits = new CurseurKeyset<>(
+                (apres, limite) -> transactionRepository.findDebitsParTrajet(apres, depuis, coupure,
+                        PageRequest.of(0, limite)),
+                DebitParTrajet::getTripId, tailleLot);
+
+        TripSettlementRow trajet = trajets.suivant();
+        DebitParTrajet debit = debits.suivant();
+        while (trajet != null || debit != null) {
+            int cmp = trajet == null ? 1
+                    : debit == null ? -1
+                    : CurseurKeyset.ORDRE_BASE.compare(trajet.getId(), debit.getTripId());
+
+            if (cmp < 0) {
+                if (trajet.getComputedFare().signum() > 0) {
+                    String type = debitEnAttente(trajet.getId()) ? "DEBIT_EN_ATTENTE" : "TRAJET_SANS_DEBIT";
+                    ecart(rapport, out, type, trajet.getId(), trajet.getPassId(), trajet.getUserId(),
+                            trajet.getComputedFare(), BigDecimal.ZERO, "statut trajet " + trajet.getStatus());
+                }
+                trajet = trajets.suivant();
+
+            } else if (cmp > 0) {
+                ecart(rapport, out, "DEBIT_SANS_TRAJET", debit.getTripId(), null, null,
+                        BigDecimal.ZERO, debit.getMontant(), debit.getNbDebits() + " débit(s)");
+                debit = debits.suivant();
+
+            } else {
+                if (debit.getNbDebits() > 1) {
+                    ecart(rapport, out, "DEBIT_MULTIPLE", trajet.getId(), trajet.getPassId(), trajet.getUserId(),
+                            trajet.getComputedFare(), debit.getMontant(), debit.getNbDebits() + " débits");
+                } else if (trajet.getComputedFare().compareTo(debit.getMontant()) != 0) {
+                    ecart(rapport, out, "MONTANT_DIFFERENT", trajet.getId(), trajet.getPassId(), trajet.getUserId(),
+                            trajet.getComputedFare(), debit.getMontant(), null);
+                }
+                trajet = trajets.suivant();
+                debit = debits.suivant();
+            }
+        }
+
+        rapport.setTrajetsLus(trajets.getLus());
+        rapport.setDebitsLus(debits.getLus());
+        meterRegistry.counter("billing.reconciliation.lignes", "source", "trajets").increment(trajets.getLus());
+        meterRegistry.counter("billing.reconciliation.lignes", "source", "debits").increment(debits.getLus());
+    }
+
+    private boolean debitEnAttente(UUID tripId) {
+        return pendingDebitRepository.findByTripId(tripId)
+                .map(p -> p.getStatus() == PendingDebitStatus.PENDING
+                        || p.getStatus() == PendingDebitStatus.IN_PROGRESS)
+                .orElse(false);
+    }
+
+    // ── 2. Soldes des pass ↔ net billing ──────────────────────────────────────
+
+    private void rapprocherSoldes(ReconciliationReport rapport, BufferedWriter out) throws IOException {
+        LocalDateTime depuis = rapport.getDebutTableChaude();
+        CurseurKeyset<PassSoldeRow> passes = new CurseurKeyset<>(
+                userServiceClient::lireSoldes, PassSoldeRow::getPassId, tailleLot);
+        NetsCumules nets = new NetsCumules(
+                new CurseurKeyset<>(
+                        (apres, limite) -> transactionRepository.findNetsParPass(apres, depuis, PageRequest.of(0, limite)),
+                        NetParPass::getPassId, tailleLot),
+                new CurseurKeyset<>(
+                        (apres, limite) -> archiveTotalRepository.findNetsParPass(apres, PageRequest.of(0, limite)),
+                        NetParPass::getPassId, tailleLot));
+
+        PassSoldeRow pass = passes.suivant();
+        NetParPass net = nets.suivant();
+        while (pass != null || net != null) {
+            int cmp = pass == null ? 1
+                    : net == null ? -1
+                    : CurseurKeyset.ORDRE_BASE.compare(pass.getPassId(), net.getPassId());
+
+            if (cmp < 0) {
+                // Aucune transaction : le solde doit être resté à 0
+                verifierSolde(rapport, out, pass, BigDecimal.ZERO, depuis);
+                pass = passes.suivant();
+
+            } else if (cmp > 0) {
+                ecart(rapport, out, "PASS_INCONNU", null, net.getPassId(), null,
+                        net.getNet(), BigDecimal.ZERO, "transactions sans pass côté user-service");
+                net = nets.suivant();
+
+            } else {
+                verifierSolde(rapport, out, pass, net.getNet(), depuis);
+                pass = passes.suivant();
+                net = nets.suivant();
+            }
+        }
+
+        rapport.setPassLus(passes.getLus());
+        meterRegistry.counter("billing.reconciliation.lignes", "source", "passes").increment(passes.getLus());
+    }
+
+    /**
+     * Les deux lectures ne sont pas atomiques : un débit entre les deux fausse la comparaison.
+     * Un écart est donc revérifié pass par pass avant d'être signalé.
+     */
+    private void verifierSolde(ReconciliationReport rapport, BufferedWriter out,
+                               PassSoldeRow pass, BigDecimal netAttendu,
+                               LocalDateTime depuis) throws IOException {
+        if (pass.getSolde().compareTo(netAttendu) == 0) {
+            return;
+        }
+        BigDecimal net = netAttendu;
+        BigDecimal solde = pass.getSolde();
+        if (pass.getUserId() != null) {
+            try {
+                net = transactionRepository.netParPass(pass.getPassId(), depuis)
+                        .add(archiveTotalRepository.findById(pass.getPassId())
+                                .map(a -> a.getNet())
+                                .orElse(BigDecimal.ZERO));
+                solde = userServiceClient.getPass(pass.getUserId(), pass.getUserId().toString(), INTERNAL_ROLE)
+                        .getSolde();
+            } catch (Exception e) {
+                log.warn("Revérification du pass {} impossible : {}", pass.getPassId(), e.getMessage());
+            }
+        }
+        if (solde.compareTo(net) != 0) {
+            ecart(rapport, out, "SOLDE_DIVERGENT", null, pass.getPassId(), pass.getUserId(),
+                    net, solde, "écart " + solde.subtract(net) + " FCFA, pass " + pass.getStatus());
+        }
+    }
+
+    /**
+     * Fusion de deux flux triés par passId (table chaude + archives) :
+     * un seul net par pass, somme des deux côtés.
+     */
+    private static final class NetsCumules {
+
+        private final CurseurKeyset<NetParPass> chauds;
+        private final CurseurKeyset<NetParPass> archives;
+        private NetParPass chaud;
+        private NetParPass archive;
+
+        NetsCumules(CurseurKeyset<NetParPass> chauds, CurseurKeyset<NetParPass> archives) {
+            this.chauds = chauds;
+            this.archives = archives;
+            this.chaud = chauds.suivant();
+            this.archive = archives.suivant();
+        }
+
+        NetParPass suivant() {
+            if (chaud == null && archive == null) {
+                return null;
+            }
+            int cmp = chaud == null ? 1
+                    : archive == null ? -1
+                    : CurseurKeyset.ORDRE_BASE.compare(chaud.getPassId(), archive.getPassId());
+            NetParPass resultat;
+            if (cmp < 0) {
+                resultat = chaud;
+                chaud = chauds.suivant();
+            } else if (cmp > 0) {
+                resultat = archive;
+                archive = archives.suivant();
+            } else {
+                resultat = new NetParPass(chaud.getPassId(), chaud.getNet().add(archive.getNet()));
+                chaud = chauds.suivant();
+                archive = archives.suivant();
+            }
+            return resultat;
+        }
+    }
+
+    // ── Utilitaires ───────────────────────────────────────────────────────────
+
+    private void ecart(ReconciliationReport rapport, BufferedWriter out, String type,
+                       UUID tripId, UUID passId, UUID userId,
+                       BigDecimal attendu, BigDecimal constate, String detail) throws IOException {
+        out.write(type + ',' + valeur(tripId) + ',' + valeur(passId) + ',' + valeur(userId) + ','
+                + valeur(attendu) + ',' + valeur(constate) + ','
+                + (detail != null ? '"' + detail.replace("\"", "\"\"") + '"' : "") + '\n');
+        rapport.getEcartsParType().merge(type, 1L, Long::sum);
+        rapport.setEcarts(rapport.getEcarts() + 1);
+        meterRegistry.counter("billing.reconciliation.ecarts", "type", type).increment();
+    }
+
+    private ReconciliationReport nouveauRapport(String declencheur) {
+        LocalDateTime maintenant = LocalDateTime.now();
+        ReconciliationReport rapport = new ReconciliationReport();
+        rapport.setId(UUID.randomUUID());
+        rapport.setDeclencheur(declencheur);
+        rapport.setStatut("EN_COURS");
+        rapport.setDemarreLe(maintenant);
+        rapport.setCoupure(maintenant.minusMinutes(margeMinutes));
+        // Lue par GET /reconciliation/dernier pendant l'exécution
+        rapport.setEcartsParType(new ConcurrentSkipListMap<>());
+        dernier = rapport;
+        return rapport;
+    }
+
+    private static String valeur(Object o) {
+        return o != null ? o.toString() : "";
+    }
+}
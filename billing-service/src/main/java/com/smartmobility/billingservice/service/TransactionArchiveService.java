@@ -0,0 +1,312 @@
+package com.smartmobility.billingservice.service;
+
+import com.smartmobility.billingservice.entity.ArchiveStatus;
+import com.smartmobility.billingservice.entity.Transaction;
+import com.smartmobility.billingservice.entity.TransactionArchive;
+import com.smartmobility.billingservice.entity.TransactionStatus;
+import com.smartmobility.billingservice.entity.TransactionType;
+import com.smartmobility.billingservice.repository.TransactionArchiveRepository;
+import com.smartmobility.billingservice.repository.TransactionArchiveTotalRepository;
+import com.smartmobility.billingservice.repository.TransactionRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * TransactionArchiveService — séparation table chaude / stockage froid.
+ *
+ * La table transactions ne garde que le mois courant + billing.archive.hot-months
+ * mois clos. Chaque mois plus ancien est :
+ *   1. exporté dans un fichier CSV gzip (transactions-AAAA-MM.csv.gz),
+ *   2. résumé par pass dans transaction_archive_totals (pour la réconciliation),
+ *   3. supprimé de la table chaude par tranches — seulement après avoir relu
+ *      le fichier (nombre de lignes, CRC du contenu) : une archive tronquée ou
+ *      illisible ne fait jamais perdre de transactions.
+ *
+ * billing.archive.dir n'a pas de valeur par défaut : sans volume persistant
+ * configuré, le job ne fait rien (un répertoire temporaire serait vidé au
+ * redémarrage, après la purge).
+ *
+ * Les requêtes (historique, total du jour, stats) ne lisent que la table chaude :
+ * la taille des index et la latence restent stables quand le volume grandit.
+ */
+@Service
+public class TransactionArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionArchiveService.class);
+
+    private static final LocalDateTime ORIGINE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private record Export(Path fichier, long lignes, long crc) {}
+
+    private final TransactionRepository transactionRepository;
+    private final TransactionArchiveRepository archiveRepository;
+    private final TransactionArchiveTotalRepository archiveTotalRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${billing.archive.hot-months:3}")
+    private int moisChauds;
+
+    @Value("${billing.archive.dir:}")
+    private String dossierArchives;
+
+    @Value("${billing.archive.chunk-size:5000}")
+    private int tailleLot;
+
+    /** Un export EN_COURS plus vieux que ce délai est considéré abandonné (instance arrêtée). */
+    @Value("${billing.archive.lock-hours:6}")
+    private long verrouHeures;
+
+    public TransactionArchiveService(TransactionRepository transactionRepository,
+                                     TransactionArchiveRepository archiveRepository,
+                                     TransactionArchiveTotalRepository archiveTotalRepository,
+                                     TransactionTemplate transactionTemplate) {
+        this.transactionRepository = transactionRepository;
+        this.archiveRepository = archiveRepository;
+        this.archiveTotalRepository = archiveTotalRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /** Répertoire configuré mais inutilisable : échec au démarrage plutôt qu'au premier archivage. */
+    @PostConstruct
+    void verifierDossier() throws IOException {
+        if (dossierArchives.isBlank()) {
+            log.warn("billing.archive.dir non configuré : archivage des mois clos désactivé");
+            return;
+        }
+        Path dossier = Files.createDirectories(Paths.get(dossierArchives));
+        if (!Files.isWritable(dossier)) {
+            throw new IllegalStateException("billing.archive.dir non accessible en écriture : " + dossier);
+        }
+    }
+
+    // ── Job mensuel ───────────────────────────────────────────────────────────
+
+    @Scheduled(cron = "${billing.archive.cron:0 0 3 2 * *}")
+    public void archiverMoisClos() {
+        if (dossierArchives.isBlank()) {
+            return;
+        }
+        YearMonth limite = YearMonth.now().minusMonths(moisChauds);
+        LocalDateTime plusAncienne = transactionRepository.findPlusAncienneDate();
+        if (plusAncienne == null) {
+            return;
+        }
+        for (YearMonth mois = YearMonth.from(plusAncienne); mois.isBefore(limite); mois = mois.plusMonths(1)) {
+            try {
+                archiver(mois);
+            } catch (Exception e) {
+                // On s'arrête : les mois suivants ne doivent pas passer avant celui-ci
+                log.error("Archivage de {} en échec : {}", mois, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    /**
+     * Début de la table chaude : toutes les transactions antérieures sont
+     * comptées dans transaction_archive_totals (même si la purge n'est pas terminée).
+     */
+    public LocalDateTime debutTableChaude() {
+        String dernier = archiveRepository.findDernierMoisArchive();
+        return dernier != null ? YearMonth.parse(dernier).plusMonths(1).atDay(1).atStartOfDay() : ORIGINE;
+    }
+
+    public List<TransactionArchive> listerArchives() {
+        return archiveRepository.findAllByOrderByMoisDesc();
+    }
+
+    public Path fichierArchive(String mois) {
+        TransactionArchive archive = archiveRepository.findById(mois)
+                .filter(a -> a.getStatut() != ArchiveStatus.EN_COURS && a.getFichier() != null)
+                .orElseThrow(() -> new IllegalArgumentException("Aucune archive pour le mois " + mois));
+        Path fichier = Paths.get(archive.getFichier());
+        if (!Files.exists(fichier)) {
+            throw new IllegalArgumentException("Fichier d'archive introuvable : " + fichier.getFileName());
+        }
+        return fichier;
+    }
+
+    // ── Archivage d'un mois ───────────────────────────────────────────────────
+
+    private void archiver(YearMonth mois) throws IOException {
+        TransactionArchive archive = reserver(mois);
+        if (archive == null) {
+            return;
+        }
+        LocalDateTime debut = mois.atDay(1).atStartOfDay();
+        LocalDateTime fin = mois.plusMonths(1).atDay(1).atStartOfDay();
+
+        // 1 + 2. Export, relecture, puis report des totaux (une seule fois par mois)
+        if (archive.getStatut() == ArchiveStatus.EN_COURS) {
+            Export export = exporter(mois, debut, fin);
+            verifier(export.fichier(), export.lignes(), export.crc());
+            transactionTemplate.executeWithoutResult(status -> {
+                int passes = archiveTotalRepository.reporterNets(TransactionType.CREDIT.name(),
+                        TransactionStatus.SUCCESS.ordinal(), debut, fin);
+                archive.setNbTransactions(export.lignes());
+                archive.setFichier(export.fichier().toString());
+                archive.setStatut(ArchiveStatus.EXPORTE);
+                archiveRepository.save(archive);
+                log.info("Archive {} : {} transactions exportées, totaux de {} pass reportés",
+                        mois, archive.getNbTransactions(), passes);
+            });
+        } else {
+            // Reprise d'une purge interrompue : le fichier doit toujours être là et complet
+            verifier(Paths.get(archive.getFichier()), archive.getNbTransactions(), null);
+        }
+
+        // 3. Purge de la table chaude, par tranches courtes (pas de verrou long)
+        long supprimees = 0;
+        int tranche;
+        do {
+            tranche = transactionRepository.purgerTranche(debut, fin, tailleLot);
+            supprimees += tranche;
+        } while (tranche > 0);
+
+        archive.setStatut(ArchiveStatus.PURGE);
+        archive.setTermineLe(LocalDateTime.now());
+        archiveRepository.save(archive);
+        log.info("Archive {} terminée : {} transactions supprimées de la table chaude", mois, supprimees);
+    }
+
+    /**
+     * Verrou entre instances : la ligne du mois (clé primaire) est créée EN_COURS.
+     * Retourne null si une autre instance archive déjà ce mois.
+     */
+    private TransactionArchive reserver(YearMonth mois) {
+        TransactionArchive existante = archiveRepository.findById(mois.toString()).orElse(null);
+        if (existante != null) {
+            boolean abandonnee = existante.getStatut() == ArchiveStatus.EN_COURS
+                    && existante.getDemarreLe().isBefore(LocalDateTime.now().minusHours(verrouHeures));
+            if (existante.getStatut() == ArchiveStatus.EN_COURS && !abandonnee) {
+                return null;
+            }
+            if (abandonnee) {
+                existante.setDemarreLe(LocalDateTime.now());
+                return archiveRepository.save(existante);
+            }
+            return existante; // EXPORTE ou PURGE : reprise de la purge
+        }
+
+        TransactionArchive archive = new TransactionArchive();
+        archive.setMois(mois.toString());
+        archive.setStatut(ArchiveStatus.EN_COURS);
+        archive.setDemarreLe(LocalDateTime.now());
+        try {
+            return archiveRepository.saveAndFlush(archive);
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Écrit le mois dans un fichier temporaire, le force sur disque puis le renomme :
+     * un fichier transactions-AAAA-MM.csv.gz présent est toujours complet.
+     * Le CRC porte sur le CSV décompressé, pour la relecture.
+     */
+    private Export exporter(YearMonth mois, LocalDateTime debut, LocalDateTime fin) throws IOException {
+        Path dossier = Paths.get(dossierArchives);
+        Files.createDirectories(dossier);
+        Path fichier = dossier.resolve("transactions-" + mois + ".csv.gz");
+        Path temporaire = dossier.resolve("transactions-" + mois + ".csv.gz.tmp");
+
+        long lignes = 0;
+        CRC32 crc = new CRC32();
+        try (BufferedWriter out = new BufferedWriter(new OutputStreamWriter(new CheckedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(temporaire)), crc), StandardCharsets.UTF_8))) {
+            out.write("id,userId,passId,tripId,montant,type,typeTransport,status,soldeApres,createdAt,description\n");
+
+            LocalDateTime apresDate = debut.minusNanos(1000);
+            UUID apresId = CurseurKeyset.DEBUT;
+            List<Transaction> lot;
+            do {
+                lot = transactionRepository.findLotPeriode(apresDate, apresId, fin, PageRequest.of(0, tailleLot));
+                for (Transaction t : lot) {
+                    ecrire(out, t);
+                }
+                lignes += lot.size();
+                if (!lot.isEmpty()) {
+                    Transaction derniere = lot.get(lot.size() - 1);
+                    apresDate = derniere.getCreatedAt();
+                    apresId = derniere.getId();
+                }
+            } while (lot.size() == tailleLot);
+        }
+
+        try (FileChannel canal = FileChannel.open(temporaire, StandardOpenOption.WRITE)) {
+            canal.force(true);
+        }
+        Files.move(temporaire, fichier, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Export(fichier, lignes, crc.getValue());
+    }
+
+    /**
+     * Relit l'archive en entier avant toute suppression : gzip valide,
+     * une ligne par transaction (+ en-tête) et, juste après l'export, même CRC.
+     * Les descriptions sont échappées en CSV mais peuvent contenir des retours
+     * à la ligne : on compte les fins de ligne hors guillemets.
+     */
+    private void verifier(Path fichier, long lignesAttendues, Long crcAttendu) throws IOException {
+        CRC32 crc = new CRC32();
+        long lignes = 0;
+        boolean entreGuillemets = false;
+        try (InputStream in = new CheckedInputStream(new GZIPInputStream(Files.newInputStream(fichier)), crc)) {
+            byte[] tampon = new byte[64 * 1024];
+            int lus;
+            while ((lus = in.read(tampon)) > 0) {
+                for (int i = 0; i < lus; i++) {
+                    if (tampon[i] == '"') {
+                        entreGuillemets = !entreGuillemets;
+                    } else if (tampon[i] == '\n' && !entreGuillemets) {
+                        lignes++;
+                    }
+                }
+            }
+        }
+        if (lignes - 1 != lignesAttendues || (crcAttendu != null && crc.getValue() != crcAttendu)) {
+            throw new IOException("Archive " + fichier.getFileName() + " incomplète ou altérée : "
+                    + (lignes - 1) + " transactions relues, " + lignesAttendues + " attendues");
+        }
+    }
+
+    private void ecrire(BufferedWriter out, Transaction t) throws IOException {
+        out.write(valeur(t.getId()) + ',' + valeur(t.getUserId()) + ',' + valeur(t.getPassId()) + ','
+                + valeur(t.getTripId()) + ',' + valeur(t.getMontant()) + ',' + valeur(t.getType()) + ','
+                + valeur(t.getTypeTransport()) + ',' + valeur(t.getStatus()) + ','
+                + valeur(t.getSoldeApres()) + ',' + valeur(t.getCreatedAt()) + ','
+                + (t.getDescription() != null ? '"' + t.getDescription().replace("\"", "\"\"") + '"' : "")
+                + '\n');
+    }
+
+    private static String valeur(Object o) {
+        return o != null ? o.toString() : "";
+    }
+}
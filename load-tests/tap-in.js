@@ -0,0 +1,123 @@
+// Banc de charge k6 — parcours "tap-in" à travers la gateway.
+//
+// Par itération (un usager qui valide son pass) :
+//   1. POST /api/trips/initiate        (gateway → trip-service → user-service / pricing-service)
+//   2. GET  /api/me/dashboard          (agrégation trip + pass + notifications)
+//   3. PUT  /api/trips/{id}/cancel     (libère le pass pour l'itération suivante, sans débit)
+//
+// Mesure de l'effet du transport (h2c + pools) sur le p99 :
+//   (depuis load-tests/, après mkdir -p results)
+//   a) services lancés avec gateway.transport.h2c.enabled=false
+//      et spring.cloud.openfeign.httpclient.hc5.enabled=false :
+//        k6 run -e LABEL=baseline tap-in.js
+//   b) services relancés avec la configuration par défaut (h2c + hc5) :
+//        k6 run -e LABEL=tuned -e BASELINE=results/baseline.json tap-in.js
+//   Le résumé de (b) affiche le p99 de chaque étape avant / après.
+//
+// Les quotas de la gateway s'appliquent aussi au test : lancer la gateway avec
+//   --gateway.rate-limit.trips-initiate.per-second=1000 --gateway.rate-limit.trips-initiate.burst=1000
+// ou fournir plusieurs comptes (USERS=fichier JSON [{ "email": ..., "password": ... }]).
+//
+// Variables : BASE_URL (http://localhost:8080), EMAIL, PASSWORD, USERS, LIGNE, DEPART, ARRIVEE,
+//             TRANSPORT (BRT), VUS (50), DURATION (2m), LABEL, BASELINE.
+
+import http from 'k6/http';
+import { check, fail } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const LABEL = __ENV.LABEL || 'run';
+
+const COMPTES = __ENV.USERS
+    ? JSON.parse(open(__ENV.USERS))
+    : [{ email: __ENV.EMAIL || 'loadtest@smartmobility.com', password: __ENV.PASSWORD || 'loadtest' }];
+
+const REFERENCE = __ENV.BASELINE ? JSON.parse(open(__ENV.BASELINE)) : null;
+
+const ETAPES = ['initiate', 'dashboard', 'cancel'];
+
+export const options = {
+    scenarios: {
+        tap_in: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 50),
+            duration: __ENV.DURATION || '2m',
+        },
+    },
+    summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+    // Un seuil par étape : k6 ne calcule les sous-métriques {etape:...} que si elles ont un seuil
+    thresholds: {
+        'http_req_duration{etape:initiate}': ['p(99)<1500'],
+        'http_req_duration{etape:dashboard}': ['p(99)<1000'],
+        'http_req_duration{etape:cancel}': ['p(99)<1000'],
+        'http_req_failed': ['rate<0.01'],
+    },
+};
+
+// ── Préparation : un token + un pass par compte ──────────────────────────────
+export function setup() {
+    return COMPTES.map((compte) => {
+        const login = http.post(`${BASE_URL}/api/auth/login`, JSON.stringify(compte), {
+            headers: { 'Content-Type': 'application/json' },
+        });
+        if (login.status !== 200) {
+            fail(`Login impossible pour ${compte.email} : ${login.status}`);
+        }
+        const { token, userId } = login.json();
+        const auth = { Authorization: `Bearer ${token}` };
+
+        const pass = http.get(`${BASE_URL}/api/users/${userId}/pass`, { headers: auth });
+        if (pass.status !== 200) {
+            fail(`Pass introuvable pour ${compte.email} : ${pass.status}`);
+        }
+        return { auth, passId: pass.json().id };
+    });
+}
+
+// ── Une validation de pass ────────────────────────────────────────────────────
+export default function (usagers) {
+    const usager = usagers[(__VU - 1) % usagers.length];
+    const headers = { ...usager.auth, 'Content-Type': 'application/json' };
+
+    const initiation = http.post(`${BASE_URL}/api/trips/initiate`, JSON.stringify({
+        passId: usager.passId,
+        transportType: __ENV.TRANSPORT || 'BRT',
+        ligneId: __ENV.LIGNE || 'BRT_B1',
+        arretDepartId: __ENV.DEPART || 'BRT_PETERSEN',
+        arretArriveeId: __ENV.ARRIVEE || 'BRT_PARCELLES',
+    }), { headers, tags: { etape: 'initiate' } });
+    check(initiation, { 'initiate 201': (r) => r.status === 201 });
+
+    const dashboard = http.get(`${BASE_URL}/api/me/dashboard`, { headers, tags: { etape: 'dashboard' } });
+    check(dashboard, { 'dashboard 200': (r) => r.status === 200 });
+
+    if (initiation.status === 201) {
+        const tripId = initiation.json().tripId;
+        http.put(`${BASE_URL}/api/trips/${tripId}/cancel`, null, { headers, tags: { etape: 'cancel' } });
+    }
+}
+
+// ── Résumé : p99 par étape, comparé au run de référence ───────────────────────
+export function handleSummary(data) {
+    const p99 = {};
+    for (const etape of ETAPES) {
+        const metrique = data.metrics[`http_req_duration{etape:${etape}}`];
+        p99[etape] = metrique ? metrique.values['p(99)'] : null;
+    }
+
+    const lignes = [`\nTap-in — ${LABEL} — p99 (ms)`];
+    for (const etape of ETAPES) {
+        const actuel = p99[etape];
+        const avant = REFERENCE ? REFERENCE.p99[etape] : null;
+        let ligne = `  ${etape.padEnd(10)} ${actuel !== null ? actuel.toFixed(1) : 'n/a'}`;
+        if (avant && actuel !== null) {
+            const delta = ((actuel - avant) / avant) * 100;
+            ligne += `   (référence ${avant.toFixed(1)}, ${delta >= 0 ? '+' : ''}${delta.toFixed(1)} %)`;
+        }
+        lignes.push(ligne);
+    }
+
+    return {
+        stdout: lignes.join('\n') + '\n',
+        [`results/${LABEL}.json`]: JSON.stringify({ label: LABEL, p99 }, null, 2),
+    };
+}
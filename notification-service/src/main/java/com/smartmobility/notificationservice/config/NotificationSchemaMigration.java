@@ -0,0 +1,38 @@
+package com.smartmobility.notificationservice.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Passe la colonne notifications.type de ENUM MySQL (créée par d'anciennes versions)
+ * à varchar(50), au démarrage et une seule fois.
+ *
+ * ddl-auto=update ne modifie pas une colonne existante : sans cet ALTER,
+ * tout nouveau NotificationType (PASS_EXPIRED...) serait refusé à l'INSERT.
+ * Sans effet si la table n'existe pas encore ou si la colonne est déjà en varchar.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class NotificationSchemaMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    void migrer() {
+        List<String> types = jdbcTemplate.queryForList(
+                "SELECT DATA_TYPE FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'notifications' AND COLUMN_NAME = 'type'",
+                String.class);
+        if (types.isEmpty() || !"enum".equalsIgnoreCase(types.get(0))) {
+            return;
+        }
+        jdbcTemplate.execute("ALTER TABLE notifications MODIFY COLUMN type varchar(50) NOT NULL");
+        log.info("[NotificationSchemaMigration] Colonne notifications.type convertie de ENUM en varchar(50)");
+    }
+}
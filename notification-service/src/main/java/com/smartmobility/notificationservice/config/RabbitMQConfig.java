@@ -23,6 +23,7 @@ public class RabbitMQConfig {
     @Value("${rabbitmq.queue.recharge-refused}")     private String rechargeRefusedQueue;
     @Value("${rabbitmq.queue.pass-suspended}")       private String passSuspendedQueue;
     @Value("${rabbitmq.queue.pass-activated}")       private String passActivatedQueue;
+    @Value("${rabbitmq.queue.passes-expired:passes-expired-queue}") private String passesExpiredQueue;
 
     @Value("${rabbitmq.routing-key.trip-started}")         private String tripStartedKey;
     @Value("${rabbitmq.routing-key.trip-completed}")       private String tripCompletedKey;
@@ -33,6 +34,7 @@ public class RabbitMQConfig {
     @Value("${rabbitmq.routing-key.recharge-refused}")     private String rechargeRefusedKey;
     @Value("${rabbitmq.routing-key.pass-suspended}")       private String passSuspendedKey;
     @Value("${rabbitmq.routing-key.pass-activated}")       private String passActivatedKey;
+    @Value("${rabbitmq.routing-key.passes-expired:pass.expired.batch}") private String passesExpiredKey;
 
     @Bean public TopicExchange smartMobilityExchange() {
         return new TopicExchange(exchangeName, true, false);
@@ -48,6 +50,7 @@ public class RabbitMQConfig {
     @Bean public Queue rechargeRefusedQueue()     { return QueueBuilder.durable(rechargeRefusedQueue).build(); }
     @Bean public Queue passSuspendedQueue()       { return QueueBuilder.durable(passSuspendedQueue).build(); }
     @Bean public Queue passActivatedQueue()       { return QueueBuilder.durable(passActivatedQueue).build(); }
+    @Bean public Queue passesExpiredQueue()       { return QueueBuilder.durable(passesExpiredQueue).build(); }
 
     // ── Bindings ──────────────────────────────────────────────────────────────
     @Bean public Binding tripStartedBinding()         { return bind(tripStartedQueue(),         tripStartedKey); }
@@ -59,6 +62,7 @@ public class RabbitMQConfig {
     @Bean public Binding rechargeRefusedBinding()     { return bind(rechargeRefusedQueue(),     rechargeRefusedKey); }
     @Bean public Binding passSuspendedBinding()       { return bind(passSuspendedQueue(),       passSuspendedKey); }
     @Bean public Binding passActivatedBinding()       { return bind(passActivatedQueue(),       passActivatedKey); }
+    @Bean public Binding passesExpiredBinding()       { return bind(passesExpiredQueue(),       passesExpiredKey); }
 
     private Binding bind(Queue q, String key) {
         return BindingBuilder.bind(q).to(smartMobilityExchange()).with(key);
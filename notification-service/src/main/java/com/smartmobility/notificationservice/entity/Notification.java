@@ -31,8 +31,10 @@ public class Notification {
     @Column(name = "trip_id")
     private UUID tripId;
 
+    // varchar et non ENUM MySQL natif : ddl-auto=update ne modifie jamais la liste
+    // des valeurs d'une colonne ENUM existante (un nouveau type ferait échouer l'INSERT)
     @Enumerated(EnumType.STRING)
-    @Column(name = "type", nullable = false)
+    @Column(name = "type", nullable = false, columnDefinition = "varchar(50)")
     private NotificationType type;
 
     @Column(name = "message", nullable = false, length = 500)
@@ -15,4 +15,5 @@ public enum NotificationType {
     // ── Pass ──────────────────────────────────────────────────────────────────
     PASS_SUSPENDED,         // Pass suspendu par admin
     PASS_ACTIVATED,         // Pass réactivé par admin
+    PASS_EXPIRED,           // Pass arrivé à échéance (job d'expiration)
 }
\ No newline at end of file
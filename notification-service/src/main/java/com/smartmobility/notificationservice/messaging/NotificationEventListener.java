@@ -81,4 +81,12 @@ public class NotificationEventListener {
         try { notificationService.handlePassActivated(event); }
         catch (Exception e) { log.error("[RabbitMQ] PASS_ACTIVATED : {}", e.getMessage()); }
     }
-}
\ No newline at end of file
+
+    @RabbitListener(queues = "${rabbitmq.queue.passes-expired:passes-expired-queue}")
+    public void onPassesExpired(PassesExpiredEvent event) {
+        int nb = event.getPasses() != null ? event.getPasses().size() : 0;
+        log.info("[RabbitMQ] PASSES_EXPIRED - {} pass", nb);
+        try { notificationService.handlePassesExpired(event); }
+        catch (Exception e) { log.error("[RabbitMQ] PASSES_EXPIRED : {}", e.getMessage()); }
+    }
+}
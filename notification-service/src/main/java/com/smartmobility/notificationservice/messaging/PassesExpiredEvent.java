@@ -0,0 +1,20 @@
+package com.smartmobility.notificationservice.messaging;
+import lombok.*;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+@Data @Builder @NoArgsConstructor @AllArgsConstructor
+public class PassesExpiredEvent {
+    private List<PassExpire> passes;
+    private LocalDateTime expiredAt;
+
+    @Data @NoArgsConstructor @AllArgsConstructor
+    public static class PassExpire {
+        private UUID userId;
+        private UUID passId;
+        private String passNumber;
+        private BigDecimal currentBalance;
+        private LocalDateTime expirationDate;
+    }
+}
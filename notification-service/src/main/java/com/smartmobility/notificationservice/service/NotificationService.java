@@ -10,6 +10,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -172,6 +173,30 @@ public class NotificationService {
         log.info("[NotifService] PASS_ACTIVATED - userId={}, pass={}", event.getUserId(), event.getPassNumber());
     }
 
+    /** Un lot du job d'expiration → un seul saveAll. */
+    @Transactional
+    public void handlePassesExpired(PassesExpiredEvent event) {
+        if (event.getPasses() == null || event.getPasses().isEmpty()) return;
+
+        List<Notification> notifications = new ArrayList<>(event.getPasses().size());
+        for (PassesExpiredEvent.PassExpire pass : event.getPasses()) {
+            if (pass.getUserId() == null || pass.getPassId() == null) continue; // pass orphelin
+            String msg = String.format(
+                    "Votre Mobility Pass %s a expiré. Solde conservé : %.0f FCFA. " +
+                            "Renouvelez-le pour voyager à nouveau.",
+                    pass.getPassNumber(),
+                    pass.getCurrentBalance() != null ? pass.getCurrentBalance() : BigDecimal.ZERO);
+
+            notifications.add(Notification.builder()
+                    .userId(pass.getUserId()).passId(pass.getPassId())
+                    .type(NotificationType.PASS_EXPIRED).message(msg)
+                    .balanceAfter(pass.getCurrentBalance()).build());
+        }
+        notificationRepository.saveAll(notifications);
+
+        log.info("[NotifService] PASS_EXPIRED - {} notifications", notifications.size());
+    }
+
     // ════════════════════════════════════════════════════════════════════════
     // LECTURE / GESTION
     // ════════════════════════════════════════════════════════════════════════
@@ -0,0 +1,88 @@
+package com.smartmobility.loadbalancer;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * AdaptiveLoadBalancer — "power of two choices" sur latence EWMA et requêtes en vol.
+ *
+ * Au lieu du round-robin (une instance lente ou en pause GC garde sa part du trafic) :
+ * deux instances tirées au hasard parmi les instances non éjectées, on garde celle
+ * dont le score (latence lissée × (en vol + 1)) est le plus bas.
+ * Garde-fou : si plus de loadbalancer.adaptive.ejection.max-percent des instances
+ * sont éjectées, l'éjection est ignorée (mieux vaut une instance douteuse que rien).
+ */
+public class AdaptiveLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> fournisseur;
+    private final InstanceStats stats;
+    private final double maxPartEjectee;
+
+    public AdaptiveLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> fournisseur,
+                                InstanceStats stats,
+                                double maxPartEjectee) {
+        this.fournisseur = fournisseur;
+        this.stats = stats;
+        this.maxPartEjectee = maxPartEjectee;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = fournisseur.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> reponse = choisir(instances);
+            if (supplier instanceof SelectedInstanceCallback callback && reponse.hasServer()) {
+                callback.selectedServiceInstance(reponse.getServer());
+            }
+            return reponse;
+        });
+    }
+
+    private Response<ServiceInstance> choisir(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            return new EmptyResponse();
+        }
+        if (instances.size() == 1) {
+            return new DefaultResponse(instances.get(0));
+        }
+
+        // ── Instances éligibles (hors éjection, sauf si trop sont éjectées) ──
+        long maintenant = System.nanoTime();
+        List<ServiceInstance> eligibles = new ArrayList<>(instances.size());
+        for (ServiceInstance instance : instances) {
+            if (!stats.de(instance).estEjectee(maintenant)) {
+                eligibles.add(instance);
+            }
+        }
+        if (eligibles.size() < instances.size() * (1 - maxPartEjectee) || eligibles.isEmpty()) {
+            eligibles = instances;
+        }
+        if (eligibles.size() == 1) {
+            return new DefaultResponse(eligibles.get(0));
+        }
+
+        // ── Deux tirages, la moins chargée gagne ──────────────────────────────
+        ThreadLocalRandom aleatoire = ThreadLocalRandom.current();
+        int i = aleatoire.nextInt(eligibles.size());
+        int j = aleatoire.nextInt(eligibles.size() - 1);
+        if (j >= i) {
+            j++;
+        }
+        ServiceInstance a = eligibles.get(i);
+        ServiceInstance b = eligibles.get(j);
+        return new DefaultResponse(stats.de(a).score() <= stats.de(b).score() ? a : b);
+    }
+}
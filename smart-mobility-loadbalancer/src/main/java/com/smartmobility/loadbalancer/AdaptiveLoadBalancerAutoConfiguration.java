@@ -0,0 +1,23 @@
+package com.smartmobility.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Répartition de charge adaptative pour tous les appels lb:// (P2C + EWMA + éjection),
+ * routes de la gateway comme clients Feign : il suffit d'ajouter la dépendance.
+ * loadbalancer.adaptive.enabled=false → retour au round-robin par défaut.
+ */
+@AutoConfiguration(beforeName = "org.springframework.cloud.loadbalancer.config.LoadBalancerAutoConfiguration")
+@ConditionalOnProperty(name = "loadbalancer.adaptive.enabled", havingValue = "true", matchIfMissing = true)
+@LoadBalancerClients(defaultConfiguration = AdaptiveLoadBalancerConfiguration.class)
+public class AdaptiveLoadBalancerAutoConfiguration {
+
+    @Bean
+    public InstanceStats instanceStats(MeterRegistry meterRegistry) {
+        return new InstanceStats(meterRegistry);
+    }
+}
@@ -0,0 +1,31 @@
+package com.smartmobility.loadbalancer;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Configuration appliquée au contexte de CHAQUE client LoadBalancer (un par service).
+ * Volontairement sans @Configuration : elle ne doit pas être chargée dans le contexte
+ * principal, seulement via @LoadBalancerClients(defaultConfiguration = ...).
+ */
+public class AdaptiveLoadBalancerConfiguration {
+
+    @Bean
+    public ReactorLoadBalancer<ServiceInstance> adaptiveLoadBalancer(
+            Environment environment,
+            LoadBalancerClientFactory loadBalancerClientFactory,
+            InstanceStats instanceStats,
+            @Value("${loadbalancer.adaptive.ejection.max-percent:50}") double maxPourcentEjecte) {
+
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+        return new AdaptiveLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                instanceStats,
+                maxPourcentEjecte / 100.0);
+    }
+}
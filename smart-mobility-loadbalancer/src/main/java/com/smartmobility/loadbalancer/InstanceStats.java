@@ -0,0 +1,166 @@
+package com.smartmobility.loadbalancer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.CompletionContext;
+import org.springframework.cloud.client.loadbalancer.LoadBalancerLifecycle;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.client.loadbalancer.ResponseData;
+import org.springframework.cloud.client.loadbalancer.TimedRequestContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * InstanceStats — latence et charge observées par instance, pour AdaptiveLoadBalancer.
+ *
+ * Alimenté par le cycle de vie Spring Cloud LoadBalancer (onStartRequest / onComplete),
+ * appelé aussi bien par les routes lb:// de la gateway que par les clients Feign :
+ *   - requêtes en vol ;
+ *   - latence lissée (EWMA, poids loadbalancer.adaptive.ewma-alpha) ;
+ *   - éjection temporaire après loadbalancer.adaptive.ejection.consecutive-failures
+ *     échecs consécutifs (erreur réseau ou 5xx), durée croissante à chaque récidive ;
+ *     le compteur de récidives repart de zéro après loadbalancer.adaptive.ejection.reset-seconds
+ *     sans éjection (instance redevenue saine).
+ *
+ * Bean déclaré par AdaptiveLoadBalancerAutoConfiguration.
+ */
+public class InstanceStats implements LoadBalancerLifecycle<Object, Object, ServiceInstance> {
+
+    private static final Logger log = LoggerFactory.getLogger(InstanceStats.class);
+
+    /** État d'une instance ; tous les champs sont mis à jour sans verrou. */
+    static final class Stats {
+        final AtomicInteger enVol = new AtomicInteger();
+        final AtomicLong ewmaNanos = new AtomicLong();          // 0 = pas encore mesurée
+        final AtomicInteger echecsConsecutifs = new AtomicInteger();
+        final AtomicInteger ejections = new AtomicInteger();
+        volatile long ejecteeJusqua;                             // System.nanoTime()
+
+        boolean estEjectee(long maintenant) {
+            return ejecteeJusqua - maintenant > 0;
+        }
+
+        /** Plus petit = meilleur : latence lissée pondérée par la file d'attente. */
+        double score() {
+            return (ewmaNanos.get() + 1_000_000.0) * (enVol.get() + 1);
+        }
+    }
+
+    private final Map<String, Stats> parInstance = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    @Value("${loadbalancer.adaptive.ewma-alpha:0.3}")
+    private double alpha;
+
+    @Value("${loadbalancer.adaptive.ejection.consecutive-failures:5}")
+    private int seuilEchecs;
+
+    @Value("${loadbalancer.adaptive.ejection.base-seconds:30}")
+    private long ejectionBaseSecondes;
+
+    @Value("${loadbalancer.adaptive.ejection.max-seconds:300}")
+    private long ejectionMaxSecondes;
+
+    @Value("${loadbalancer.adaptive.ejection.reset-seconds:600}")
+    private long reinitialisationSecondes;
+
+    public InstanceStats(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    Stats de(ServiceInstance instance) {
+        return parInstance.computeIfAbsent(cle(instance), k -> new Stats());
+    }
+
+    // ── Cycle de vie LoadBalancer ─────────────────────────────────────────────
+
+    @Override
+    public boolean supports(Class requestContextClass, Class responseClass, Class serverTypeClass) {
+        return ServiceInstance.class.isAssignableFrom(serverTypeClass);
+    }
+
+    @Override
+    public void onStart(Request<Object> request) {
+    }
+
+    @Override
+    public void onStartRequest(Request<Object> request, Response<ServiceInstance> lbResponse) {
+        if (lbResponse == null || lbResponse.getServer() == null) {
+            return;
+        }
+        if (request.getContext() instanceof TimedRequestContext contexte) {
+            contexte.setRequestStartTime(System.nanoTime());
+        }
+        de(lbResponse.getServer()).enVol.incrementAndGet();
+    }
+
+    @Override
+    public void onComplete(CompletionContext<Object, ServiceInstance, Object> completion) {
+        Response<ServiceInstance> lbResponse = completion.getLoadBalancerResponse();
+        if (lbResponse == null || lbResponse.getServer() == null
+                || completion.status() == CompletionContext.Status.DISCARD) {
+            return;
+        }
+        ServiceInstance instance = lbResponse.getServer();
+        Stats stats = de(instance);
+        stats.enVol.updateAndGet(n -> Math.max(0, n - 1));
+
+        long maintenant = System.nanoTime();
+        if (completion.getLoadBalancerRequest() != null
+                && completion.getLoadBalancerRequest().getContext() instanceof TimedRequestContext contexte
+                && contexte.getRequestStartTime() > 0) {
+            lisser(stats, maintenant - contexte.getRequestStartTime());
+        }
+
+        if (estEchec(completion)) {
+            if (stats.echecsConsecutifs.incrementAndGet() >= seuilEchecs) {
+                ejecter(instance, stats, maintenant);
+            }
+        } else {
+            stats.echecsConsecutifs.set(0);
+        }
+    }
+
+    // ── Calculs ───────────────────────────────────────────────────────────────
+
+    private void lisser(Stats stats, long latence) {
+        stats.ewmaNanos.getAndUpdate(ancienne -> ancienne == 0
+                ? latence
+                : (long) (alpha * latence + (1 - alpha) * ancienne));
+    }
+
+    private static boolean estEchec(CompletionContext<Object, ServiceInstance, Object> completion) {
+        if (completion.status() == CompletionContext.Status.FAILED) {
+            return true;
+        }
+        return completion.getClientResponse() instanceof ResponseData reponse
+                && reponse.getHttpStatus() != null
+                && reponse.getHttpStatus().is5xxServerError();
+    }
+
+    private void ejecter(ServiceInstance instance, Stats stats, long maintenant) {
+        stats.echecsConsecutifs.set(0);
+        // Saine depuis la fin de la dernière éjection assez longtemps : on oublie les récidives
+        long saineDepuis = maintenant - stats.ejecteeJusqua;
+        int recidive = saineDepuis > reinitialisationSecondes * 1_000_000_000L
+                ? stats.ejections.updateAndGet(n -> 1)
+                : Math.min(stats.ejections.incrementAndGet(), 10);
+        long duree = Math.min(ejectionBaseSecondes * recidive, ejectionMaxSecondes);
+        stats.ejecteeJusqua = maintenant + duree * 1_000_000_000L;
+        // Retour progressif : l'historique de latence repart de zéro à la réintégration
+        stats.ewmaNanos.set(0);
+        meterRegistry.counter("loadbalancer.adaptive.ejections", "service", instance.getServiceId()).increment();
+        log.warn("Instance {} éjectée pour {} s ({} échecs consécutifs)", cle(instance), duree, seuilEchecs);
+    }
+
+    private static String cle(ServiceInstance instance) {
+        return instance.getServiceId() + '@' + instance.getHost() + ':' + instance.getPort();
+    }
+}
@@ -0,0 +1,42 @@
+package com.smartmobility.tripservice.controller;
+
+import com.smartmobility.tripservice.dto.TripSettlementRow;
+import com.smartmobility.tripservice.repository.TripRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * InternalTripController — appelé uniquement par les autres services via Feign
+ * (billing-service pour la réconciliation nocturne).
+ * PAS exposé par la Gateway (/internal/** non routé).
+ */
+@RestController
+@RequestMapping("/internal/trips")
+@RequiredArgsConstructor
+public class InternalTripController {
+
+    private static final int LIMITE_MAX = 5000;
+
+    private final TripRepository tripRepository;
+
+    // GET /internal/trips/settlement?apresId=...&depuis=...&avant=...&limite=1000
+    @GetMapping("/settlement")
+    @Transactional(readOnly = true)
+    public List<TripSettlementRow> lireTrajetsTarifes(
+            @RequestParam(defaultValue = "00000000-0000-0000-0000-000000000000") UUID apresId,
+            @RequestParam(defaultValue = "1970-01-01T00:00:00")
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime depuis,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime avant,
+            @RequestParam(defaultValue = "1000") int limite) {
+
+        return tripRepository.findSettlementChunk(apresId, depuis, avant,
+                PageRequest.of(0, Math.max(1, Math.min(limite, LIMITE_MAX))));
+    }
+}
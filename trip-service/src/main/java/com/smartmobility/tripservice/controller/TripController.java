@@ -60,6 +60,14 @@ public class TripController {
         return ResponseEntity.ok(tripService.getTripsByUserId(userId));
     }
 
+    // ── Dernier trajet (tableau de bord mobile) ──────────────────────────────
+    @GetMapping("/user/{userId}/latest")
+    public ResponseEntity<Trip> getLatestTrip(@PathVariable UUID userId) {
+        return tripService.getDernierTrajet(userId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
     // ── Tous les trajets (admin) ──────────────────────────────────────────────
     @GetMapping
     public ResponseEntity<List<Trip>> getAllTrips() {
@@ -13,7 +13,7 @@ import java.util.UUID;
  * PassValidationResponse — mappé sur PassResponse du user-service.
  * <p>
  * user-service retourne :
- * { id, passNumber, status (ACTIVE/SUSPENDU/EXPIRE), solde, userId, ... }
+ * { id, passNumber, status (ACTIVE/SUSPENDU/EXPIRE), solde, userId, tier, ... }
  * <p>
  * On mappe :
  * solde    → balance
@@ -34,8 +34,10 @@ public class PassValidationResponse {
     private String status;    // ACTIVE, SUSPENDU, EXPIRE
     private String passNumber;
 
-    // Champs calculés/dérivés (non retournés par user-service, valeurs par défaut)
+    // Niveau de fidélité calculé par user-service (STANDARD si absent)
     private String tier = "STANDARD";
+
+    // Champ dérivé (non retourné par user-service, valeur par défaut)
     private int totalTrips = 0;
 
     // Aliases pour compatibilité avec TripService
@@ -0,0 +1,27 @@
+package com.smartmobility.tripservice.dto;
+
+import com.smartmobility.tripservice.entity.TripStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * TripSettlementRow — vue compacte d'un trajet tarifé pour la réconciliation
+ * du billing-service (projection JPQL, pas d'entité chargée).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripSettlementRow {
+
+    private UUID id;
+    private UUID userId;
+    private UUID passId;
+    private TripStatus status;
+    private BigDecimal computedFare;
+    private LocalDateTime createdAt;
+}
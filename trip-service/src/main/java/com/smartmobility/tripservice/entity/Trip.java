@@ -10,7 +10,10 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "trips")
+@Table(name = "trips", indexes = {
+        // Trajets d'un usager, du plus récent au plus ancien (dernier trajet du dashboard, historique)
+        @Index(name = "idx_trips_user_created", columnList = "user_id, created_at")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -1,7 +1,9 @@
 package com.smartmobility.tripservice.repository;
 
+import com.smartmobility.tripservice.dto.TripSettlementRow;
 import com.smartmobility.tripservice.entity.Trip;
 import com.smartmobility.tripservice.entity.TripStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,6 +11,7 @@ import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Repository
@@ -16,6 +19,8 @@ public interface TripRepository extends JpaRepository<Trip, UUID> {
 
     List<Trip> findByUserIdOrderByCreatedAtDesc(UUID userId);
 
+    Optional<Trip> findFirstByUserIdOrderByCreatedAtDesc(UUID userId);
+
     List<Trip> findByPassIdOrderByCreatedAtDesc(UUID passId);
 
     List<Trip> findByStatus(TripStatus status);
@@ -35,4 +40,19 @@ public interface TripRepository extends JpaRepository<Trip, UUID> {
     List<Trip> findByUserIdAndCreatedAtBetween(UUID userId,
                                                LocalDateTime start,
                                                LocalDateTime end);
-}
\ No newline at end of file
+
+    /**
+     * Trajets tarifés triés par id (pagination keyset : id > apresId).
+     * Le débit a lieu à l'initiation, donc tout trajet avec un tarif doit avoir son débit.
+     */
+    @Query("SELECT new com.smartmobility.tripservice.dto.TripSettlementRow(" +
+            "t.id, t.userId, t.passId, t.status, t.computedFare, t.createdAt) " +
+            "FROM Trip t " +
+            "WHERE t.id > :apresId AND t.computedFare IS NOT NULL " +
+            "AND t.createdAt >= :depuis AND t.createdAt < :avant " +
+            "ORDER BY t.id")
+    List<TripSettlementRow> findSettlementChunk(@Param("apresId") UUID apresId,
+                                                @Param("depuis") LocalDateTime depuis,
+                                                @Param("avant") LocalDateTime avant,
+                                                Pageable pageable);
+}
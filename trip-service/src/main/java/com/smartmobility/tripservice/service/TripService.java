@@ -325,6 +325,11 @@ public class TripService {
         return tripRepository.findByUserIdOrderByCreatedAtDesc(userId);
     }
 
+    /** Dernier trajet de l'utilisateur (LIMIT 1), sans charger tout l'historique. */
+    public Optional<Trip> getDernierTrajet(UUID userId) {
+        return tripRepository.findFirstByUserIdOrderByCreatedAtDesc(userId);
+    }
+
     public List<Trip> getTripsByPassId(UUID passId) {
         return tripRepository.findByPassIdOrderByCreatedAtDesc(passId);
     }
@@ -1,20 +1,43 @@
 package com.smartmobility.userservice.controller;
 
 import com.smartmobility.userservice.dto.CreateUserRequest;
+import com.smartmobility.userservice.dto.PassBatchGetRequest;
+import com.smartmobility.userservice.dto.PassBatchResponse;
+import com.smartmobility.userservice.dto.PasswordHashUpdate;
+import com.smartmobility.userservice.dto.PassSoldeRow;
+import com.smartmobility.userservice.dto.RechargeBatchItem;
+import com.smartmobility.userservice.dto.RechargeBatchResult;
+import com.smartmobility.userservice.dto.RefreshTokenEmission;
+import com.smartmobility.userservice.dto.RefreshTokenRotation;
 import com.smartmobility.userservice.dto.UserDto;
+import com.smartmobility.userservice.dto.UserImportReport;
 import com.smartmobility.userservice.entity.Role;
 import com.smartmobility.userservice.entity.User;
+import com.smartmobility.userservice.messaging.UserEventPublisher;
+import com.smartmobility.userservice.repository.MobilityPassRepository;
 import com.smartmobility.userservice.repository.UserRepository;
 import com.smartmobility.userservice.service.PassMobilityService;
+import com.smartmobility.userservice.service.RefreshTokenService;
+import com.smartmobility.userservice.service.UserImportService;
+import com.smartmobility.userservice.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
 
 /**
- * InternalUserController — appelé uniquement par l'auth-service via Feign.
+ * InternalUserController — appelé uniquement par les autres services via Feign
+ * (auth-service pour les comptes, billing-service pour les recharges en masse
+ * et la réconciliation).
  * PAS exposé par la Gateway (/internal/** non routé).
  */
 @RestController
@@ -23,11 +46,29 @@ public class InternalUserController {
 
     private final UserRepository userRepository;
     private final PassMobilityService passMobilityService;
+    private final MobilityPassRepository passRepository;
+    private final UserImportService userImportService;
+    private final UserEventPublisher userEventPublisher;
+    private final UserService userService;
+    private final RefreshTokenService refreshTokenService;
+
+    @Value("${user.pass-batch.max-ids:1000}")
+    private int maxIdsParLot;
 
     public InternalUserController(UserRepository userRepository,
-                                  PassMobilityService passMobilityService) {
+                                  PassMobilityService passMobilityService,
+                                  MobilityPassRepository passRepository,
+                                  UserImportService userImportService,
+                                  UserEventPublisher userEventPublisher,
+                                  UserService userService,
+                                  RefreshTokenService refreshTokenService) {
         this.userRepository = userRepository;
         this.passMobilityService = passMobilityService;
+        this.passRepository = passRepository;
+        this.userImportService = userImportService;
+        this.userEventPublisher = userEventPublisher;
+        this.userService = userService;
+        this.refreshTokenService = refreshTokenService;
     }
 
     // GET /internal/users/email/{email} — auth-service cherche si l'email existe
@@ -68,9 +109,85 @@ public class InternalUserController {
 
         // Recharger pour avoir l'ID du pass dans la réponse
         User withPass = userRepository.findById(saved.getId()).orElse(saved);
+        // Les autres instances d'auth-service oublient un éventuel "email inconnu" en cache
+        userEventPublisher.publishUserChanged(saved.getId(), saved.getEmail(), "CREE");
         return ResponseEntity.status(HttpStatus.CREATED).body(toDto(withPass));
     }
 
+    // PUT /internal/users/{id}/password — auth-service remplace le hash (rehash au login)
+    @PutMapping("/{id}/password")
+    public ResponseEntity<Void> remplacerHashMotDePasse(@PathVariable UUID id,
+                                                        @RequestBody PasswordHashUpdate request) {
+        userService.remplacerHashMotDePasse(id, request.password());
+        return ResponseEntity.noContent().build();
+    }
+
+    // POST /internal/users/{id}/refresh-tokens — auth-service enregistre un refresh token émis
+    @PostMapping("/{id}/refresh-tokens")
+    public ResponseEntity<Void> enregistrerRefreshToken(@PathVariable UUID id,
+                                                        @RequestBody RefreshTokenEmission request) {
+        refreshTokenService.enregistrer(id, request.jti(), request.expireLe());
+        return ResponseEntity.noContent().build();
+    }
+
+    // POST /internal/users/{id}/refresh-tokens/rotation — consomme l'ancien, enregistre le nouveau (409 si déjà utilisé, 403 si pass suspendu)
+    @PostMapping("/{id}/refresh-tokens/rotation")
+    public ResponseEntity<Void> faireTournerRefreshToken(@PathVariable UUID id,
+                                                         @RequestBody RefreshTokenRotation request) {
+        refreshTokenService.faireTourner(id, request.ancienJti(), request.nouveauJti(), request.expireLe(),
+                request.ancienExpireLe());
+        return ResponseEntity.noContent().build();
+    }
+
+    // DELETE /internal/users/{id}/refresh-tokens/{jti} — déconnexion
+    @DeleteMapping("/{id}/refresh-tokens/{jti}")
+    public ResponseEntity<Void> revoquerRefreshToken(@PathVariable UUID id, @PathVariable String jti) {
+        refreshTokenService.revoquer(id, jti);
+        return ResponseEntity.noContent().build();
+    }
+
+    // POST /internal/users/import — création de comptes en masse, NDJSON lu en flux
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public UserImportReport importerNdjson(HttpServletRequest request) throws IOException {
+        return userImportService.importerNdjson(request.getInputStream());
+    }
+
+    // POST /internal/users/import — même import, tableau JSON
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public UserImportReport importer(@RequestBody List<CreateUserRequest> requests) {
+        try {
+            return userImportService.importer(requests);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // POST /internal/users/passes/recharger — billing-service recharge un lot de pass
+    @PostMapping("/passes/recharger")
+    public List<RechargeBatchResult> rechargerEnMasse(@RequestBody List<RechargeBatchItem> items) {
+        return passMobilityService.rechargerSoldesEnMasse(items);
+    }
+
+    // GET /internal/users/passes/soldes?apresId=...&limite=1000 — réconciliation billing (keyset)
+    @GetMapping("/passes/soldes")
+    public List<PassSoldeRow> lireSoldes(
+            @RequestParam(defaultValue = "00000000-0000-0000-0000-000000000000") UUID apresId,
+            @RequestParam(defaultValue = "1000") int limite) {
+        return passRepository.findSoldesChunk(apresId, PageRequest.of(0, Math.max(1, Math.min(limite, 5000))));
+    }
+
+    // POST /internal/users/passes:batchGet — lecture groupée par userIds et/ou passIds
+    @PostMapping("/passes:batchGet")
+    public PassBatchResponse lirePassEnMasse(@RequestBody PassBatchGetRequest request) {
+        int nbIds = (request.userIds() != null ? request.userIds().size() : 0)
+                + (request.passIds() != null ? request.passIds().size() : 0);
+        if (nbIds > maxIdsParLot) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Trop d'identifiants : " + nbIds + " (maximum " + maxIdsParLot + ")");
+        }
+        return passMobilityService.lirePassEnMasse(request);
+    }
+
     // ── Mapper ────────────────────────────────────────────────────────────────
     private UserDto toDto(User user) {
         return new UserDto(
@@ -80,16 +80,18 @@ public class PassMobilityController {
     }
 
     // PUT /pass/debiter — billing-service uniquement (envoie X-User-Role: ADMIN)
+    // Idempotency-Key : un débit rejoué avec la même clé n'est appliqué qu'une fois
     @PutMapping("/debiter")
     public ResponseEntity<?> debiterSolde(
             @PathVariable UUID id,
             @RequestHeader("X-User-Role") String userRole,
+            @RequestHeader(value = "Idempotency-Key", required = false) String cleIdempotence,
             @RequestBody UpdateSoldeRequest request) {
 
         if (!isAdmin(userRole)) {
             return ResponseEntity.status(403).body("Accès refusé");
         }
-        return ResponseEntity.ok(passMobilityService.debiterSolde(id, request));
+        return ResponseEntity.ok(passMobilityService.debiterSolde(id, request, cleIdempotence));
     }
 
     // PUT /pass/recharger — USER (son propre) ou ADMIN
@@ -3,10 +3,13 @@ package com.smartmobility.userservice.controller;
 import com.smartmobility.userservice.dto.UpdateUserRequest;
 import com.smartmobility.userservice.dto.UserResponse;
 import com.smartmobility.userservice.service.UserService;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -14,7 +17,7 @@ import java.util.UUID;
  *
  * Rôles :
  *   USER  → consulter et modifier son propre profil
- *   ADMIN → consulter tous les profils, supprimer un utilisateur
+ *   ADMIN → consulter tous les profils (liste complète ou paginée), supprimer un utilisateur
  *
  * Sécurité : Gateway injecte X-User-Id (UUID) et X-User-Role dans chaque requête.
  */
@@ -40,6 +43,28 @@ public class UserController {
         return ResponseEntity.ok(users);
     }
 
+    // GET /api/users/page?role=&passStatus=&tri=createdAt|nom|email&ordre=asc|desc&apres=&limite=50
+    // Listing paginé (keyset) pour le dashboard ADMIN
+    @GetMapping("/page")
+    public ResponseEntity<?> listerUtilisateursPagines(
+            @RequestHeader("X-User-Role") String userRole,
+            @RequestParam(required = false) String role,
+            @RequestParam(required = false) String passStatus,
+            @RequestParam(required = false) String tri,
+            @RequestParam(required = false) String ordre,
+            @RequestParam(required = false) String apres,
+            @RequestParam(defaultValue = "50") int limite) {
+
+        if (!isAdmin(userRole)) {
+            return ResponseEntity.status(403).body("Accès refusé : réservé aux ADMIN");
+        }
+        try {
+            return ResponseEntity.ok(userService.listerUtilisateurs(role, passStatus, tri, ordre, apres, limite));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Paramètre de listing invalide : " + e.getMessage());
+        }
+    }
+
     // GET /api/users/{id} — voir un profil (son propre ou ADMIN)
     @GetMapping("/{id}")
     public ResponseEntity<?> obtenirUtilisateur(
@@ -67,6 +92,20 @@ public class UserController {
         return ResponseEntity.ok(userService.mettreAJourUtilisateur(id, request));
     }
 
+    // PATCH /api/users/{id} — modification partielle (JSON Merge Patch : absent = inchangé, null = effacé)
+    @PatchMapping(value = "/{id}", consumes = {"application/merge-patch+json", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<?> patcherUtilisateur(
+            @PathVariable UUID id,
+            @RequestHeader("X-User-Id")   String currentUserId,
+            @RequestHeader("X-User-Role") String userRole,
+            @RequestBody Map<String, Object> patch) {
+
+        if (!isOwnerOrAdmin(id, currentUserId, userRole)) {
+            return ResponseEntity.status(403).body("Accès refusé");
+        }
+        return ResponseEntity.ok(userService.patcherUtilisateur(id, patch));
+    }
+
     // DELETE /api/users/{id} — supprimer un utilisateur (ADMIN uniquement)
     @DeleteMapping("/{id}")
     public ResponseEntity<?> supprimerUtilisateur(
@@ -0,0 +1,13 @@
+package com.smartmobility.userservice.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Lecture groupée de pass (POST /internal/users/passes:batchGet).
+ * userIds et passIds peuvent être combinés ; au plus user.pass-batch.max-ids au total.
+ */
+public record PassBatchGetRequest(
+        List<UUID> userIds,
+        List<UUID> passIds
+) {}
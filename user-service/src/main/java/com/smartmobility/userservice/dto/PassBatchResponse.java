@@ -0,0 +1,13 @@
+package com.smartmobility.userservice.dto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Réponse de POST /internal/users/passes:batchGet.
+ * introuvables : identifiants demandés (userId ou passId) sans pass correspondant.
+ */
+public record PassBatchResponse(
+        List<PassBatchRow> passes,
+        List<UUID> introuvables
+) {}
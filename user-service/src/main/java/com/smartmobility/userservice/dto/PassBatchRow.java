@@ -0,0 +1,29 @@
+package com.smartmobility.userservice.dto;
+
+import com.smartmobility.userservice.entity.PassStatus;
+import com.smartmobility.userservice.entity.PassTier;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Vue compacte d'un pass pour les appels internes en masse (projection JPQL).
+ */
+public record PassBatchRow(
+        UUID passId,
+        UUID userId,        // null si le pass n'est rattaché à aucun utilisateur
+        String passNumber,
+        PassStatus status,
+        BigDecimal solde,
+        LocalDateTime expirationDate,
+        PassTier tier
+) {
+    /** Statut effectif : EXPIRE dès l'échéance passée, même avant le passage de PassExpirationJob. */
+    public PassBatchRow avecStatutEffectif(LocalDateTime maintenant) {
+        if (status != PassStatus.EXPIRE && expirationDate != null && maintenant.isAfter(expirationDate)) {
+            return new PassBatchRow(passId, userId, passNumber, PassStatus.EXPIRE, solde, expirationDate, tier);
+        }
+        return this;
+    }
+}
@@ -1,6 +1,7 @@
 package com.smartmobility.userservice.dto;
 
 import com.smartmobility.userservice.entity.PassStatus;
+import com.smartmobility.userservice.entity.PassTier;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -15,6 +16,8 @@ public class PassResponse {
     private LocalDateTime createdAt;
     private LocalDateTime expirationDate;
     private UUID userId;
+    private PassTier tier;
+    private long nbTrajets;
 
     public boolean isExpired() {
         return expirationDate != null && expirationDate.isBefore(LocalDateTime.now());
@@ -78,4 +81,20 @@ public class PassResponse {
     public void setUserId(UUID userId) {
         this.userId = userId;
     }
+
+    public PassTier getTier() {
+        return tier;
+    }
+
+    public void setTier(PassTier tier) {
+        this.tier = tier;
+    }
+
+    public long getNbTrajets() {
+        return nbTrajets;
+    }
+
+    public void setNbTrajets(long nbTrajets) {
+        this.nbTrajets = nbTrajets;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.smartmobility.userservice.dto;
+
+import com.smartmobility.userservice.entity.PassStatus;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Solde d'un pass pour la réconciliation du billing-service (projection JPQL).
+ */
+public record PassSoldeRow(
+        UUID passId,
+        UUID userId,        // null si le pass n'est rattaché à aucun utilisateur
+        BigDecimal solde,
+        PassStatus status
+) {}
@@ -0,0 +1,8 @@
+package com.smartmobility.userservice.dto;
+
+/**
+ * Nouveau hash BCrypt envoyé par auth-service (rehash au login après changement de coût).
+ */
+public record PasswordHashUpdate(
+        String password   // déjà encodé BCrypt
+) {}
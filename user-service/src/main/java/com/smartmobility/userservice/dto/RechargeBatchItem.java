@@ -0,0 +1,14 @@
+package com.smartmobility.userservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Une ligne d'une recharge en masse (billing-service → user-service).
+ * cle : clé d'idempotence de la ligne (job + numéro de ligne), facultative.
+ */
+public record RechargeBatchItem(
+        UUID userId,
+        BigDecimal montant,
+        String cle
+) {}
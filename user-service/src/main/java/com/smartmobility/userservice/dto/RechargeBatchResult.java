@@ -0,0 +1,16 @@
+package com.smartmobility.userservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Résultat d'une ligne de recharge en masse, dans le même ordre que la requête.
+ * passId est renseigné dès que le pass a été trouvé, même en cas d'échec.
+ */
+public record RechargeBatchResult(
+        UUID userId,
+        UUID passId,
+        boolean succes,
+        BigDecimal soldeApres,
+        String erreur       // null si succès
+) {}
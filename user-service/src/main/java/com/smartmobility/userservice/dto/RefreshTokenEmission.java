@@ -0,0 +1,9 @@
+package com.smartmobility.userservice.dto;
+
+/**
+ * Refresh token émis par auth-service (login, register, OAuth2), à enregistrer.
+ */
+public record RefreshTokenEmission(
+        String jti,
+        long expireLe       // claim exp, en millisecondes
+) {}
@@ -0,0 +1,14 @@
+package com.smartmobility.userservice.dto;
+
+/**
+ * Échange d'un refresh token (POST /api/auth/refresh) : l'ancien est consommé,
+ * le nouveau enregistré, dans la même transaction.
+ * ancienExpireLe : ancien token émis avant l'enregistrement des refresh tokens
+ * (transition HMAC) — inconnu ici, il est adopté déjà consommé.
+ */
+public record RefreshTokenRotation(
+        String ancienJti,
+        String nouveauJti,
+        long expireLe,      // exp du nouveau token, en millisecondes
+        Long ancienExpireLe
+) {}
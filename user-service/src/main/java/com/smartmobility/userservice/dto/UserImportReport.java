@@ -0,0 +1,13 @@
+package com.smartmobility.userservice.dto;
+
+import java.util.List;
+
+/**
+ * Bilan de POST /internal/users/import : compteurs + une entrée par ligne soumise.
+ */
+public record UserImportReport(
+        int total,
+        int crees,
+        int rejetes,
+        List<UserImportResult> lignes
+) {}
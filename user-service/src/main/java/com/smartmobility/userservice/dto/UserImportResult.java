@@ -0,0 +1,16 @@
+package com.smartmobility.userservice.dto;
+
+import java.util.UUID;
+
+/**
+ * Résultat d'une ligne d'import en masse (ligne = numéro dans le fichier, à partir de 1).
+ */
+public record UserImportResult(
+        int ligne,
+        String email,
+        boolean succes,
+        UUID userId,        // null si rejeté
+        UUID passId,
+        String passNumber,
+        String erreur       // null si succès
+) {}
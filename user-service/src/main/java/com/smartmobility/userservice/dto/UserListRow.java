@@ -0,0 +1,26 @@
+package com.smartmobility.userservice.dto;
+
+import com.smartmobility.userservice.entity.PassStatus;
+import com.smartmobility.userservice.entity.Role;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Ligne du listing ADMIN : utilisateur + pass en une seule projection JPQL
+ * (LEFT JOIN, aucun chargement lazy de mobility_pass).
+ */
+public record UserListRow(
+        UUID id,
+        String nom,
+        String prenom,
+        String username,
+        String email,
+        String telephone,
+        Role role,
+        LocalDateTime createdAt,
+        String passNumber,      // null si aucun pass
+        PassStatus passStatus,
+        BigDecimal solde
+) {}
@@ -0,0 +1,13 @@
+package com.smartmobility.userservice.dto;
+
+import java.util.List;
+
+/**
+ * Page du listing ADMIN (pagination keyset).
+ * curseurSuivant est à renvoyer tel quel dans ?apres=... ; null sur la dernière page.
+ */
+public record UserPage(
+        List<UserResponse> utilisateurs,
+        String curseurSuivant,
+        int limite
+) {}
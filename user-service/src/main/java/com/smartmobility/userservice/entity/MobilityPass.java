@@ -3,6 +3,7 @@ package com.smartmobility.userservice.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -10,7 +11,10 @@ import java.util.UUID;
 
 @Setter
 @Entity
-@Table(name = "mobility_pass")
+@Table(name = "mobility_pass", indexes = {
+        // Expiration en masse : status IN (ACTIVE, SUSPENDU) AND expiration_date < now
+        @Index(name = "idx_mobility_pass_status_expiration", columnList = "status, expiration_date")
+})
 public class MobilityPass {
 
     @Getter
@@ -39,6 +43,30 @@ public class MobilityPass {
     @Column(nullable = false)
     private LocalDateTime expirationDate;
 
+    // ── Fidélité : cumuls incrémentés à chaque débit (PassTierPolicy) ─────────
+    @Getter
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'STANDARD'")
+    @Column(nullable = false, length = 20)
+    private PassTier tier = PassTier.STANDARD;
+
+    @Getter
+    @ColumnDefault("0")
+    @Column(nullable = false, precision = 14, scale = 2)
+    private BigDecimal totalDepense = BigDecimal.ZERO;
+
+    @Getter
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    private long nbTrajets;
+
+    // Verrou optimiste : deux mutations concurrentes du solde ne s'écrasent plus.
+    // Sert aussi de "version du solde" pour PassStateCache.
+    @Getter
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @Getter
     @OneToOne(mappedBy = "mobilityPass")
     private User user;
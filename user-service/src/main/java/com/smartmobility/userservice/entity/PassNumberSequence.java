@@ -0,0 +1,26 @@
+package com.smartmobility.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Séquence des numéros de pass : une ligne par séquence.
+ * Chaque instance de user-service y réserve un bloc de valeurs (PassNumberAllocator).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "pass_number_sequence")
+public class PassNumberSequence {
+
+    @Id
+    @Column(length = 32)
+    private String nom;
+
+    // Première valeur non encore réservée
+    @Column(nullable = false)
+    private long prochaineValeur;
+
+    public PassNumberSequence() {}
+}
@@ -0,0 +1,83 @@
+package com.smartmobility.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Opération de solde déjà appliquée, par clé d'idempotence (header Idempotency-Key).
+ *
+ * Un appel rejoué par le billing-service (timeout après commit côté user-service)
+ * retrouve sa clé ici et reçoit le résultat d'origine au lieu d'un second débit.
+ * La clé primaire garantit l'unicité même entre deux appels concurrents :
+ * le second échoue à l'INSERT et sa transaction est annulée.
+ * Purgé après user.idempotence.retention-jours (PassOperationPurgeJob).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "pass_operations", indexes = {
+        @Index(name = "idx_pass_operations_created", columnList = "created_at")
+})
+public class PassOperation implements Persistable<String> {
+
+    public static final String DEBIT = "DEBIT";
+    public static final String RECHARGE = "RECHARGE";
+
+    @Id
+    @Column(length = 100)
+    private String cle;
+
+    @Column(nullable = false)
+    private UUID passId;
+
+    // DEBIT / RECHARGE (varchar : pas d'enum MySQL à faire évoluer)
+    @Column(nullable = false, length = 20)
+    private String type;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal montant;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal soldeApres;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Toujours un INSERT (persist), jamais un merge qui écraserait une clé existante
+    @Transient
+    private boolean nouvelle = true;
+
+    public PassOperation() {}
+
+    public PassOperation(String cle, UUID passId, String type, BigDecimal montant,
+                         BigDecimal soldeApres, LocalDateTime createdAt) {
+        this.cle = cle;
+        this.passId = passId;
+        this.type = type;
+        this.montant = montant;
+        this.soldeApres = soldeApres;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String getId() {
+        return cle;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nouvelle;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marquerExistante() {
+        nouvelle = false;
+    }
+}
@@ -0,0 +1,9 @@
+package com.smartmobility.userservice.entity;
+
+// Niveau de fidélité du pass — réductions appliquées par pricing-service
+public enum PassTier {
+    STANDARD,
+    SILVER,
+    GOLD,
+    PLATINUM
+}
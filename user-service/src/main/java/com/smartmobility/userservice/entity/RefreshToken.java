@@ -0,0 +1,73 @@
+package com.smartmobility.userservice.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Refresh token émis par l'auth-service, par jti.
+ *
+ * L'auth-service ne garde rien en base : c'est ici que la rotation devient durable.
+ * Un refresh token n'est échangé qu'une fois (consommeLe renseigné par un UPDATE
+ * conditionnel), quelle que soit l'instance d'auth-service et même après un redémarrage.
+ * Purgé après expiration (RefreshTokenPurgeJob).
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "refresh_tokens", indexes = {
+        @Index(name = "idx_refresh_tokens_user", columnList = "user_id"),
+        @Index(name = "idx_refresh_tokens_expire", columnList = "expire_le")
+})
+public class RefreshToken implements Persistable<String> {
+
+    @Id
+    @Column(length = 64)
+    private String jti;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "expire_le", nullable = false)
+    private LocalDateTime expireLe;
+
+    // null tant que le token n'a pas été échangé ni révoqué
+    @Column(name = "consomme_le")
+    private LocalDateTime consommeLe;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Toujours un INSERT (persist) : un jti déjà connu fait échouer l'émission
+    @Transient
+    private boolean nouveau = true;
+
+    public RefreshToken() {}
+
+    public RefreshToken(String jti, UUID userId, LocalDateTime expireLe, LocalDateTime createdAt) {
+        this.jti = jti;
+        this.userId = userId;
+        this.expireLe = expireLe;
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String getId() {
+        return jti;
+    }
+
+    @Override
+    public boolean isNew() {
+        return nouveau;
+    }
+
+    @PostLoad
+    @PostPersist
+    void marquerExistant() {
+        nouveau = false;
+    }
+}
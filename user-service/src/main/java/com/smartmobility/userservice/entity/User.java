@@ -4,12 +4,20 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.DynamicUpdate;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+// UPDATE limité aux colonnes modifiées (profil patché champ par champ)
+@DynamicUpdate
 @Entity
-@Table(name = "users")
+@Table(name = "users", indexes = {
+        // Listing ADMIN : tri + keyset (InnoDB ajoute l'id à chaque index)
+        @Index(name = "idx_users_created_at", columnList = "created_at"),
+        @Index(name = "idx_users_nom", columnList = "nom"),
+        @Index(name = "idx_users_role", columnList = "role")
+})
 public class User {
 
     @Id
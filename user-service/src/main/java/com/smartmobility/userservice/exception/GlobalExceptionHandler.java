@@ -1,7 +1,9 @@
 package com.smartmobility.userservice.exception;
 
 import com.smartmobility.userservice.dto.ApiResponse;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -42,6 +44,39 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(HttpStatus.CONFLICT.value(), ex.getMessage()));
     }
 
+    // Unicité garantie par l'index unique (plus de existsByUsername avant l'UPDATE)
+    @ExceptionHandler(UsernameDejaPrisException.class)
+    public ResponseEntity<ApiResponse<Void>> handleUsernameDejaPris(UsernameDejaPrisException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(HttpStatus.CONFLICT.value(), ex.getMessage()));
+    }
+
+    // Autre contrainte violée (email, googleId...) : conflit plutôt qu'une 500
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<ApiResponse<Void>> handleDataIntegrity(DataIntegrityViolationException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(HttpStatus.CONFLICT.value(),
+                        "Conflit avec une donnée existante (valeur déjà utilisée)."));
+    }
+
+    @ExceptionHandler(PatchInvalideException.class)
+    public ResponseEntity<ApiResponse<Void>> handlePatchInvalide(PatchInvalideException ex) {
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(ApiResponse.error(HttpStatus.BAD_REQUEST.value(), ex.getMessage()));
+    }
+
+    // Deux mutations concurrentes du même pass (@Version) : l'appelant peut réessayer
+    @ExceptionHandler(ObjectOptimisticLockingFailureException.class)
+    public ResponseEntity<ApiResponse<Void>> handleOptimisticLock(ObjectOptimisticLockingFailureException ex) {
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(HttpStatus.CONFLICT.value(),
+                        "Le pass a été modifié simultanément, veuillez réessayer."));
+    }
+
     // Gestion des erreurs de validation (@Valid) — data contient le détail des champs
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ApiResponse<Map<String, String>>> handleValidationErrors(
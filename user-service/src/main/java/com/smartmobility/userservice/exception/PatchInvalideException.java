@@ -0,0 +1,8 @@
+package com.smartmobility.userservice.exception;
+
+public class PatchInvalideException extends RuntimeException {
+
+    public PatchInvalideException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.smartmobility.userservice.exception;
+
+public class UsernameDejaPrisException extends RuntimeException {
+
+    public UsernameDejaPrisException(String username) {
+        super("Ce nom d'utilisateur est déjà pris : " + username);
+    }
+}
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Component
@@ -29,6 +30,9 @@ public class PassEventPublisher {
     @Value("${rabbitmq.routing-key.recharge-refused}")
     private String rechargeRefusedKey;
 
+    @Value("${rabbitmq.routing-key.passes-expired:pass.expired.batch}")
+    private String passesExpiredKey;
+
     // ── Pass suspendu par admin ───────────────────────────────────────────────
     public void publishPassSuspended(UUID userId, UUID passId,
                                      String passNumber, BigDecimal currentBalance) {
@@ -76,4 +80,15 @@ public class PassEventPublisher {
         log.warn("[PassEventPublisher] ❌ RECHARGE_REFUSED publié - userId={}, raison={}",
                 userId, reason);
     }
-}
\ No newline at end of file
+
+    // ── Pass expirés (un message par lot du job d'expiration) ─────────────────
+    public void publishPassesExpired(List<PassesExpiredEvent.PassExpire> passes) {
+        PassesExpiredEvent event = PassesExpiredEvent.builder()
+                .passes(passes)
+                .expiredAt(LocalDateTime.now())
+                .build();
+
+        rabbitTemplate.convertAndSend(exchange, passesExpiredKey, event);
+        log.info("[PassEventPublisher] ⌛ PASSES_EXPIRED publié - {} pass", passes.size());
+    }
+}
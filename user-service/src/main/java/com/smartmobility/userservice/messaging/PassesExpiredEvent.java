@@ -0,0 +1,34 @@
+package com.smartmobility.userservice.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Un message par lot du job d'expiration (et non un par pass).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PassesExpiredEvent {
+    private List<PassExpire> passes;
+    private LocalDateTime expiredAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class PassExpire {
+        private UUID userId;
+        private UUID passId;
+        private String passNumber;
+        private BigDecimal currentBalance;
+        private LocalDateTime expirationDate;
+    }
+}
@@ -0,0 +1,23 @@
+package com.smartmobility.userservice.messaging;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Compte créé, modifié ou supprimé — les caches d'identité (auth-service) invalident l'email.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class UserChangedEvent {
+    private UUID userId;
+    private String email;
+    private String type;    // CREE, MODIFIE, SUPPRIME
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,58 @@
+package com.smartmobility.userservice.messaging;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class UserEventPublisher {
+
+    private final RabbitTemplate rabbitTemplate;
+
+    @Value("${rabbitmq.exchange.name}")
+    private String exchange;
+
+    @Value("${rabbitmq.routing-key.user-changed:user.changed}")
+    private String userChangedKey;
+
+    // ── Compte modifié / supprimé ─────────────────────────────────────────────
+    // Publié après le commit : un cache ne doit jamais recharger l'ancienne version.
+    public void publishUserChanged(UUID userId, String email, String type) {
+        UserChangedEvent event = UserChangedEvent.builder()
+                .userId(userId)
+                .email(email)
+                .type(type)
+                .occurredAt(LocalDateTime.now())
+                .build();
+
+        Runnable envoi = () -> {
+            try {
+                rabbitTemplate.convertAndSend(exchange, userChangedKey, event);
+                log.info("[UserEventPublisher] USER_CHANGED publié - userId={}, type={}", userId, type);
+            } catch (Exception e) {
+                // Les caches d'identité expirent d'eux-mêmes (TTL court)
+                log.warn("[UserEventPublisher] RabbitMQ indisponible, USER_CHANGED non publié : {}", e.getMessage());
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    envoi.run();
+                }
+            });
+        } else {
+            envoi.run();
+        }
+    }
+}
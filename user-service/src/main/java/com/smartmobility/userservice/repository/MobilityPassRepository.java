@@ -1,9 +1,22 @@
 package com.smartmobility.userservice.repository;
 
+import com.smartmobility.userservice.dto.PassBatchRow;
+import com.smartmobility.userservice.dto.PassSoldeRow;
 import com.smartmobility.userservice.entity.MobilityPass;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -11,4 +24,50 @@ import java.util.UUID;
 public interface MobilityPassRepository extends JpaRepository<MobilityPass, UUID> {
 
     Optional<MobilityPass> findByPassNumber(String passNumber);
-}
\ No newline at end of file
+
+    /**
+     * Soldes triés par id de pass (pagination keyset : id > apresId).
+     * Utilisé par la réconciliation du billing-service.
+     */
+    @Query("SELECT new com.smartmobility.userservice.dto.PassSoldeRow(p.id, u.id, p.solde, p.status) " +
+            "FROM MobilityPass p LEFT JOIN p.user u " +
+            "WHERE p.id > :apresId " +
+            "ORDER BY p.id")
+    List<PassSoldeRow> findSoldesChunk(@Param("apresId") UUID apresId, Pageable pageable);
+
+    // ── Lecture groupée (POST /internal/users/passes:batchGet) ───────────────
+
+    @Query("SELECT new com.smartmobility.userservice.dto.PassBatchRow(" +
+            "p.id, u.id, p.passNumber, p.status, p.solde, p.expirationDate, p.tier) " +
+            "FROM MobilityPass p JOIN p.user u " +
+            "WHERE u.id IN :userIds")
+    List<PassBatchRow> findBatchByUserIdIn(@Param("userIds") Collection<UUID> userIds);
+
+    @Query("SELECT new com.smartmobility.userservice.dto.PassBatchRow(" +
+            "p.id, u.id, p.passNumber, p.status, p.solde, p.expirationDate, p.tier) " +
+            "FROM MobilityPass p LEFT JOIN p.user u " +
+            "WHERE p.id IN :passIds")
+    List<PassBatchRow> findBatchByPassIdIn(@Param("passIds") Collection<UUID> passIds);
+
+    // ── Expiration en masse (PassExpirationJob) ──────────────────────────────
+
+    /**
+     * Prochain lot de pass échus, verrouillés (SKIP LOCKED : deux instances
+     * du job se partagent les lignes au lieu de s'attendre).
+     * Parcours de l'index (status, expiration_date).
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT p FROM MobilityPass p LEFT JOIN FETCH p.user " +
+            "WHERE p.status IN (com.smartmobility.userservice.entity.PassStatus.ACTIVE, " +
+            "                   com.smartmobility.userservice.entity.PassStatus.SUSPENDU) " +
+            "AND p.expirationDate < :maintenant")
+    List<MobilityPass> findEchusAExpirer(@Param("maintenant") LocalDateTime maintenant, Pageable pageable);
+
+    /** Un seul UPDATE pour tout le lot ; la version est incrémentée comme le ferait Hibernate. */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE MobilityPass p SET p.status = com.smartmobility.userservice.entity.PassStatus.EXPIRE, " +
+            "p.version = p.version + 1 " +
+            "WHERE p.id IN :ids AND p.status <> com.smartmobility.userservice.entity.PassStatus.EXPIRE")
+    int expirer(@Param("ids") Collection<UUID> ids);
+}
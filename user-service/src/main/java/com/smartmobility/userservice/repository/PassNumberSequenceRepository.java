@@ -0,0 +1,27 @@
+package com.smartmobility.userservice.repository;
+
+import com.smartmobility.userservice.entity.PassNumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface PassNumberSequenceRepository extends JpaRepository<PassNumberSequence, String> {
+
+    /** SELECT ... FOR UPDATE : les instances réservent leurs blocs l'une après l'autre. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PassNumberSequence s WHERE s.nom = :nom")
+    Optional<PassNumberSequence> findForUpdate(@Param("nom") String nom);
+
+    /** Création idempotente de la séquence (première instance démarrée). */
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO pass_number_sequence (nom, prochaine_valeur) VALUES (:nom, :debut)",
+            nativeQuery = true)
+    int insererSiAbsente(@Param("nom") String nom, @Param("debut") long debut);
+}
@@ -0,0 +1,20 @@
+package com.smartmobility.userservice.repository;
+
+import com.smartmobility.userservice.entity.PassOperation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface PassOperationRepository extends JpaRepository<PassOperation, String> {
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM PassOperation o WHERE o.createdAt < :limite")
+    int purgerAvant(@Param("limite") LocalDateTime limite);
+}
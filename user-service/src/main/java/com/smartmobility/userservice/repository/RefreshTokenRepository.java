@@ -0,0 +1,34 @@
+package com.smartmobility.userservice.repository;
+
+import com.smartmobility.userservice.entity.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, String> {
+
+    // Consommation atomique : 1 si ce token était encore utilisable, 0 sinon (déjà échangé, révoqué, expiré)
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.consommeLe = :maintenant " +
+           "WHERE r.jti = :jti AND r.userId = :userId AND r.consommeLe IS NULL AND r.expireLe > :maintenant")
+    int consommer(@Param("jti") String jti, @Param("userId") UUID userId,
+                  @Param("maintenant") LocalDateTime maintenant);
+
+    // Toute la famille d'un utilisateur (réutilisation détectée)
+    @Modifying
+    @Query("UPDATE RefreshToken r SET r.consommeLe = :maintenant " +
+           "WHERE r.userId = :userId AND r.consommeLe IS NULL")
+    int revoquerTous(@Param("userId") UUID userId, @Param("maintenant") LocalDateTime maintenant);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM RefreshToken r WHERE r.expireLe < :limite")
+    int purgerAvant(@Param("limite") LocalDateTime limite);
+}
@@ -0,0 +1,28 @@
+package com.smartmobility.userservice.repository;
+
+import com.smartmobility.userservice.dto.UserListRow;
+import com.smartmobility.userservice.entity.PassStatus;
+import com.smartmobility.userservice.entity.Role;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Fragment de UserRepository : listing ADMIN filtré, trié et paginé par keyset.
+ * La requête JPQL dépend du tri et des filtres → implémentée à la main (EntityManager).
+ */
+public interface UserListingRepository {
+
+    /** Colonnes de tri autorisées (whitelist → pas d'injection dans le ORDER BY). */
+    enum TriUtilisateurs { CREATED_AT, NOM, EMAIL }
+
+    /**
+     * @param role          filtre facultatif
+     * @param passStatus    filtre facultatif
+     * @param apresValeur   valeur de tri du dernier élément de la page précédente (null = première page)
+     * @param apresId       id du dernier élément (départage les égalités)
+     */
+    List<UserListRow> listerUtilisateurs(Role role, PassStatus passStatus,
+                                         TriUtilisateurs tri, boolean descendant,
+                                         Object apresValeur, UUID apresId, int limite);
+}
@@ -0,0 +1,63 @@
+package com.smartmobility.userservice.repository;
+
+import com.smartmobility.userservice.dto.UserListRow;
+import com.smartmobility.userservice.entity.PassStatus;
+import com.smartmobility.userservice.entity.Role;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.List;
+import java.util.UUID;
+
+class UserListingRepositoryImpl implements UserListingRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<UserListRow> listerUtilisateurs(Role role, PassStatus passStatus,
+                                                TriUtilisateurs tri, boolean descendant,
+                                                Object apresValeur, UUID apresId, int limite) {
+        String colonne = switch (tri) {
+            case CREATED_AT -> "u.createdAt";
+            case NOM -> "u.nom";
+            case EMAIL -> "u.email";
+        };
+        String comparaison = descendant ? "<" : ">";
+        String sens = descendant ? "DESC" : "ASC";
+
+        StringBuilder jpql = new StringBuilder(
+                "SELECT new com.smartmobility.userservice.dto.UserListRow(" +
+                "u.id, u.nom, u.prenom, u.username, u.email, u.telephone, u.role, u.createdAt, " +
+                "p.passNumber, p.status, p.solde) " +
+                "FROM User u LEFT JOIN u.mobilityPass p WHERE 1 = 1");
+        if (role != null) {
+            jpql.append(" AND u.role = :role");
+        }
+        if (passStatus != null) {
+            jpql.append(" AND p.status = :passStatus");
+        }
+        if (apresId != null) {
+            // Keyset : (valeur, id) strictement après le curseur, dans le sens du tri
+            jpql.append(" AND (").append(colonne).append(' ').append(comparaison).append(" :apresValeur")
+                    .append(" OR (").append(colonne).append(" = :apresValeur AND u.id ")
+                    .append(comparaison).append(" :apresId))");
+        }
+        jpql.append(" ORDER BY ").append(colonne).append(' ').append(sens)
+                .append(", u.id ").append(sens);
+
+        TypedQuery<UserListRow> query = entityManager.createQuery(jpql.toString(), UserListRow.class);
+        if (role != null) {
+            query.setParameter("role", role);
+        }
+        if (passStatus != null) {
+            query.setParameter("passStatus", passStatus);
+        }
+        if (apresId != null) {
+            query.setParameter("apresValeur", apresValeur);
+            query.setParameter("apresId", apresId);
+        }
+        return query.setMaxResults(limite).getResultList();
+    }
+}
@@ -1,14 +1,19 @@
 package com.smartmobility.userservice.repository;
 
+import com.smartmobility.userservice.dto.UserListRow;
 import com.smartmobility.userservice.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, UserListingRepository {
 
     Optional<User> findByEmail(String email);
 
@@ -17,4 +22,31 @@ public interface UserRepository extends JpaRepository<User, UUID> {
     boolean existsByEmail(String email);
 
     boolean existsByUsername(String username);
-}
\ No newline at end of file
+
+    /**
+     * Charge plusieurs utilisateurs ET leur pass en une seule requête
+     * (évite un SELECT lazy par utilisateur sur mobility_pass).
+     */
+    @Query("SELECT u FROM User u JOIN FETCH u.mobilityPass WHERE u.id IN :ids")
+    List<User> findAllWithPassByIdIn(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Tous les utilisateurs avec leur pass, en une seule requête (LEFT JOIN).
+     */
+    @Query("SELECT new com.smartmobility.userservice.dto.UserListRow(" +
+            "u.id, u.nom, u.prenom, u.username, u.email, u.telephone, u.role, u.createdAt, " +
+            "p.passNumber, p.status, p.solde) " +
+            "FROM User u LEFT JOIN u.mobilityPass p ORDER BY u.createdAt DESC")
+    List<UserListRow> findAllRows();
+
+    // ── Import en masse : unicité vérifiée par lot (une requête IN par colonne unique) ──
+
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findEmailsExistants(@Param("emails") Collection<String> emails);
+
+    @Query("SELECT u.username FROM User u WHERE u.username IN :usernames")
+    List<String> findUsernamesExistants(@Param("usernames") Collection<String> usernames);
+
+    @Query("SELECT u.googleId FROM User u WHERE u.googleId IN :googleIds")
+    List<String> findGoogleIdsExistants(@Param("googleIds") Collection<String> googleIds);
+}
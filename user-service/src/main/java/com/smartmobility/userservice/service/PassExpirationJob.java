@@ -0,0 +1,110 @@
+package com.smartmobility.userservice.service;
+
+import com.smartmobility.userservice.entity.MobilityPass;
+import com.smartmobility.userservice.messaging.PassEventPublisher;
+import com.smartmobility.userservice.messaging.PassesExpiredEvent;
+import com.smartmobility.userservice.repository.MobilityPassRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * PassExpirationJob — passe en EXPIRE les pass dont l'échéance est dépassée.
+ *
+ * Remplace l'ancienne expiration paresseuse (save au milieu des lectures) :
+ * les lectures calculent le statut effectif sans écrire, ce job persiste
+ * le changement en masse, lot par lot :
+ *   1 SELECT ... FOR UPDATE SKIP LOCKED + 1 UPDATE ... WHERE id IN (...)
+ *   par transaction courte, puis 1 message PASSES_EXPIRED par lot.
+ *
+ * Plusieurs instances peuvent tourner en même temps : SKIP LOCKED leur fait
+ * traiter des lots disjoints, donc aucun pass n'est notifié deux fois.
+ */
+@Component
+@Slf4j
+public class PassExpirationJob {
+
+    private final MobilityPassRepository passRepository;
+    private final PassStateCache passStateCache;
+    private final PassEventPublisher passEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${user.pass-expiration.chunk-size:500}")
+    private int tailleLot;
+
+    @Value("${user.pass-expiration.max-chunks-per-run:200}")
+    private int maxLotsParPassage;
+
+    public PassExpirationJob(MobilityPassRepository passRepository,
+                             PassStateCache passStateCache,
+                             PassEventPublisher passEventPublisher,
+                             TransactionTemplate transactionTemplate) {
+        this.passRepository = passRepository;
+        this.passStateCache = passStateCache;
+        this.passEventPublisher = passEventPublisher;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    @Scheduled(cron = "${user.pass-expiration.cron:0 */5 * * * *}")
+    public void expirerPassEchus() {
+        LocalDateTime maintenant = LocalDateTime.now();
+        int total = 0;
+        for (int lots = 0; lots < maxLotsParPassage; lots++) {
+            List<PassesExpiredEvent.PassExpire> expires = transactionTemplate.execute(
+                    status -> expirerLot(maintenant));
+            if (expires == null || expires.isEmpty()) {
+                break;
+            }
+            total += expires.size();
+            publier(expires);
+            if (expires.size() < tailleLot) {
+                break;
+            }
+        }
+        if (total > 0) {
+            log.info("[PassExpirationJob] {} pass expirés (échéance < {})", total, maintenant);
+        }
+    }
+
+    // ── Un lot = une transaction ──────────────────────────────────────────────
+
+    private List<PassesExpiredEvent.PassExpire> expirerLot(LocalDateTime maintenant) {
+        List<MobilityPass> echus = passRepository.findEchusAExpirer(maintenant, PageRequest.of(0, tailleLot));
+        if (echus.isEmpty()) {
+            return List.of();
+        }
+
+        List<UUID> ids = new ArrayList<>(echus.size());
+        List<PassesExpiredEvent.PassExpire> expires = new ArrayList<>(echus.size());
+        for (MobilityPass pass : echus) {
+            ids.add(pass.getId());
+            UUID userId = pass.getUser() != null ? pass.getUser().getId() : null;
+            if (userId != null) {
+                passStateCache.invalider(userId); // effectif au commit
+            }
+            expires.add(new PassesExpiredEvent.PassExpire(userId, pass.getId(), pass.getPassNumber(),
+                    pass.getSolde(), pass.getExpirationDate()));
+        }
+
+        passRepository.expirer(ids);
+        return expires;
+    }
+
+    private void publier(List<PassesExpiredEvent.PassExpire> expires) {
+        try {
+            passEventPublisher.publishPassesExpired(expires);
+        } catch (Exception e) {
+            // Les pass sont expirés en base : seule la notification est perdue
+            log.warn("[PassExpirationJob] RabbitMQ indisponible, PASSES_EXPIRED non publié ({} pass) : {}",
+                    expires.size(), e.getMessage());
+        }
+    }
+}
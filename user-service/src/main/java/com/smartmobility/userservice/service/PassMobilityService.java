@@ -1,8 +1,14 @@
 package com.smartmobility.userservice.service;
 
+import com.smartmobility.userservice.dto.PassBatchGetRequest;
+import com.smartmobility.userservice.dto.PassBatchResponse;
+import com.smartmobility.userservice.dto.PassBatchRow;
 import com.smartmobility.userservice.dto.PassResponse;
+import com.smartmobility.userservice.dto.RechargeBatchItem;
+import com.smartmobility.userservice.dto.RechargeBatchResult;
 import com.smartmobility.userservice.dto.UpdateSoldeRequest;
 import com.smartmobility.userservice.entity.MobilityPass;
+import com.smartmobility.userservice.entity.PassOperation;
 import com.smartmobility.userservice.entity.PassStatus;
 import com.smartmobility.userservice.entity.User;
 import com.smartmobility.userservice.exception.PassSuspenduException;
@@ -10,6 +16,7 @@ import com.smartmobility.userservice.exception.SoldeInsuffisantException;
 import com.smartmobility.userservice.exception.UserNotFoundException;
 import com.smartmobility.userservice.messaging.PassEventPublisher;
 import com.smartmobility.userservice.repository.MobilityPassRepository;
+import com.smartmobility.userservice.repository.PassOperationRepository;
 import com.smartmobility.userservice.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
@@ -17,7 +24,16 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional
@@ -29,33 +45,46 @@ public class PassMobilityService {
     private final MobilityPassRepository passRepository;
     private final UserRepository userRepository;
     private final PassEventPublisher passEventPublisher;
+    private final PassStateCache passStateCache;
+    private final PassNumberAllocator passNumberAllocator;
+    private final PassTierPolicy passTierPolicy;
+    private final PassOperationRepository operationRepository;
 
     public PassMobilityService(MobilityPassRepository passRepository,
                                UserRepository userRepository,
-                               PassEventPublisher passEventPublisher) {
+                               PassEventPublisher passEventPublisher,
+                               PassStateCache passStateCache,
+                               PassNumberAllocator passNumberAllocator,
+                               PassTierPolicy passTierPolicy,
+                               PassOperationRepository operationRepository) {
         this.passRepository = passRepository;
         this.userRepository = userRepository;
         this.passEventPublisher = passEventPublisher;
+        this.passStateCache = passStateCache;
+        this.passNumberAllocator = passNumberAllocator;
+        this.passTierPolicy = passTierPolicy;
+        this.operationRepository = operationRepository;
     }
 
     public void creerPassAutomatique(User user) {
-        MobilityPass pass = new MobilityPass();
-        pass.setPassNumber(genererPassNumber());
-        pass.setSolde(BigDecimal.ZERO);
-        pass.setStatus(PassStatus.ACTIVE);
-        pass.setCreatedAt(LocalDateTime.now());
-        pass.setExpirationDate(LocalDateTime.now().plusMonths(DUREE_VALIDITE_MOIS));
+        MobilityPass pass = nouveauPass(passNumberAllocator.allouer(), LocalDateTime.now());
         MobilityPass savedPass = passRepository.save(pass);
         user.setMobilityPass(savedPass);
         userRepository.save(user);
+        passStateCache.mettreAJour(user.getId(), savedPass);
     }
 
+    // Lecture la plus fréquente du système : servie par PassStateCache quand c'est possible
     @Transactional(readOnly = true)
     public PassResponse obtenirPass(UUID userId) {
+        PassResponse enCache = passStateCache.lire(userId);
+        if (enCache != null) {
+            return enCache;
+        }
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
         MobilityPass pass = user.getMobilityPass();
-        verifierEtMettreAJourExpiration(pass);
+        passStateCache.mettreAJour(userId, pass);
         return mapToPassResponse(pass, userId);
     }
 
@@ -64,15 +93,16 @@ public class PassMobilityService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
         MobilityPass pass = user.getMobilityPass();
-        verifierEtMettreAJourExpiration(pass);
+        PassStatus statut = statutEffectif(pass);
 
-        if (pass.getStatus() == PassStatus.EXPIRE)
+        if (statut == PassStatus.EXPIRE)
             throw new IllegalArgumentException("Impossible de suspendre un pass expiré.");
-        if (pass.getStatus() == PassStatus.SUSPENDU)
+        if (statut == PassStatus.SUSPENDU)
             throw new IllegalArgumentException("Le pass est déjà suspendu.");
 
         pass.setStatus(PassStatus.SUSPENDU);
         passRepository.save(pass);
+        passStateCache.mettreAJour(userId, pass);
 
         try {
             passEventPublisher.publishPassSuspended(
@@ -90,15 +120,16 @@ public class PassMobilityService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
         MobilityPass pass = user.getMobilityPass();
-        verifierEtMettreAJourExpiration(pass);
+        PassStatus statut = statutEffectif(pass);
 
-        if (pass.getStatus() == PassStatus.EXPIRE)
+        if (statut == PassStatus.EXPIRE)
             throw new IllegalArgumentException("Impossible de réactiver un pass expiré.");
-        if (pass.getStatus() == PassStatus.ACTIVE)
+        if (statut == PassStatus.ACTIVE)
             throw new IllegalArgumentException("Le pass est déjà actif.");
 
         pass.setStatus(PassStatus.ACTIVE);
         passRepository.save(pass);
+        passStateCache.mettreAJour(userId, pass);
 
         // ✅ Notifier l'utilisateur que son pass est réactivé
         try {
@@ -120,19 +151,33 @@ public class PassMobilityService {
         pass.setExpirationDate(LocalDateTime.now().plusMonths(DUREE_VALIDITE_MOIS));
         pass.setStatus(PassStatus.ACTIVE);
         passRepository.save(pass);
+        passStateCache.mettreAJour(userId, pass);
         return mapToPassResponse(pass, userId);
     }
 
     // ── Débiter ───────────────────────────────────────────────────────────────
-    public PassResponse debiterSolde(UUID userId, UpdateSoldeRequest request) {
+    /**
+     * cleIdempotence (header Idempotency-Key, tripId côté billing-service) :
+     * un appel rejoué avec la même clé renvoie le résultat d'origine sans redébiter.
+     */
+    public PassResponse debiterSolde(UUID userId, UpdateSoldeRequest request, String cleIdempotence) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
         MobilityPass pass = user.getMobilityPass();
-        verifierEtMettreAJourExpiration(pass);
 
-        if (pass.getStatus() == PassStatus.SUSPENDU)
+        PassOperation deja = operationDejaAppliquee(cleIdempotence, pass, PassOperation.DEBIT, request.getMontant());
+        if (deja != null) {
+            log.info("[PassMobilityService] Débit rejoué (clé {}) - userId={}, non redébité", cleIdempotence, userId);
+            PassResponse response = mapToPassResponse(pass, userId);
+            response.setSolde(deja.getSoldeApres());
+            return response;
+        }
+
+        PassStatus statut = statutEffectif(pass);
+
+        if (statut == PassStatus.SUSPENDU)
             throw new PassSuspenduException(pass.getPassNumber());
-        if (pass.getStatus() == PassStatus.EXPIRE)
+        if (statut == PassStatus.EXPIRE)
             throw new IllegalArgumentException("Le Mobility Pass " + pass.getPassNumber() + " est expiré.");
 
         BigDecimal soldeActuel = pass.getSolde();
@@ -141,7 +186,17 @@ public class PassMobilityService {
             throw new SoldeInsuffisantException(soldeActuel, montant);
 
         pass.setSolde(soldeActuel.subtract(montant));
+        // Chaque débit = un trajet (billing-service) : cumuls et niveau mis à jour dans le même UPDATE
+        if (passTierPolicy.enregistrerTrajet(pass, montant)) {
+            log.info("[PassMobilityService] ⭐ Nouveau niveau - userId={}, pass={}, tier={}",
+                    userId, pass.getPassNumber(), pass.getTier());
+        }
         passRepository.save(pass);
+        if (cleIdempotence != null) {
+            operationRepository.save(new PassOperation(cleIdempotence, pass.getId(), PassOperation.DEBIT,
+                    montant, pass.getSolde(), LocalDateTime.now()));
+        }
+        passStateCache.mettreAJour(userId, pass);
         return mapToPassResponse(pass, userId);
     }
 
@@ -150,10 +205,10 @@ public class PassMobilityService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new UserNotFoundException(userId));
         MobilityPass pass = user.getMobilityPass();
-        verifierEtMettreAJourExpiration(pass);
+        PassStatus statut = statutEffectif(pass);
 
         // ✅ Bloquer + notifier si pass suspendu
-        if (pass.getStatus() == PassStatus.SUSPENDU) {
+        if (statut == PassStatus.SUSPENDU) {
             try {
                 passEventPublisher.publishRechargeRefused(
                         userId, pass.getId(), request.getMontant(), "PASS_SUSPENDED");
@@ -165,7 +220,7 @@ public class PassMobilityService {
         }
 
         // ✅ Bloquer + notifier si pass expiré
-        if (pass.getStatus() == PassStatus.EXPIRE) {
+        if (statut == PassStatus.EXPIRE) {
             try {
                 passEventPublisher.publishRechargeRefused(
                         userId, pass.getId(), request.getMontant(), "PASS_EXPIRED");
@@ -178,35 +233,192 @@ public class PassMobilityService {
 
         pass.setSolde(pass.getSolde().add(request.getMontant()));
         passRepository.save(pass);
+        passStateCache.mettreAJour(userId, pass);
         log.info("[PassMobilityService] ✅ Recharge effectuée - userId={}, montant={}, nouveau solde={}",
                 userId, request.getMontant(), pass.getSolde());
         return mapToPassResponse(pass, userId);
     }
 
+    // ── Recharger en masse — billing-service (employeurs, programmes sociaux) ──
+    /**
+     * Recharge un lot de pass en une seule transaction : un SELECT (join fetch)
+     * pour tout le lot, puis des UPDATE regroupés en batch JDBC au flush.
+     * Une ligne en échec (pass suspendu, expiré, montant invalide) n'annule pas les autres.
+     * Pas d'événement RECHARGE_REFUSED ici : l'appelant reçoit le détail ligne par ligne.
+     * Une ligne dont la clé a déjà été appliquée (lot rejoué après un timeout)
+     * renvoie son résultat d'origine sans recréditer.
+     */
+    public List<RechargeBatchResult> rechargerSoldesEnMasse(List<RechargeBatchItem> items) {
+        Set<String> cles = new HashSet<>();
+        for (RechargeBatchItem item : items) {
+            if (item.cle() != null && !cles.add(item.cle())) {
+                throw new IllegalArgumentException("Clé d'idempotence en double dans le lot : " + item.cle());
+            }
+        }
+        Map<String, PassOperation> dejaAppliquees = operationRepository.findAllById(cles).stream()
+                .collect(Collectors.toMap(PassOperation::getCle, Function.identity()));
+
+        List<UUID> userIds = items.stream()
+                .map(RechargeBatchItem::userId)
+                .filter(id -> id != null)
+                .distinct()
+                .collect(Collectors.toList());
+
+        Map<UUID, User> users = userRepository.findAllWithPassByIdIn(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<RechargeBatchResult> results = new ArrayList<>(items.size());
+        Map<UUID, MobilityPass> modifies = new LinkedHashMap<>();
+        List<PassOperation> operations = new ArrayList<>();
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        for (RechargeBatchItem item : items) {
+            User user = item.userId() != null ? users.get(item.userId()) : null;
+            if (user == null || user.getMobilityPass() == null) {
+                results.add(new RechargeBatchResult(item.userId(), null, false, null,
+                        "Utilisateur ou pass introuvable"));
+                continue;
+            }
+            MobilityPass pass = user.getMobilityPass();
+
+            PassOperation deja = item.cle() != null ? dejaAppliquees.get(item.cle()) : null;
+            if (deja != null) {
+                if (!deja.getPassId().equals(pass.getId()) || !PassOperation.RECHARGE.equals(deja.getType())
+                        || item.montant() == null || deja.getMontant().compareTo(item.montant()) != 0) {
+                    results.add(new RechargeBatchResult(item.userId(), pass.getId(), false, pass.getSolde(),
+                            "Clé d'idempotence déjà utilisée pour une autre opération"));
+                } else {
+                    results.add(new RechargeBatchResult(item.userId(), pass.getId(), true, deja.getSoldeApres(), null));
+                }
+                continue;
+            }
+
+            PassStatus statut = statutEffectif(pass);
+
+            String erreur = null;
+            if (item.montant() == null || item.montant().signum() <= 0)
+                erreur = "Montant invalide";
+            else if (statut == PassStatus.SUSPENDU)
+                erreur = "Pass suspendu";
+            else if (statut == PassStatus.EXPIRE)
+                erreur = "Pass expiré";
+
+            if (erreur != null) {
+                results.add(new RechargeBatchResult(item.userId(), pass.getId(), false, pass.getSolde(), erreur));
+                continue;
+            }
+
+            pass.setSolde(pass.getSolde().add(item.montant()));
+            modifies.put(pass.getId(), pass);
+            passStateCache.mettreAJour(user.getId(), pass);
+            if (item.cle() != null) {
+                operations.add(new PassOperation(item.cle(), pass.getId(), PassOperation.RECHARGE,
+                        item.montant(), pass.getSolde(), maintenant));
+            }
+            results.add(new RechargeBatchResult(item.userId(), pass.getId(), true, pass.getSolde(), null));
+        }
+
+        passRepository.saveAll(modifies.values());
+        // Même transaction que les soldes : une clé déjà insérée par un appel concurrent annule le lot (409)
+        operationRepository.saveAll(operations);
+        log.info("[PassMobilityService] Recharge en masse - {} lignes, {} pass rechargés",
+                items.size(), modifies.size());
+        return results;
+    }
+
+    // ── Lecture groupée — appels internes (réconciliation, notifications, admin) ──
+    /**
+     * Au plus une requête IN par type d'identifiant, projection sans entité.
+     * Un pass demandé à la fois par userId et par passId n'est renvoyé qu'une fois.
+     */
+    @Transactional(readOnly = true)
+    public PassBatchResponse lirePassEnMasse(PassBatchGetRequest request) {
+        Set<UUID> userIds = sansDoublons(request.userIds());
+        Set<UUID> passIds = sansDoublons(request.passIds());
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        Map<UUID, PassBatchRow> parPass = new LinkedHashMap<>();
+        Set<UUID> trouves = new HashSet<>();
+        if (!userIds.isEmpty()) {
+            for (PassBatchRow row : passRepository.findBatchByUserIdIn(userIds)) {
+                parPass.putIfAbsent(row.passId(), row.avecStatutEffectif(maintenant));
+                trouves.add(row.userId());
+            }
+        }
+        if (!passIds.isEmpty()) {
+            for (PassBatchRow row : passRepository.findBatchByPassIdIn(passIds)) {
+                parPass.putIfAbsent(row.passId(), row.avecStatutEffectif(maintenant));
+                trouves.add(row.passId());
+            }
+        }
+
+        List<UUID> introuvables = new ArrayList<>();
+        userIds.stream().filter(id -> !trouves.contains(id)).forEach(introuvables::add);
+        passIds.stream().filter(id -> !trouves.contains(id)).forEach(introuvables::add);
+        return new PassBatchResponse(new ArrayList<>(parPass.values()), introuvables);
+    }
+
     // ── Utilitaires ───────────────────────────────────────────────────────────
 
-    private void verifierEtMettreAJourExpiration(MobilityPass pass) {
+    /**
+     * Opération déjà enregistrée sous cette clé, ou null (clé absente ou nouvelle).
+     * Une clé réutilisée pour un autre pass, un autre type ou un autre montant est refusée.
+     */
+    private PassOperation operationDejaAppliquee(String cle, MobilityPass pass, String type, BigDecimal montant) {
+        if (cle == null) {
+            return null;
+        }
+        PassOperation deja = operationRepository.findById(cle).orElse(null);
+        if (deja != null && (!deja.getPassId().equals(pass.getId()) || !deja.getType().equals(type)
+                || montant == null || deja.getMontant().compareTo(montant) != 0)) {
+            throw new IllegalArgumentException("Clé d'idempotence déjà utilisée pour une autre opération : " + cle);
+        }
+        return deja;
+    }
+
+    private static Set<UUID> sansDoublons(List<UUID> ids) {
+        Set<UUID> set = new LinkedHashSet<>();
+        if (ids != null) {
+            ids.stream().filter(id -> id != null).forEach(set::add);
+        }
+        return set;
+    }
+
+    /**
+     * Statut vu par les appelants : EXPIRE dès l'échéance passée, sans écriture.
+     * Le passage en base est fait en masse par PassExpirationJob.
+     */
+    static PassStatus statutEffectif(MobilityPass pass) {
         if (pass.getStatus() != PassStatus.EXPIRE
                 && pass.getExpirationDate() != null
                 && LocalDateTime.now().isAfter(pass.getExpirationDate())) {
-            pass.setStatus(PassStatus.EXPIRE);
-            passRepository.save(pass);
+            return PassStatus.EXPIRE;
         }
+        return pass.getStatus();
     }
 
     private PassResponse mapToPassResponse(MobilityPass pass, UUID userId) {
         PassResponse response = new PassResponse();
         response.setId(pass.getId());
         response.setPassNumber(pass.getPassNumber());
-        response.setStatus(pass.getStatus());
+        response.setStatus(statutEffectif(pass));
         response.setSolde(pass.getSolde());
         response.setCreatedAt(pass.getCreatedAt());
         response.setExpirationDate(pass.getExpirationDate());
         response.setUserId(userId);
+        response.setTier(pass.getTier());
+        response.setNbTrajets(pass.getNbTrajets());
         return response;
     }
 
-    private String genererPassNumber() {
-        return "SMP-" + UUID.randomUUID().toString().toUpperCase().replace("-", "").substring(0, 8);
+    /** Pass neuf, actif, solde nul, valable DUREE_VALIDITE_MOIS. */
+    static MobilityPass nouveauPass(String passNumber, LocalDateTime maintenant) {
+        MobilityPass pass = new MobilityPass();
+        pass.setPassNumber(passNumber);
+        pass.setSolde(BigDecimal.ZERO);
+        pass.setStatus(PassStatus.ACTIVE);
+        pass.setCreatedAt(maintenant);
+        pass.setExpirationDate(maintenant.plusMonths(DUREE_VALIDITE_MOIS));
+        return pass;
     }
 }
\ No newline at end of file
@@ -0,0 +1,216 @@
+package com.smartmobility.userservice.service;
+
+import com.smartmobility.userservice.entity.PassNumberSequence;
+import com.smartmobility.userservice.repository.PassNumberSequenceRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * PassNumberAllocator — numéros de pass uniques par construction.
+ *
+ * Chaque instance réserve un bloc de user.pass-number.block-size valeurs dans
+ * pass_number_sequence (SELECT ... FOR UPDATE) puis les distribue en mémoire :
+ * un accès MySQL par bloc, jamais de collision sur la contrainte unique,
+ * donc jamais d'inscription rejouée.
+ *
+ * La réservation ne se fait jamais sur le thread appelant (qui tient déjà une
+ * connexion dans sa transaction : en attendre une seconde du même pool peut
+ * bloquer toutes les inscriptions si le pool est saturé). Un thread dédié,
+ * hors de toute transaction appelante, réserve le bloc suivant dès que le bloc
+ * courant est à moitié consommé. Si les deux blocs sont épuisés (rafale),
+ * l'appelant attend la réservation en vol au plus user.pass-number.wait-ms,
+ * sans tenir le verrou de l'allocateur, puis échoue au lieu de bloquer.
+ *
+ * Format : SMP- + 8 caractères base 32 Crockford (40 bits) + 1 caractère de contrôle.
+ *   - la valeur de séquence est mélangée (multiplication par un impair mod 2^40,
+ *     bijective) : deux pass consécutifs n'ont pas des numéros voisins ;
+ *   - le contrôle (Luhn mod 32) détecte toute faute de frappe sur un caractère
+ *     et la plupart des inversions de caractères voisins.
+ * Les anciens numéros (SMP- + 8 hexa) ont un caractère de moins : pas de recouvrement.
+ */
+@Component
+@Slf4j
+public class PassNumberAllocator {
+
+    private static final String SEQUENCE = "pass";
+    private static final String PREFIXE = "SMP-";
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int CHIFFRES = 8;
+    private static final long MASQUE = (1L << (5 * CHIFFRES)) - 1;
+    private static final long MELANGE = 0x9E3779B97L;   // impair → bijection sur [0, 2^40)
+
+    private final PassNumberSequenceRepository sequenceRepository;
+    private final TransactionTemplate transaction;
+    private final ExecutorService reservation = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "pass-number-reservation");
+        t.setDaemon(true);
+        return t;
+    });
+
+    @Value("${user.pass-number.block-size:1000}")
+    private int tailleBloc;
+
+    @Value("${user.pass-number.wait-ms:2000}")
+    private long attenteMs;
+
+    // Bloc réservé courant : [prochaine, fin) ; bloc suivant déjà réservé (début) ou -1
+    private long prochaine;
+    private long fin;
+    private long blocSuivant = -1;
+    private CompletableFuture<Void> reservationEnCours;
+
+    public PassNumberAllocator(PassNumberSequenceRepository sequenceRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.sequenceRepository = sequenceRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    synchronized void demarrer() {
+        reserverEnArrierePlan();   // premier bloc prêt avant la première inscription
+    }
+
+    @PreDestroy
+    void arreter() {
+        reservation.shutdownNow();
+    }
+
+    public String allouer() {
+        while (true) {
+            CompletableFuture<Void> attente;
+            synchronized (this) {
+                if (prochaine >= fin && blocSuivant >= 0) {
+                    prochaine = blocSuivant;
+                    fin = blocSuivant + tailleBloc;
+                    blocSuivant = -1;
+                }
+                if (prochaine < fin) {
+                    long valeur = prochaine++;
+                    if (blocSuivant < 0 && reservationEnCours == null && fin - prochaine <= tailleBloc / 2) {
+                        reserverEnArrierePlan();
+                    }
+                    return encoder(valeur);
+                }
+                attente = reservationEnCours != null ? reservationEnCours : reserverEnArrierePlan();
+            }
+            attendre(attente);
+        }
+    }
+
+    // ── Réservation d'un bloc ─────────────────────────────────────────────────
+
+    // Appelé sous le verrou ; l'état est mis à jour avant que les appelants en attente ne repartent
+    private CompletableFuture<Void> reserverEnArrierePlan() {
+        CompletableFuture<Void> enCours = CompletableFuture.supplyAsync(this::reserverBloc, reservation)
+                .handle((debut, erreur) -> {
+                    synchronized (this) {
+                        reservationEnCours = null;
+                        if (erreur == null) {
+                            blocSuivant = debut;
+                        }
+                    }
+                    if (erreur != null) {
+                        log.error("[PassNumberAllocator] Réservation d'un bloc en échec : {}", erreur.getMessage());
+                        throw new IllegalStateException("Réservation d'un bloc de numéros de pass impossible", erreur);
+                    }
+                    return null;
+                });
+        reservationEnCours = enCours;
+        return enCours;
+    }
+
+    private void attendre(CompletableFuture<Void> attente) {
+        try {
+            attente.get(attenteMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Numéros de pass temporairement indisponibles, réessayez");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Numéros de pass temporairement indisponibles", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Allocation d'un numéro de pass interrompue", e);
+        }
+    }
+
+    // Sur le thread de réservation, hors de toute transaction appelante : le verrou sur
+    // la séquence est relâché aussitôt, et un bloc réservé n'est jamais rendu (au pire des trous).
+    private long reserverBloc() {
+        long debut = transaction.execute(status -> {
+            PassNumberSequence sequence = sequenceRepository.findForUpdate(SEQUENCE).orElse(null);
+            if (sequence == null) {
+                sequenceRepository.insererSiAbsente(SEQUENCE, 1);
+                sequence = sequenceRepository.findForUpdate(SEQUENCE).orElseThrow();
+            }
+            long valeur = sequence.getProchaineValeur();
+            if (valeur + tailleBloc > MASQUE) {
+                throw new IllegalStateException("Séquence des numéros de pass épuisée");
+            }
+            sequence.setProchaineValeur(valeur + tailleBloc);
+            return valeur;
+        });
+        log.info("[PassNumberAllocator] Bloc réservé : [{}, {})", debut, debut + tailleBloc);
+        return debut;
+    }
+
+    // ── Encodage ──────────────────────────────────────────────────────────────
+
+    static String encoder(long sequence) {
+        long valeur = (sequence * MELANGE) & MASQUE;
+        char[] numero = new char[PREFIXE.length() + CHIFFRES + 1];
+        PREFIXE.getChars(0, PREFIXE.length(), numero, 0);
+        for (int i = PREFIXE.length() + CHIFFRES - 1; i >= PREFIXE.length(); i--) {
+            numero[i] = ALPHABET[(int) (valeur & 31)];
+            valeur >>>= 5;
+        }
+        numero[numero.length - 1] = ALPHABET[controle(numero, PREFIXE.length(), numero.length - 1)];
+        return new String(numero);
+    }
+
+    /** Vérifie le format et le caractère de contrôle d'un numéro (nouveau format uniquement). */
+    public static boolean estValide(String passNumber) {
+        if (passNumber == null || passNumber.length() != PREFIXE.length() + CHIFFRES + 1
+                || !passNumber.startsWith(PREFIXE)) {
+            return false;
+        }
+        char[] numero = passNumber.toCharArray();
+        for (int i = PREFIXE.length(); i < numero.length; i++) {
+            if (indice(numero[i]) < 0) {
+                return false;
+            }
+        }
+        return ALPHABET[controle(numero, PREFIXE.length(), numero.length - 1)] == numero[numero.length - 1];
+    }
+
+    // Luhn mod 32 sur numero[debut, fin), de droite à gauche
+    private static int controle(char[] numero, int debut, int fin) {
+        int facteur = 2;
+        int somme = 0;
+        for (int i = fin - 1; i >= debut; i--) {
+            int terme = facteur * indice(numero[i]);
+            somme += terme / 32 + terme % 32;
+            facteur = facteur == 2 ? 1 : 2;
+        }
+        return (32 - somme % 32) % 32;
+    }
+
+    private static int indice(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,37 @@
+package com.smartmobility.userservice.service;
+
+import com.smartmobility.userservice.repository.PassOperationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * PassOperationPurgeJob — oublie les clés d'idempotence anciennes.
+ *
+ * Les reprises du billing-service s'arrêtent au bout de quelques heures :
+ * au-delà de user.idempotence.retention-jours, une clé ne peut plus être rejouée.
+ */
+@Component
+@Slf4j
+public class PassOperationPurgeJob {
+
+    private final PassOperationRepository operationRepository;
+
+    @Value("${user.idempotence.retention-jours:7}")
+    private int retentionJours;
+
+    public PassOperationPurgeJob(PassOperationRepository operationRepository) {
+        this.operationRepository = operationRepository;
+    }
+
+    @Scheduled(cron = "${user.idempotence.purge-cron:0 15 4 * * *}")
+    public void purger() {
+        int supprimees = operationRepository.purgerAvant(LocalDateTime.now().minusDays(retentionJours));
+        if (supprimees > 0) {
+            log.info("[PassOperationPurgeJob] {} clé(s) d'idempotence purgée(s)", supprimees);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.smartmobility.userservice.service;
+
+import com.smartmobility.userservice.dto.PassResponse;
+import com.smartmobility.userservice.entity.MobilityPass;
+import com.smartmobility.userservice.entity.PassStatus;
+import com.smartmobility.userservice.entity.PassTier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * PassStateCache — état du Mobility Pass par userId, en mémoire.
+ *
+ * GET /api/users/{id}/pass est appelé à chaque validation (trip-service)
+ * et à chaque débit / recharge (billing-service) : un hit ne touche pas MySQL.
+ *
+ * Write-through : chaque chemin de mutation de PassMobilityService met l'entrée
+ * à jour APRÈS le commit (jamais d'état non validé dans le cache). La version
+ * JPA du pass départage les commits concurrents : une entrée plus ancienne
+ * n'écrase jamais une plus récente.
+ *
+ * Plusieurs instances : une entrée expire après user.pass-cache.ttl-seconds
+ * pour voir les mutations faites par les autres instances.
+ */
+@Component
+public class PassStateCache {
+
+    private record EtatPass(UUID passId, String passNumber, PassStatus status, BigDecimal solde,
+                            LocalDateTime createdAt, LocalDateTime expirationDate,
+                            PassTier tier, long nbTrajets,
+                            long version, long chargeLe) {}
+
+    private final Map<UUID, EtatPass> etats = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter miss;
+
+    @Value("${user.pass-cache.ttl-seconds:30}")
+    private long ttlSecondes;
+
+    @Value("${user.pass-cache.max-entries:200000}")
+    private int maxEntrees;
+
+    public PassStateCache(MeterRegistry meterRegistry) {
+        this.hits = meterRegistry.counter("user.pass.cache.requests", "result", "hit");
+        this.miss = meterRegistry.counter("user.pass.cache.requests", "result", "miss");
+        meterRegistry.gaugeMapSize("user.pass.cache.size", Tags.empty(), etats);
+    }
+
+    // ── Lecture ───────────────────────────────────────────────────────────────
+
+    /** Pass en cache, ou null (absent / expiré) → l'appelant lit MySQL puis appelle mettreAJour. */
+    public PassResponse lire(UUID userId) {
+        EtatPass etat = etats.get(userId);
+        if (etat == null || System.currentTimeMillis() - etat.chargeLe() > ttlSecondes * 1000) {
+            miss.increment();
+            return null;
+        }
+        hits.increment();
+
+        // Échéance passée depuis la mise en cache : exposé EXPIRE sans écrire
+        boolean echu = etat.status() != PassStatus.EXPIRE
+                && etat.expirationDate() != null
+                && LocalDateTime.now().isAfter(etat.expirationDate());
+
+        PassResponse response = new PassResponse();
+        response.setId(etat.passId());
+        response.setPassNumber(etat.passNumber());
+        response.setStatus(echu ? PassStatus.EXPIRE : etat.status());
+        response.setSolde(etat.solde());
+        response.setCreatedAt(etat.createdAt());
+        response.setExpirationDate(etat.expirationDate());
+        response.setUserId(userId);
+        response.setTier(etat.tier());
+        response.setNbTrajets(etat.nbTrajets());
+        return response;
+    }
+
+    // ── Écriture (chemins de mutation) ────────────────────────────────────────
+
+    /**
+     * Met l'entrée à jour au commit de la transaction courante.
+     * L'état est lu sur l'entité APRÈS le flush : version incrémentée comprise.
+     */
+    public void mettreAJour(UUID userId, MobilityPass pass) {
+        apresCommit(() -> {
+            EtatPass nouvel = new EtatPass(pass.getId(), pass.getPassNumber(), pass.getStatus(),
+                    pass.getSolde(), pass.getCreatedAt(), pass.getExpirationDate(),
+                    pass.getTier(), pass.getNbTrajets(),
+                    pass.getVersion(), System.currentTimeMillis());
+            if (!etats.containsKey(userId) && etats.size() >= maxEntrees) {
+                purgerExpirees();
+                if (etats.size() >= maxEntrees) {
+                    return; // cache plein : la lecture suivante ira en base
+                }
+            }
+            etats.merge(userId, nouvel, (actuel, recu) -> recu.version() >= actuel.version() ? recu : actuel);
+        });
+    }
+
+    public void invalider(UUID userId) {
+        apresCommit(() -> etats.remove(userId));
+    }
+
+    // ── Utilitaires ───────────────────────────────────────────────────────────
+
+    private void apresCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void purgerExpirees() {
+        long limite = System.currentTimeMillis() - ttlSecondes * 1000;
+        etats.values().removeIf(e -> e.chargeLe() < limite);
+    }
+}
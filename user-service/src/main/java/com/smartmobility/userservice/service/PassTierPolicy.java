@@ -0,0 +1,56 @@
+package com.smartmobility.userservice.service;
+
+import com.smartmobility.userservice.entity.MobilityPass;
+import com.smartmobility.userservice.entity.PassTier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * PassTierPolicy — niveau de fidélité d'un pass à partir de ses cumuls.
+ *
+ * Les cumuls (totalDepense, nbTrajets) sont incrémentés à chaque débit de trajet,
+ * dans la même transaction que le solde : le niveau est recalculé sur l'entité
+ * déjà chargée, sans requête ni parcours de l'historique.
+ * Un niveau est atteint dès que l'un des deux seuils (trajets OU dépense) est franchi ;
+ * les cumuls ne baissent jamais, le niveau non plus.
+ */
+@Component
+public class PassTierPolicy {
+
+    @Value("${user.pass-tier.silver.trajets:20}")
+    private long trajetsSilver;
+    @Value("${user.pass-tier.silver.depense:10000}")
+    private BigDecimal depenseSilver;
+
+    @Value("${user.pass-tier.gold.trajets:60}")
+    private long trajetsGold;
+    @Value("${user.pass-tier.gold.depense:30000}")
+    private BigDecimal depenseGold;
+
+    @Value("${user.pass-tier.platinum.trajets:150}")
+    private long trajetsPlatinum;
+    @Value("${user.pass-tier.platinum.depense:80000}")
+    private BigDecimal depensePlatinum;
+
+    /** Enregistre un trajet débité et met le niveau à jour. Retourne true si le niveau a changé. */
+    public boolean enregistrerTrajet(MobilityPass pass, BigDecimal montant) {
+        pass.setTotalDepense(pass.getTotalDepense().add(montant));
+        pass.setNbTrajets(pass.getNbTrajets() + 1);
+
+        PassTier nouveau = calculer(pass.getTotalDepense(), pass.getNbTrajets());
+        if (nouveau.compareTo(pass.getTier()) > 0) {
+            pass.setTier(nouveau);
+            return true;
+        }
+        return false;
+    }
+
+    public PassTier calculer(BigDecimal totalDepense, long nbTrajets) {
+        if (nbTrajets >= trajetsPlatinum || totalDepense.compareTo(depensePlatinum) >= 0) return PassTier.PLATINUM;
+        if (nbTrajets >= trajetsGold || totalDepense.compareTo(depenseGold) >= 0) return PassTier.GOLD;
+        if (nbTrajets >= trajetsSilver || totalDepense.compareTo(depenseSilver) >= 0) return PassTier.SILVER;
+        return PassTier.STANDARD;
+    }
+}
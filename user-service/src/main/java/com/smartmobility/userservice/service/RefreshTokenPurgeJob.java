@@ -0,0 +1,31 @@
+package com.smartmobility.userservice.service;
+
+import com.smartmobility.userservice.repository.RefreshTokenRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * RefreshTokenPurgeJob — supprime les refresh tokens expirés :
+ * la signature les refuse déjà, la ligne ne sert plus à rien.
+ */
+@Component
+@Slf4j
+public class RefreshTokenPurgeJob {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+
+    public RefreshTokenPurgeJob(RefreshTokenRepository refreshTokenRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+    }
+
+    @Scheduled(cron = "${user.refresh-token.purge-cron:0 30 4 * * *}")
+    public void purger() {
+        int supprimes = refreshTokenRepository.purgerAvant(LocalDateTime.now());
+        if (supprimes > 0) {
+            log.info("[RefreshTokenPurgeJob] {} refresh token(s) expiré(s) purgé(s)", supprimes);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.smartmobility.userservice.service;
+
+import com.smartmobility.userservice.entity.MobilityPass;
+import com.smartmobility.userservice.entity.PassStatus;
+import com.smartmobility.userservice.entity.RefreshToken;
+import com.smartmobility.userservice.entity.User;
+import com.smartmobility.userservice.exception.PassSuspenduException;
+import com.smartmobility.userservice.exception.UserNotFoundException;
+import com.smartmobility.userservice.repository.RefreshTokenRepository;
+import com.smartmobility.userservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * RefreshTokenService — état durable des refresh tokens de l'auth-service.
+ *
+ * Rotation : l'ancien jti est consommé par un UPDATE conditionnel, une seule
+ * requête peut gagner même entre deux instances d'auth-service.
+ * Un jti déjà consommé présenté de nouveau = token volé ou rejoué :
+ * toute la famille de l'utilisateur est révoquée (il devra se reconnecter).
+ *
+ * Pass suspendu : aucun échange (403) tant qu'il n'est pas réactivé. La gateway
+ * ne refuse les tokens émis avant la suspension que pendant la durée d'un access
+ * token : sans ce contrôle, un refresh rendrait l'accès au bout de 15 minutes.
+ * Lu en base, pas dans PassStateCache (qui peut retarder de quelques secondes).
+ */
+@Service
+@Transactional
+@Slf4j
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final UserRepository userRepository;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+    }
+
+    public void enregistrer(UUID userId, String jti, long expireLe) {
+        refreshTokenRepository.save(new RefreshToken(jti, userId, date(expireLe), LocalDateTime.now()));
+    }
+
+    // La révocation de la famille doit survivre à l'exception renvoyée à l'appelant
+    @Transactional(noRollbackFor = IllegalArgumentException.class)
+    public void faireTourner(UUID userId, String ancienJti, String nouveauJti, long expireLe,
+                             Long ancienExpireLe) {
+        verifierPassNonSuspendu(userId);
+        LocalDateTime maintenant = LocalDateTime.now();
+        if (refreshTokenRepository.consommer(ancienJti, userId, maintenant) == 0) {
+            RefreshToken ancien = refreshTokenRepository.findById(ancienJti).orElse(null);
+            if (ancien == null && ancienExpireLe != null) {
+                // Ancien token jamais enregistré (transition) : adopté consommé.
+                // Deux échanges concurrents → le second échoue sur la clé primaire (409)
+                RefreshToken adopte = new RefreshToken(ancienJti, userId, date(ancienExpireLe), maintenant);
+                adopte.setConsommeLe(maintenant);
+                refreshTokenRepository.saveAndFlush(adopte);
+                refreshTokenRepository.save(new RefreshToken(nouveauJti, userId, date(expireLe), maintenant));
+                return;
+            }
+            if (ancien != null && ancien.getUserId().equals(userId) && ancien.getConsommeLe() != null) {
+                int revoques = refreshTokenRepository.revoquerTous(userId, maintenant);
+                log.warn("[RefreshTokenService] ⛔ Refresh token réutilisé - userId={}, jti={}, {} token(s) révoqué(s)",
+                        userId, ancienJti, revoques);
+            }
+            throw new IllegalArgumentException("Refresh token déjà utilisé, révoqué ou inconnu");
+        }
+        refreshTokenRepository.save(new RefreshToken(nouveauJti, userId, date(expireLe), maintenant));
+    }
+
+    public void revoquer(UUID userId, String jti) {
+        refreshTokenRepository.consommer(jti, userId, LocalDateTime.now());
+    }
+
+    private void verifierPassNonSuspendu(UUID userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new UserNotFoundException(userId));
+        MobilityPass pass = user.getMobilityPass();
+        if (pass != null && PassMobilityService.statutEffectif(pass) == PassStatus.SUSPENDU) {
+            log.info("[RefreshTokenService] Refresh refusé, pass suspendu - userId={}", userId);
+            throw new PassSuspenduException(pass.getPassNumber());
+        }
+    }
+
+    private static LocalDateTime date(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
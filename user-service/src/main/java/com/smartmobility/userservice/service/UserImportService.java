@@ -0,0 +1,287 @@
+package com.smartmobility.userservice.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.smartmobility.userservice.dto.CreateUserRequest;
+import com.smartmobility.userservice.dto.UserImportReport;
+import com.smartmobility.userservice.dto.UserImportResult;
+import com.smartmobility.userservice.entity.Role;
+import com.smartmobility.userservice.entity.User;
+import com.smartmobility.userservice.messaging.UserEventPublisher;
+import com.smartmobility.userservice.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * UserImportService — création de comptes en masse (écoles, entreprises).
+ *
+ * Le fichier est lu en flux (NDJSON : un CreateUserRequest par ligne) et traité
+ * par lots de user.import.chunk-size, une transaction par lot :
+ *   - unicité email / username / googleId : 1 requête IN par colonne
+ *     (les numéros de pass viennent de PassNumberAllocator, uniques par construction) ;
+ *   - users + pass : INSERT regroupés en batch JDBC au flush (UUID générés
+ *     en mémoire par Hibernate, pas d'aller-retour par ligne).
+ * Au lieu de existsByEmail + save pass + save user + update user + findById par compte.
+ *
+ * Une ligne invalide ou en doublon est rejetée sans bloquer les autres.
+ * Après le commit de chaque lot, un USER_CHANGED (CREE) par compte créé : les instances
+ * d'auth-service oublient un éventuel "email inconnu" en cache, comme pour une inscription.
+ */
+@Service
+@Slf4j
+public class UserImportService {
+
+    private final UserRepository userRepository;
+    private final PassNumberAllocator passNumberAllocator;
+    private final TransactionTemplate transactionTemplate;
+    private final UserEventPublisher userEventPublisher;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    @Value("${user.import.chunk-size:500}")
+    private int tailleLot;
+
+    @Value("${user.import.max-lignes:50000}")
+    private int maxLignes;
+
+    public UserImportService(UserRepository userRepository,
+                             PassNumberAllocator passNumberAllocator,
+                             TransactionTemplate transactionTemplate,
+                             UserEventPublisher userEventPublisher) {
+        this.userRepository = userRepository;
+        this.passNumberAllocator = passNumberAllocator;
+        this.transactionTemplate = transactionTemplate;
+        this.userEventPublisher = userEventPublisher;
+    }
+
+    private record Ligne(int numero, CreateUserRequest requete, String erreur) {}
+
+    // ── Points d'entrée ───────────────────────────────────────────────────────
+
+    /** NDJSON lu ligne à ligne : le fichier n'est jamais chargé en entier. */
+    public UserImportReport importerNdjson(InputStream flux) throws IOException {
+        Import session = new Import();
+        List<Ligne> lot = new ArrayList<>(tailleLot);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(flux, StandardCharsets.UTF_8))) {
+            String brute;
+            int numero = 0;
+            while ((brute = reader.readLine()) != null) {
+                numero++;
+                if (brute.isBlank()) {
+                    continue;
+                }
+                if (session.total + lot.size() >= maxLignes) {
+                    // Les lots précédents sont déjà validés : on s'arrête proprement, sans tout annuler
+                    session.traiter(lot);
+                    lot = new ArrayList<>();
+                    session.total++;
+                    session.rejeter(new Ligne(numero, null, null),
+                            "Limite de " + maxLignes + " lignes atteinte : cette ligne et les suivantes sont ignorées");
+                    break;
+                }
+                try {
+                    lot.add(new Ligne(numero, objectMapper.readValue(brute, CreateUserRequest.class), null));
+                } catch (IOException e) {
+                    lot.add(new Ligne(numero, null, "JSON illisible"));
+                }
+                if (lot.size() == tailleLot) {
+                    session.traiter(lot);
+                    lot = new ArrayList<>(tailleLot);
+                }
+            }
+        }
+        session.traiter(lot);
+        return session.bilan();
+    }
+
+    public UserImportReport importer(List<CreateUserRequest> requetes) {
+        if (requetes.size() > maxLignes) {
+            throw new IllegalArgumentException("Trop de lignes : " + requetes.size() + " (maximum " + maxLignes + ")");
+        }
+        Import session = new Import();
+        for (int debut = 0; debut < requetes.size(); debut += tailleLot) {
+            List<Ligne> lot = new ArrayList<>(tailleLot);
+            for (int i = debut; i < Math.min(debut + tailleLot, requetes.size()); i++) {
+                lot.add(new Ligne(i + 1, requetes.get(i), null));
+            }
+            session.traiter(lot);
+        }
+        return session.bilan();
+    }
+
+    // ── Un import = des lots successifs ───────────────────────────────────────
+
+    private class Import {
+
+        private final List<UserImportResult> resultats = new ArrayList<>();
+        // Valeurs déjà prises par les lots précédents de ce fichier
+        private final Set<String> emailsVus = new HashSet<>();
+        private final Set<String> usernamesVus = new HashSet<>();
+        private final Set<String> googleIdsVus = new HashSet<>();
+        private int total;
+        private int crees;
+        private final long debut = System.currentTimeMillis();
+
+        void traiter(List<Ligne> lot) {
+            if (lot.isEmpty()) {
+                return;
+            }
+            total += lot.size();
+
+            // 1. Validation locale
+            List<Ligne> valides = new ArrayList<>(lot.size());
+            for (Ligne ligne : lot) {
+                String erreur = ligne.erreur() != null ? ligne.erreur() : valider(ligne.requete());
+                if (erreur != null) {
+                    rejeter(ligne, erreur);
+                } else {
+                    valides.add(ligne);
+                }
+            }
+            if (valides.isEmpty()) {
+                return;
+            }
+
+            // 2. Unicité : une requête IN par colonne unique pour tout le lot
+            Set<String> emailsPris = minuscules(userRepository.findEmailsExistants(
+                    valides.stream().map(l -> l.requete().email().trim()).collect(Collectors.toSet())));
+            Set<String> usernamesPris = minuscules(userRepository.findUsernamesExistants(
+                    valides.stream().map(l -> l.requete().username().trim()).collect(Collectors.toSet())));
+            Set<String> googleIds = valides.stream().map(l -> l.requete().googleId())
+                    .filter(Objects::nonNull).collect(Collectors.toSet());
+            Set<String> googleIdsPris = googleIds.isEmpty()
+                    ? Set.of() : new HashSet<>(userRepository.findGoogleIdsExistants(googleIds));
+
+            List<Ligne> aCreer = new ArrayList<>(valides.size());
+            for (Ligne ligne : valides) {
+                CreateUserRequest r = ligne.requete();
+                String email = r.email().trim().toLowerCase(Locale.ROOT);
+                String username = r.username().trim().toLowerCase(Locale.ROOT);
+                if (emailsPris.contains(email) || !emailsVus.add(email)) {
+                    rejeter(ligne, "Email déjà utilisé : " + r.email());
+                } else if (usernamesPris.contains(username) || !usernamesVus.add(username)) {
+                    emailsVus.remove(email);
+                    rejeter(ligne, "Nom d'utilisateur déjà utilisé : " + r.username());
+                } else if (r.googleId() != null
+                        && (googleIdsPris.contains(r.googleId()) || !googleIdsVus.add(r.googleId()))) {
+                    emailsVus.remove(email);
+                    usernamesVus.remove(username);
+                    rejeter(ligne, "Compte Google déjà lié : " + r.googleId());
+                } else {
+                    aCreer.add(ligne);
+                }
+            }
+            if (aCreer.isEmpty()) {
+                return;
+            }
+
+            // 3. INSERT regroupés, une transaction pour le lot
+            try {
+                List<User> users = transactionTemplate.execute(status -> inserer(aCreer));
+                for (int i = 0; i < aCreer.size(); i++) {
+                    User u = users.get(i);
+                    resultats.add(new UserImportResult(aCreer.get(i).numero(), u.getEmail(), true,
+                            u.getId(), u.getMobilityPass().getId(), u.getMobilityPass().getPassNumber(), null));
+                }
+                crees += aCreer.size();
+                // Lot commité : les comptes existent pour les autres services
+                users.forEach(u -> userEventPublisher.publishUserChanged(u.getId(), u.getEmail(), "CREE"));
+            } catch (RuntimeException e) {
+                // Conflit avec une inscription concurrente : tout le lot est annulé, rien de partiel
+                log.warn("[UserImportService] Lot rejeté ({} lignes) : {}", aCreer.size(), e.getMessage());
+                aCreer.forEach(l -> rejeter(l, "Lot annulé (conflit concurrent), ligne à resoumettre"));
+            }
+        }
+
+        void rejeter(Ligne ligne, String erreur) {
+            String email = ligne.requete() != null ? ligne.requete().email() : null;
+            resultats.add(new UserImportResult(ligne.numero(), email, false, null, null, null, erreur));
+        }
+
+        UserImportReport bilan() {
+            log.info("[UserImportService] Import terminé : {} lignes, {} comptes créés en {} ms",
+                    total, crees, System.currentTimeMillis() - debut);
+            return new UserImportReport(total, crees, total - crees, resultats);
+        }
+    }
+
+    private List<User> inserer(List<Ligne> lignes) {
+        LocalDateTime maintenant = LocalDateTime.now();
+
+        List<User> users = new ArrayList<>(lignes.size());
+        for (int i = 0; i < lignes.size(); i++) {
+            CreateUserRequest r = lignes.get(i).requete();
+            User user = new User();
+            user.setNom(r.nom().trim());
+            user.setPrenom(r.prenom().trim());
+            user.setEmail(r.email().trim());
+            user.setPassword(r.password());   // déjà encodé BCrypt par l'appelant
+            user.setUsername(r.username().trim());
+            user.setTelephone(r.telephone());
+            user.setRole(r.role() != null ? Role.valueOf(r.role().toUpperCase(Locale.ROOT)) : Role.USER);
+            user.setEnabled(r.enabled());
+            user.setGoogleId(r.googleId());
+            user.setCreatedAt(maintenant);
+            // Cascade ALL : le pass est inséré avec l'utilisateur, lien posé dès l'INSERT
+            user.setMobilityPass(PassMobilityService.nouveauPass(passNumberAllocator.allouer(), maintenant));
+            users.add(user);
+        }
+        return userRepository.saveAll(users);
+    }
+
+    // ── Validation ────────────────────────────────────────────────────────────
+
+    private static String valider(CreateUserRequest r) {
+        if (r == null) {
+            return "Ligne vide";
+        }
+        if (estVide(r.nom()) || r.nom().trim().length() > 100) {
+            return "Le nom est obligatoire (100 caractères max)";
+        }
+        if (estVide(r.prenom()) || r.prenom().trim().length() > 100) {
+            return "Le prénom est obligatoire (100 caractères max)";
+        }
+        if (estVide(r.username()) || r.username().trim().length() < 3 || r.username().trim().length() > 50) {
+            return "Le nom d'utilisateur doit contenir entre 3 et 50 caractères";
+        }
+        if (estVide(r.email()) || !r.email().contains("@")) {
+            return "Email invalide";
+        }
+        if (r.telephone() != null && r.telephone().length() > 20) {
+            return "Téléphone invalide (20 caractères max)";
+        }
+        if (r.role() != null) {
+            try {
+                Role.valueOf(r.role().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                return "Rôle inconnu : " + r.role();
+            }
+        }
+        return null;
+    }
+
+    private static boolean estVide(String s) {
+        return s == null || s.isBlank();
+    }
+
+    private static Set<String> minuscules(List<String> valeurs) {
+        return valeurs.stream().map(v -> v.toLowerCase(Locale.ROOT)).collect(Collectors.toSet());
+    }
+}
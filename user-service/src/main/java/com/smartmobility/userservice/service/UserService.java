@@ -4,13 +4,23 @@ import com.smartmobility.userservice.dto.*;
 import com.smartmobility.userservice.entity.PassStatus;
 import com.smartmobility.userservice.entity.Role;
 import com.smartmobility.userservice.entity.User;
+import com.smartmobility.userservice.exception.PatchInvalideException;
 import com.smartmobility.userservice.exception.UserNotFoundException;
+import com.smartmobility.userservice.exception.UsernameDejaPrisException;
+import com.smartmobility.userservice.messaging.UserEventPublisher;
+import com.smartmobility.userservice.repository.UserListingRepository.TriUtilisateurs;
 import com.smartmobility.userservice.repository.UserRepository;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.UUID;
 import java.util.stream.Collectors;
 
@@ -18,21 +28,79 @@ import java.util.stream.Collectors;
 @Transactional
 public class UserService {
 
+    private static final int LIMITE_MAX = 200;
+
     private final UserRepository userRepository;
+    private final PassStateCache passStateCache;
+    private final UserEventPublisher userEventPublisher;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, PassStateCache passStateCache,
+                       UserEventPublisher userEventPublisher) {
         this.userRepository = userRepository;
+        this.passStateCache = passStateCache;
+        this.userEventPublisher = userEventPublisher;
     }
 
     // ── Lire tous les utilisateurs — ADMIN (dashboard) ────────────────────────
+    // Une seule requête utilisateurs + pass (LEFT JOIN), plus de SELECT lazy par utilisateur
     @Transactional(readOnly = true)
     public List<UserResponse> obtenirTousLesUtilisateurs() {
-        return userRepository.findAll()
+        return userRepository.findAllRows()
                 .stream()
                 .map(this::mapToUserResponse)
                 .collect(Collectors.toList());
     }
 
+    // ── Listing paginé — ADMIN (dashboard) ────────────────────────────────────
+
+    /**
+     * Page d'utilisateurs filtrée (rôle, statut du pass), triée côté serveur
+     * (createdAt, nom, email) et paginée par keyset : coût constant quelle que soit la page.
+     */
+    @Transactional(readOnly = true)
+    public UserPage listerUtilisateurs(String role, String passStatus, String tri, String ordre,
+                                       String apres, int limite) {
+        Role filtreRole = role != null ? Role.valueOf(role.toUpperCase(Locale.ROOT)) : null;
+        PassStatus filtrePass = passStatus != null ? PassStatus.valueOf(passStatus.toUpperCase(Locale.ROOT)) : null;
+        TriUtilisateurs colonne = tri != null
+                ? TriUtilisateurs.valueOf(tri.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT))
+                : TriUtilisateurs.CREATED_AT;
+        boolean descendant = ordre == null ? colonne == TriUtilisateurs.CREATED_AT : "desc".equalsIgnoreCase(ordre);
+        int taille = Math.max(1, Math.min(limite, LIMITE_MAX));
+
+        Object apresValeur = null;
+        UUID apresId = null;
+        if (apres != null && !apres.isBlank()) {
+            String[] curseur = new String(Base64.getUrlDecoder().decode(apres), StandardCharsets.UTF_8).split("\\|", 2);
+            if (curseur.length != 2) {
+                throw new IllegalArgumentException("Curseur invalide");
+            }
+            apresId = UUID.fromString(curseur[0]);
+            apresValeur = colonne == TriUtilisateurs.CREATED_AT ? LocalDateTime.parse(curseur[1]) : curseur[1];
+        }
+
+        // limite + 1 : la ligne en trop indique qu'il existe une page suivante
+        List<UserListRow> lignes = userRepository.listerUtilisateurs(filtreRole, filtrePass, colonne,
+                descendant, apresValeur, apresId, taille + 1);
+        boolean pageSuivante = lignes.size() > taille;
+        if (pageSuivante) {
+            lignes = lignes.subList(0, taille);
+        }
+
+        String curseurSuivant = null;
+        if (pageSuivante) {
+            UserListRow derniere = lignes.get(lignes.size() - 1);
+            String valeur = switch (colonne) {
+                case CREATED_AT -> derniere.createdAt().toString();
+                case NOM -> derniere.nom();
+                case EMAIL -> derniere.email();
+            };
+            curseurSuivant = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((derniere.id() + "|" + valeur).getBytes(StandardCharsets.UTF_8));
+        }
+        return new UserPage(lignes.stream().map(this::mapToUserResponse).toList(), curseurSuivant, taille);
+    }
+
     // ── Lire un utilisateur — USER (son profil) ou ADMIN ─────────────────────
     @Transactional(readOnly = true)
     public UserResponse obtenirUtilisateur(UUID id) {
@@ -42,33 +110,113 @@ public class UserService {
     }
 
     // ── Modifier un profil — USER (son propre) ou ADMIN ──────────────────────
+    // PUT : les champs null sont ignorés (comportement historique), puis même chemin que le PATCH
     public UserResponse mettreAJourUtilisateur(UUID id, UpdateUserRequest request) {
+        Map<String, Object> patch = new LinkedHashMap<>();
+        if (request.getNom() != null)       patch.put("nom", request.getNom());
+        if (request.getPrenom() != null)    patch.put("prenom", request.getPrenom());
+        if (request.getTelephone() != null) patch.put("telephone", request.getTelephone());
+        if (request.getUsername() != null)  patch.put("username", request.getUsername());
+        return patcherUtilisateur(id, patch);
+    }
+
+    /**
+     * JSON Merge Patch du profil : champ absent = inchangé, null = effacé
+     * (telephone uniquement), valeur = remplacée.
+     * Seules les colonnes réellement modifiées partent dans l'UPDATE (@DynamicUpdate),
+     * et aucun UPDATE n'est émis si rien ne change.
+     * L'unicité du username repose sur l'index unique : le conflit remonte au flush,
+     * sans SELECT préalable (qui ne protégeait pas des écritures concurrentes).
+     */
+    public UserResponse patcherUtilisateur(UUID id, Map<String, Object> patch) {
         User user = userRepository.findById(id)
                 .orElseThrow(() -> new UserNotFoundException(id));
 
-        if (request.getNom() != null)       user.setNom(request.getNom());
-        if (request.getPrenom() != null)    user.setPrenom(request.getPrenom());
-        if (request.getTelephone() != null) user.setTelephone(request.getTelephone());
-        if (request.getUsername() != null) {
-            if (userRepository.existsByUsername(request.getUsername())) {
-                throw new IllegalArgumentException(
-                        "Ce nom d'utilisateur est déjà pris : " + request.getUsername());
+        boolean usernameModifie = false;
+        for (Map.Entry<String, Object> champ : patch.entrySet()) {
+            switch (champ.getKey()) {
+                case "nom"       -> user.setNom(texte(champ, 1, 100, false));
+                case "prenom"    -> user.setPrenom(texte(champ, 1, 100, false));
+                case "telephone" -> user.setTelephone(texte(champ, 1, 20, true));
+                case "username"  -> {
+                    String username = texte(champ, 3, 50, false);
+                    usernameModifie = !username.equals(user.getUsername());
+                    user.setUsername(username);
+                }
+                default -> throw new PatchInvalideException("Champ non modifiable : " + champ.getKey());
+            }
+        }
+
+        if (usernameModifie) {
+            try {
+                userRepository.flush();
+            } catch (DataIntegrityViolationException e) {
+                throw new UsernameDejaPrisException(user.getUsername());
             }
-            user.setUsername(request.getUsername());
         }
+        if (!patch.isEmpty()) {
+            userEventPublisher.publishUserChanged(user.getId(), user.getEmail(), "MODIFIE");
+        }
+        return mapToUserResponse(user);
+    }
 
-        return mapToUserResponse(userRepository.save(user));
+    // ── Rehash du mot de passe — auth-service (coût BCrypt relevé) ───────────
+    // @DynamicUpdate : l'UPDATE ne porte que sur la colonne password
+    public void remplacerHashMotDePasse(UUID id, String hash) {
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
+        if (hash == null || !hash.startsWith("$2")) {
+            throw new PatchInvalideException("Hash BCrypt attendu");
+        }
+        user.setPassword(hash);
+        userEventPublisher.publishUserChanged(id, user.getEmail(), "MODIFIE");
     }
 
     // ── Supprimer un utilisateur — ADMIN uniquement ───────────────────────────
     public void supprimerUtilisateur(UUID id) {
-        if (!userRepository.existsById(id)) {
-            throw new UserNotFoundException(id);
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new UserNotFoundException(id));
+        userRepository.delete(user);
+        passStateCache.invalider(id);
+        // Révocation : auth-service oublie l'identité en cache, plus de login possible
+        userEventPublisher.publishUserChanged(id, user.getEmail(), "SUPPRIME");
+    }
+
+    // ── Utilitaires ───────────────────────────────────────────────────────────
+
+    private static String texte(Map.Entry<String, Object> champ, int min, int max, boolean effacable) {
+        Object valeur = champ.getValue();
+        if (valeur == null) {
+            if (effacable) {
+                return null;
+            }
+            throw new PatchInvalideException("Le champ " + champ.getKey() + " ne peut pas être effacé");
+        }
+        if (!(valeur instanceof String texte) || texte.isBlank()
+                || texte.length() < min || texte.length() > max) {
+            throw new PatchInvalideException(
+                    "Le champ " + champ.getKey() + " doit être un texte de " + min + " à " + max + " caractères");
         }
-        userRepository.deleteById(id);
+        return texte;
     }
 
     // ── Mapper ────────────────────────────────────────────────────────────────
+    private UserResponse mapToUserResponse(UserListRow row) {
+        UserResponse response = new UserResponse();
+        response.setId(row.id());
+        response.setNom(row.nom());
+        response.setPrenom(row.prenom());
+        response.setUsername(row.username());
+        response.setEmail(row.email());
+        response.setTelephone(row.telephone());
+        response.setRole(row.role().name());
+        response.setCreatedAt(row.createdAt());
+        response.setPassNumber(row.passNumber());
+        response.setPassStatus(row.passStatus());
+        response.setSolde(row.solde());
+        return response;
+    }
+
     private UserResponse mapToUserResponse(User user) {
         UserResponse response = new UserResponse();
         response.setId(user.getId());
@@ -0,0 +1,64 @@
+package com.smartmobility.userservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Format des numéros de pass : SMP- + 8 caractères Crockford base 32 + contrôle Luhn mod 32.
+ */
+class PassNumberAllocatorTest {
+
+    private static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    @Test
+    void unNumeroEncodeEstValide() {
+        for (long sequence : new long[] {0, 1, 2, 31, 32, 1_000, 123_456_789L, (1L << 40) - 1}) {
+            String numero = PassNumberAllocator.encoder(sequence);
+            assertEquals(13, numero.length(), numero);
+            assertTrue(numero.startsWith("SMP-"), numero);
+            assertTrue(PassNumberAllocator.estValide(numero), numero);
+        }
+    }
+
+    @Test
+    void deuxSequencesDonnentDeuxNumeros() {
+        Set<String> vus = new HashSet<>();
+        for (long sequence = 1; sequence <= 100_000; sequence++) {
+            assertTrue(vus.add(PassNumberAllocator.encoder(sequence)), "doublon pour la séquence " + sequence);
+        }
+    }
+
+    @Test
+    void uneFauteDeFrappeSurUnCaractereEstDetectee() {
+        for (long sequence = 1; sequence <= 1_000; sequence++) {
+            String numero = PassNumberAllocator.encoder(sequence);
+            for (int position = 4; position < numero.length(); position++) {
+                for (char remplacant : ALPHABET.toCharArray()) {
+                    if (remplacant == numero.charAt(position)) {
+                        continue;
+                    }
+                    String faute = numero.substring(0, position) + remplacant + numero.substring(position + 1);
+                    assertFalse(PassNumberAllocator.estValide(faute), numero + " → " + faute);
+                }
+            }
+        }
+    }
+
+    @Test
+    void unFormatInvalideEstRefuse() {
+        String numero = PassNumberAllocator.encoder(42);
+        assertFalse(PassNumberAllocator.estValide(null));
+        assertFalse(PassNumberAllocator.estValide(""));
+        assertFalse(PassNumberAllocator.estValide(numero.substring(0, 12)));
+        assertFalse(PassNumberAllocator.estValide(numero + "0"));
+        assertFalse(PassNumberAllocator.estValide("XMP-" + numero.substring(4)));
+        // I, L, O, U hors alphabet
+        assertFalse(PassNumberAllocator.estValide(numero.substring(0, 4) + "O" + numero.substring(5)));
+    }
+}